@@ -0,0 +1,74 @@
+package al420445.bench;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.AirportDao;
+import al420445.dao.base.AirportDaoFactory;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * JMH benchmark of AirportDaoImpl (Template Method) vs AirportDaoFunctional (Functional Interface)
+ * against the in-memory H2 unit hibernate2.ex1.
+ *
+ * Each trial runs in a fresh fork, so every (strategy, passengers) pair gets its own database.
+ * Thread counts and the GC profiler are set by AirportDaoBenchmarkRunner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AirportDaoBenchmark {
+
+    @Param({"TEMPLATE_METHOD", "FUNCTIONAL_INTERFACE"})
+    public AirportDaoFactory.Strategy strategy;
+
+    @Param({"1000", "100000", "1000000"})
+    public int passengers;
+
+    private AirportDao dao;
+    private int airportId;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void populate() {
+        System.setProperty("hibernate.show_sql", "false");
+
+        dao = AirportDaoFactory.create(strategy);
+        Airport airport = new AirportDaoExamples().createAirport("Benchmark airport");
+        airportId = airport.getId().intValue();
+        dao.addPassengers(airportId, IntStream.range(0, passengers)
+                .mapToObj(i -> "passenger-" + i)
+                .iterator());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        JpaUtil.close();
+    }
+
+    @Benchmark
+    public List<Airport> getAirports() {
+        return dao.getAirports();
+    }
+
+    @Benchmark
+    public void addPassenger() {
+        dao.addPassenger("added-" + sequence.incrementAndGet(), airportId);
+    }
+
+    @Benchmark
+    public List<Passenger> findPassengersByName() {
+        // Matches passenger-421, passenger-4210..4219, ... : a small, size-dependent result set
+        return dao.findPassengersByName("passenger-421");
+    }
+}
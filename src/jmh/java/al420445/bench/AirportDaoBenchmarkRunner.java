@@ -0,0 +1,37 @@
+package al420445.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs AirportDaoBenchmark and UnitOfWorkBenchmark for several thread counts with the GC profiler
+ * (gc.alloc.rate / gc.alloc.rate.norm columns) and writes one JSON report per thread count.
+ *
+ * Usage:
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec
+ * </pre>
+ * Compare the JSON reports before and after a Hibernate or H2 upgrade.
+ */
+public class AirportDaoBenchmarkRunner {
+
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(AirportDaoBenchmark.class.getSimpleName())
+                    .include(UnitOfWorkBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-airport-dao-" + threads + "t.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
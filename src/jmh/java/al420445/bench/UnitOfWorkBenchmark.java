@@ -0,0 +1,74 @@
+package al420445.bench;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.AirportDao;
+import al420445.dao.base.AirportDaoFactory;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.tx.UnitOfWork;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * JMH benchmark of a composite operation (countPassengers, addPassenger, findPassengersByName):
+ * one EntityManager and transaction per DAO call vs one UnitOfWork for the three.
+ *
+ * Thread counts and the GC profiler are set by AirportDaoBenchmarkRunner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnitOfWorkBenchmark {
+
+    @Param({"TEMPLATE_METHOD", "FUNCTIONAL_INTERFACE"})
+    public AirportDaoFactory.Strategy strategy;
+
+    private AirportDao dao;
+    private AirportDaoExamples examples;
+    private long airportId;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void populate() {
+        System.setProperty("hibernate.show_sql", "false");
+
+        dao = AirportDaoFactory.create(strategy);
+        examples = new AirportDaoExamples();
+        Airport airport = examples.createAirport("Benchmark airport");
+        airportId = airport.getId();
+        dao.addPassengers((int) airportId, IntStream.range(0, 1_000)
+                .mapToObj(i -> "passenger-" + i)
+                .iterator());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        JpaUtil.close();
+    }
+
+    @Benchmark
+    public List<Passenger> separateCalls() {
+        return checkIn();
+    }
+
+    @Benchmark
+    public List<Passenger> unitOfWork() {
+        return UnitOfWork.run(this::checkIn);
+    }
+
+    private List<Passenger> checkIn() {
+        examples.countPassengers(airportId);
+        String name = "checked-in-" + sequence.incrementAndGet();
+        dao.addPassenger(name, (int) airportId);
+        return dao.findPassengersByName(name);
+    }
+}
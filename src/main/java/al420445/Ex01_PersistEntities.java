@@ -1,9 +1,9 @@
 package al420445;
 
 import al420445.airport.*;
+import al420445.dao.base.JpaUtil;
 
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import java.sql.SQLException;
 import java.time.LocalDate;
 
@@ -18,7 +18,7 @@ public class Ex01_PersistEntities {
         // Configuration
         TcpServer.createTcpServer();
 
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hibernate2.ex1");
+        EntityManagerFactory emf = JpaUtil.createEntityManagerFactory();
 
         insertDataInDb(emf);
 
@@ -38,7 +38,7 @@ public class Ex01_PersistEntities {
         Thread.currentThread().join();
     }
     public static Result insertDataInDb() {
-        var emf = Persistence.createEntityManagerFactory("hibernate2.ex1");
+        var emf = JpaUtil.createEntityManagerFactory();
         return insertDataInDb(emf);
     }
 
@@ -1,9 +1,9 @@
 package al420445;
 
 import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 
 import java.sql.SQLException;
 
@@ -20,7 +20,7 @@ public class Ex02B_DirtyChecking {
         IO.println(getUneVariable());
 
         TcpServer.createTcpServer();
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hibernate2.ex1");
+        EntityManagerFactory emf = JpaUtil.createEntityManagerFactory();
         Ex01_PersistEntities.insertDataInDb(emf);
 
         EntityManager em = emf.createEntityManager();
@@ -1,10 +1,10 @@
 package al420445;
 
 import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 
 import java.sql.SQLException;
 
@@ -15,7 +15,7 @@ import java.sql.SQLException;
 public class Ex02_DirtyChecking {
     public static void main(String[] args) throws InterruptedException, SQLException {
         TcpServer.createTcpServer();
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hibernate2.ex1");
+        EntityManagerFactory emf = JpaUtil.createEntityManagerFactory();
         Ex01_PersistEntities.insertDataInDb(emf);
 
         EntityManager em = emf.createEntityManager();
@@ -2,10 +2,10 @@ package al420445;
 
 import al420445.airport.Airport;
 import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 
 /**
  * Ex04: Demonstrates entity lifecycle: detach, merge, and remove.
@@ -14,7 +14,7 @@ import jakarta.persistence.Persistence;
  */
 public class Ex04_MergeAndRemove {
     public static void main(String[] args) {
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hibernate2.ex1");
+        EntityManagerFactory emf = JpaUtil.createEntityManagerFactory();
         Ex01_PersistEntities.insertDataInDb(emf);
 
         // --- Step 1: Find a passenger (becomes detached after em.close) ---
@@ -4,10 +4,10 @@ import al420445.airport.Airport;
 import al420445.airport.OneWayTicket;
 import al420445.airport.Passenger;
 import al420445.airport.ReturnTicket;
+import al420445.dao.base.JpaUtil;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 import java.time.LocalDate;
 
@@ -17,7 +17,7 @@ import java.time.LocalDate;
  */
 public class Ex05_JpqlQuery {
     public static void main(String[] args) {
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hibernate2.ex1");
+        EntityManagerFactory emf = JpaUtil.createEntityManagerFactory();
         Ex01_PersistEntities.insertDataInDb(emf);
 
         EntityManager em = emf.createEntityManager();
@@ -6,9 +6,9 @@ import al420445.airport.PassengerTicketCountDTO;
 
 import al420445.airport.Passenger;
 import al420445.airport.Ticket;
+import al420445.dao.base.JpaUtil;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 
 import java.sql.SQLException;
@@ -24,7 +24,7 @@ import java.util.List;
  *  3. DTO projection with 'new' keyword
  *  4. Named parameters
  *  5. Positional parameters
- *  6. Pagination (setFirstResult / setMaxResults)
+ *  6. Keyset pagination (where id > :lastId / setMaxResults)
  *  7. COUNT / aggregate functions
  *  8. ORDER BY
  *  9. BETWEEN with dates
@@ -47,7 +47,7 @@ import java.util.List;
 public class Ex06_JoinFetchAndDTO {
     static void main(String[] args) throws InterruptedException, SQLException {
         TcpServer.createTcpServer();
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hibernate2.ex1");
+        EntityManagerFactory emf = JpaUtil.createEntityManagerFactory();
         Ex01_PersistEntities.insertDataInDb(emf);
 
         EntityManager em = emf.createEntityManager();
@@ -57,11 +57,10 @@ public class Ex06_JoinFetchAndDTO {
         // 1. Implicit join – navigating a relationship
         // ──────────────────────────────────────────────
         System.out.println("=== 1. Implicit join ===");
+        // Named query (see Passenger): select p from Passenger p where lower(p.airport.name) like :prefix
         final TypedQuery<Passenger> pass =
-                em.createQuery(
-                        """
-                                select p from Passenger p
-                                where lower(p.airport.name) like 'henri%'""", Passenger.class);
+                em.createNamedQuery(Passenger.FIND_BY_AIRPORT_NAME_PREFIX, Passenger.class)
+                        .setParameter("prefix", "henri%");
         final List<Passenger> passengers = pass.getResultList();
         System.out.println(passengers);
 
@@ -69,14 +68,10 @@ public class Ex06_JoinFetchAndDTO {
         // 2. JOIN FETCH – loads passengers in one query
         // ──────────────────────────────────────────────
         System.out.println("\n=== 2. JOIN FETCH ===");
+        // Named query (see Airport): select a from Airport a left join fetch a.passengers where lower(a.name) like :prefix
         final TypedQuery<Airport> airportQuery =
-                em.createQuery(
-            """
-                    select a from Airport a
-                    left join fetch a.passengers
-                    where lower(a.name) like 'henri%'
-                    """
-                    , Airport.class);
+                em.createNamedQuery(Airport.FIND_BY_NAME_PREFIX_WITH_PASSENGERS, Airport.class)
+                        .setParameter("prefix", "henri%");
         final Airport airport = airportQuery.getSingleResult();
         System.out.println(airport);
 
@@ -84,13 +79,10 @@ public class Ex06_JoinFetchAndDTO {
         // 3. DTO projection with 'new'
         // ──────────────────────────────────────────────
         System.out.println("\n=== 3. DTO projection ===");
-        var queryStr = """
-                select new al420445.airport.PassengerTicketCountDTO(count(t), t.passenger)
-                from Ticket t
-                group by t.passenger
-        """;
-        final List<PassengerTicketCountDTO> ticketCounts = em.createQuery(
-                queryStr, PassengerTicketCountDTO.class).getResultList();
+        // Named query (see Ticket): select new al420445.airport.PassengerTicketCountDTO(count(t), t.passenger) ...
+        // Groups the whole TICKET table and loads each passenger: dashboards use dao.report.ReportDao (Ex27)
+        final List<PassengerTicketCountDTO> ticketCounts = em.createNamedQuery(
+                Ticket.COUNT_BY_PASSENGER, PassengerTicketCountDTO.class).getResultList();
         ticketCounts.forEach(dto ->
             System.out.println(dto.count() + " ticket(s) for " + dto.passenger())
         );
@@ -99,9 +91,9 @@ public class Ex06_JoinFetchAndDTO {
         // 4. Named parameters (:name)
         // ──────────────────────────────────────────────
         System.out.println("\n=== 4. Named parameters ===");
-        List<Passenger> byName = em.createQuery(
-                "select p from Passenger p where p.name = :passengerName", Passenger.class)
-                .setParameter("passengerName", "Moukaila Smith")
+        // Named query (see Passenger): select p from Passenger p where p.name = :name
+        List<Passenger> byName = em.createNamedQuery(Passenger.FIND_BY_NAME, Passenger.class)
+                .setParameter("name", "Moukaila Smith")
                 .getResultList();
         byName.forEach(System.out::println);
 
@@ -116,22 +108,30 @@ public class Ex06_JoinFetchAndDTO {
         byNamePositional.forEach(System.out::println);
 
         // ──────────────────────────────────────────────
-        // 6. Pagination (setFirstResult / setMaxResults)
+        // 6. Keyset pagination (where id > :afterId / setMaxResults)
         // ──────────────────────────────────────────────
-        System.out.println("\n=== 6. Pagination ===");
-        List<Passenger> page = em.createQuery(
-                "select p from Passenger p order by p.name", Passenger.class)
-                .setFirstResult(0)  // offset (skip 0)
-                .setMaxResults(1)   // limit to 1 result
-                .getResultList();
-        System.out.println("Page 1 (size=1): " + page);
+        // setFirstResult (OFFSET) makes the database read and skip every previous row,
+        // so deep pages get slower. Keyset pagination restarts after the last id seen.
+        System.out.println("\n=== 6. Keyset pagination ===");
+        long lastId = 0;
+        List<Passenger> page;
+        int pageNumber = 1;
+        do {
+            page = em.createNamedQuery(Passenger.FIND_AFTER_ID, Passenger.class)
+                    .setParameter("afterId", lastId)
+                    .setMaxResults(1)   // limit to 1 result
+                    .getResultList();
+            if (!page.isEmpty()) {
+                System.out.println("Page " + pageNumber++ + " (size=1): " + page);
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (!page.isEmpty());
 
         // ──────────────────────────────────────────────
         // 7. COUNT aggregate function
         // ──────────────────────────────────────────────
         System.out.println("\n=== 7. COUNT ===");
-        Long passengerCount = em.createQuery(
-                "select count(p) from Passenger p", Long.class)
+        Long passengerCount = em.createNamedQuery(Passenger.COUNT, Long.class)
                 .getSingleResult();
         System.out.println("Total passengers: " + passengerCount);
 
@@ -349,6 +349,8 @@ public class Ex06_JoinFetchAndDTO {
         // 25. Bulk DELETE (requires its own transaction)
         // ──────────────────────────────────────────────
         // NOTE: Commented out to keep data intact for inspection
+        // On a large TICKET table, one statement locks every expired row until the commit:
+        // dao.retention.TicketRetentionJob deletes them in small chunks in the background (Ex35)
         // System.out.println("\n=== 25. Bulk DELETE ===");
         // em = emf.createEntityManager();
         // em.getTransaction().begin();
@@ -2,10 +2,10 @@ package al420445;
 
 import al420445.airport.OneWayTicket;
 import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -18,7 +18,7 @@ import java.time.LocalDate;
 public class Ex07_CascadePersist {
     public static void main(String[] args) throws SQLException, InterruptedException {
         TcpServer.createTcpServer();
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hibernate2.ex1");
+        EntityManagerFactory emf = JpaUtil.createEntityManagerFactory();
         Ex01_PersistEntities.insertDataInDb(emf);
 
         EntityManager em = emf.createEntityManager();
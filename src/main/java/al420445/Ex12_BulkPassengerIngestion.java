@@ -0,0 +1,62 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.dao.base.AirportDao;
+import al420445.dao.base.AirportDaoFactory;
+import al420445.dao.base.AirportDaoFactory.Strategy;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Ex12: Compares per-row inserts (addPassenger) with the batched bulk API (addPassengers).
+ *
+ * addPassenger opens one EntityManager + transaction per passenger.
+ * addPassengers uses a single transaction, JDBC batching (hibernate.jdbc.batch_size)
+ * and a pooled sequence so ids don't require a round-trip per INSERT.
+ */
+public class Ex12_BulkPassengerIngestion {
+
+    private static final int ROWS = 5_000;
+
+    public static void main(String[] args) {
+        // Printing every INSERT would dominate the measurement
+        System.setProperty("hibernate.show_sql", "false");
+
+        Airport airport = new AirportDaoExamples().createAirport("Bulk ingestion airport");
+        int airportId = airport.getId().intValue();
+
+        // SHARDED: the airport is not in the shards (see Ex30)
+        for (Strategy strategy : List.of(Strategy.TEMPLATE_METHOD, Strategy.FUNCTIONAL_INTERFACE)) {
+            AirportDao dao = AirportDaoFactory.create(strategy);
+            System.out.println("=== " + strategy + " ===");
+
+            List<String> perRowNames = names(strategy + "-row-");
+            long start = System.nanoTime();
+            for (String name : perRowNames) {
+                dao.addPassenger(name, airportId);
+            }
+            report("addPassenger (per row)", ROWS, System.nanoTime() - start);
+
+            List<String> bulkNames = names(strategy + "-bulk-");
+            start = System.nanoTime();
+            int inserted = dao.addPassengers(airportId, bulkNames);
+            report("addPassengers (batched)", inserted, System.nanoTime() - start);
+        }
+
+        JpaUtil.close();
+    }
+
+    private static List<String> names(String prefix) {
+        return IntStream.range(0, ROWS)
+                .mapToObj(i -> prefix + i)
+                .toList();
+    }
+
+    private static void report(String label, int rows, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("%-25s %,d rows in %.2f s -> %,.0f rows/s%n", label, rows, seconds, rows / seconds);
+    }
+}
@@ -0,0 +1,81 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.pool.ConnectionPoolMetrics;
+import al420445.service.AirportService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Ex13: Load test of AirportService on top of the HikariCP connection pool.
+ *
+ * 1 to 64 concurrent callers run a read-mostly mix (getAirports, findPassengersByName,
+ * and one addPassenger every 10 calls) for a fixed duration.
+ * Throughput and pool metrics (active/idle connections, wait time) are printed for each level.
+ */
+public class Ex13_ConnectionPoolLoad {
+
+    private static final int[] CALLERS = {1, 2, 4, 8, 16, 32, 64};
+    private static final long DURATION_MS = 3_000;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("hibernate.show_sql", "false");
+
+        Airport airport = new AirportDaoExamples().createAirport("Load test airport");
+        int airportId = airport.getId().intValue();
+        AirportService service = new AirportService();
+        service.addPassengers(airportId, IntStream.range(0, 10_000).mapToObj(i -> "load-" + i).toList());
+
+        AtomicLong nameSequence = new AtomicLong();
+        System.out.printf("%8s %12s %8s %8s %12s %12s%n", "callers", "ops/s", "active", "waiting", "avg wait", "max wait");
+
+        for (int callers : CALLERS) {
+            AtomicLong operations = new AtomicLong();
+            long deadline = System.currentTimeMillis() + DURATION_MS;
+
+            try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int c = 0; c < callers; c++) {
+                    futures.add(executor.submit(() -> {
+                        long n = 0;
+                        while (System.currentTimeMillis() < deadline) {
+                            if (n % 10 == 9) {
+                                service.addPassenger("added-" + nameSequence.incrementAndGet(), airportId);
+                            } else if (n % 2 == 0) {
+                                service.getAirports();
+                            } else {
+                                service.findPassengersByName("load-12" + (n % 10));
+                            }
+                            n++;
+                        }
+                        operations.addAndGet(n);
+                    }));
+                }
+                ConnectionPoolMetrics underLoad = JpaUtil.getConnectionPoolMetrics();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                ConnectionPoolMetrics metrics = JpaUtil.getConnectionPoolMetrics();
+                System.out.printf("%8d %12.0f %8d %8d %10d us %10d us%n",
+                        callers,
+                        operations.get() * 1000.0 / DURATION_MS,
+                        underLoad.active(),
+                        underLoad.waitingThreads(),
+                        metrics.averageWait().toNanos() / 1_000,
+                        metrics.maxWait().toNanos() / 1_000);
+            }
+        }
+
+        System.out.println("\nFinal pool state: " + JpaUtil.getConnectionPoolMetrics());
+        JpaUtil.close();
+    }
+}
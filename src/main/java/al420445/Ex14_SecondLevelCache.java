@@ -0,0 +1,68 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.tx.TransactionExecutor;
+import al420445.service.AirportService;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Ex14: Demonstrates the second-level cache on Airport and the query cache on getAirports().
+ *
+ * Shows cache hits/misses, and that the cache is invalidated by:
+ *  - a bulk JPQL UPDATE (as in Ex06 section 24)
+ *  - AirportDaoExamples.updateAirportName / deleteAirport
+ */
+public class Ex14_SecondLevelCache {
+
+    public static void main(String[] args) {
+        AirportDaoExamples examples = new AirportDaoExamples();
+        AirportService service = new AirportService();
+
+        Airport yul = examples.createAirport("Montréal-Trudeau (YUL)");
+        Airport yyz = examples.createAirport("Toronto Pearson (YYZ)");
+        Statistics stats = JpaUtil.getStatistics();
+        stats.clear();
+
+        // ---- 1. Query cache -------------------------------------------
+        System.out.println("=== 1. getAirports() twice ===");
+        service.getAirports();
+        service.getAirports();
+        printStatistics(stats);
+
+        // ---- 2. Entity cache: addPassenger does em.find(Airport) -------
+        System.out.println("\n=== 2. addPassenger x3 (em.find served by the cache) ===");
+        for (int i = 0; i < 3; i++) {
+            service.addPassenger("cached passenger " + i, yul.getId().intValue());
+        }
+        printStatistics(stats);
+
+        // ---- 3. Bulk UPDATE evicts the Airport region and the query cache
+        System.out.println("\n=== 3. Bulk UPDATE ===");
+        TransactionExecutor.executeInTransaction(em -> em.createQuery(
+                "update Airport a set a.name = concat(a.name, ' (International)') where a.name not like '%(International)'")
+                .executeUpdate());
+        System.out.println("Airports: " + service.getAirports());
+
+        // ---- 4. updateAirportName / deleteAirport ----------------------
+        System.out.println("\n=== 4. updateAirportName / deleteAirport ===");
+        examples.updateAirportName(yyz.getId(), "Toronto Pearson International");
+        System.out.println("After rename: " + service.getAirports());
+        examples.deleteAirport(yyz.getId());
+        System.out.println("After delete: " + service.getAirports());
+        printStatistics(stats);
+
+        JpaUtil.close();
+    }
+
+    private static void printStatistics(Statistics stats) {
+        CacheRegionStatistics airports = stats.getDomainDataRegionStatistics(Airport.class.getName());
+        System.out.printf("Airport region: hits=%d misses=%d puts=%d%n",
+                airports.getHitCount(), airports.getMissCount(), airports.getPutCount());
+        System.out.printf("Query cache:    hits=%d misses=%d puts=%d%n",
+                stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount(), stats.getQueryCachePutCount());
+    }
+}
@@ -0,0 +1,80 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.service.AirportService;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Ex15: Keyset pagination and streaming for large passenger searches.
+ *
+ *  1. OFFSET pagination (setFirstResult) vs keyset pagination (id > :afterId) on deep pages
+ *  2. streamPassengersByName: iterate every match without holding them all in memory
+ */
+public class Ex15_KeysetPaginationAndStreaming {
+
+    private static final int PASSENGERS = 200_000;
+    private static final int PAGE_SIZE = 100;
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+
+        Airport airport = new AirportDaoExamples().createAirport("Pagination airport");
+        AirportService service = new AirportService();
+        service.addPassengers(airport.getId().intValue(), IntStream.range(0, PASSENGERS)
+                .mapToObj(i -> "page-" + i).toList());
+
+        // ---- 1. OFFSET vs keyset -----------------------------------------
+        System.out.println("=== 1. Time per page: OFFSET vs keyset ===");
+        findWithOffset(0); // warm-up: first query translation, connection pool
+        service.findPassengersByName("page-", 0, PAGE_SIZE);
+        System.out.printf("%10s %12s %12s%n", "page", "offset", "keyset");
+        for (int pageNumber : new int[]{1, 10, 100, 1_000, 1_900}) {
+            int offset = (pageNumber - 1) * PAGE_SIZE;
+
+            long start = System.nanoTime();
+            List<Passenger> offsetPage = findWithOffset(offset);
+            long offsetMicros = (System.nanoTime() - start) / 1_000;
+
+            // afterId = id of the last passenger of the previous page (ids are dense here)
+            long afterId = offsetPage.getFirst().getId() - 1;
+            start = System.nanoTime();
+            service.findPassengersByName("page-", afterId, PAGE_SIZE);
+            long keysetMicros = (System.nanoTime() - start) / 1_000;
+
+            System.out.printf("%10d %9d us %9d us%n", pageNumber, offsetMicros, keysetMicros);
+        }
+
+        // ---- 2. Streaming ---------------------------------------------------
+        System.out.println("\n=== 2. Streaming all matches ===");
+        Runtime runtime = Runtime.getRuntime();
+        try (Stream<Passenger> passengers = service.streamPassengersByName("page-")) {
+            long count = passengers.count();
+            System.out.printf("Streamed %,d passengers, heap used: %,d MB%n",
+                    count, (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+        }
+
+        JpaUtil.close();
+    }
+
+    private static List<Passenger> findWithOffset(int offset) {
+        EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
+        try {
+            return em.createQuery(
+                    "select p from Passenger p where p.nameSearch like :name order by p.id", Passenger.class)
+                    .setParameter("name", "page-%")
+                    .setFirstResult(offset)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+}
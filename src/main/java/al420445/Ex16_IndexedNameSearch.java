@@ -0,0 +1,96 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.service.AirportService;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Ex16: Prefix search on lower(NAME) (full scan) vs the indexed NAME_SEARCH column (range scan).
+ *
+ * Runs on the in-memory H2 database by default. To compare with PostgreSQL, point the unit at it:
+ * <pre>
+ * -Djakarta.persistence.jdbc.url=jdbc:postgresql://localhost/airport
+ * -Djakarta.persistence.jdbc.user=... -Djakarta.persistence.jdbc.password=...
+ * </pre>
+ * or use H2's PostgreSQL mode as a local stand-in:
+ * <pre>
+ * -Djakarta.persistence.jdbc.url=jdbc:h2:mem:pg;MODE=PostgreSQL;DB_CLOSE_DELAY=-1
+ * </pre>
+ * The number of passengers can be given as first argument (default 1,000,000).
+ */
+public class Ex16_IndexedNameSearch {
+
+    private static final String[] PREFIXES = {"Idx-1234", "idx-99999", "IDX-500000"};
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+        int passengers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Airport airport = new AirportDaoExamples().createAirport("Index airport");
+        AirportService service = new AirportService();
+        System.out.printf("Inserting %,d passengers...%n", passengers);
+        service.addPassengers(airport.getId().intValue(), IntStream.range(0, passengers)
+                .mapToObj(i -> "Idx-" + i)
+                .iterator());
+
+        // ---- 1. Execution plans ---------------------------------------------
+        System.out.println("\n=== 1. Execution plans ===");
+        printPlan("select * from PASSENGERS where lower(NAME) like 'idx-1234%'");
+        printPlan("select * from PASSENGERS where NAME_SEARCH like 'idx-1234%'");
+
+        // ---- 2. Latency -------------------------------------------------------
+        System.out.println("\n=== 2. Median latency ===");
+        System.out.printf("%-12s %14s %14s%n", "prefix", "lower(NAME)", "NAME_SEARCH");
+        for (String prefix : PREFIXES) {
+            long functionMicros = median(() -> search("lower(p.name)", prefix));
+            long indexedMicros = median(() -> service.findPassengersByName(prefix));
+            System.out.printf("%-12s %11d us %11d us%n", prefix, functionMicros, indexedMicros);
+        }
+
+        JpaUtil.close();
+    }
+
+    private static List<Passenger> search(String column, String prefix) {
+        EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
+        try {
+            return em.createQuery("select p from Passenger p where " + column + " like :name", Passenger.class)
+                    .setParameter("name", Passenger.normalizeName(prefix) + "%")
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static long median(Runnable search) {
+        search.run(); // warm-up
+        long[] micros = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            search.run();
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros[RUNS / 2];
+    }
+
+    private static void printPlan(String sql) {
+        EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
+        try {
+            System.out.println(sql);
+            for (Object row : em.createNativeQuery("explain " + sql).getResultList()) {
+                System.out.println("  " + row);
+            }
+        } finally {
+            em.close();
+        }
+    }
+}
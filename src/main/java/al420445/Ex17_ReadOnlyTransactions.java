@@ -0,0 +1,61 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.tx.TransactionExecutor;
+import al420445.service.AirportService;
+
+import jakarta.persistence.EntityManager;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Ex17: Read-write vs read-only transactions for a large read.
+ *
+ * executeInTransaction keeps a snapshot of every loaded entity and dirty-checks all of them at commit.
+ * executeReadOnly loads them read-only (no snapshot) and never flushes.
+ */
+public class Ex17_ReadOnlyTransactions {
+
+    private static final int PASSENGERS = 100_000;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+
+        Airport airport = new AirportDaoExamples().createAirport("Read-only airport");
+        new AirportService().addPassengers(airport.getId().intValue(), IntStream.range(0, PASSENGERS)
+                .mapToObj(i -> "ro-" + i)
+                .iterator());
+
+        Function<EntityManager, Integer> loadAll = em -> {
+            List<Passenger> passengers = em.createQuery("select p from Passenger p", Passenger.class)
+                    .getResultList();
+            return passengers.size();
+        };
+
+        System.out.printf("%-22s %10s %14s%n", "mode", "time", "allocated");
+        for (int run = 0; run < RUNS; run++) {
+            measure("executeInTransaction", () -> TransactionExecutor.executeInTransaction(loadAll));
+            measure("executeReadOnly", () -> TransactionExecutor.executeReadOnly(loadAll));
+        }
+
+        JpaUtil.close();
+    }
+
+    private static void measure(String label, Runnable action) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        action.run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long allocatedMb = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / (1024 * 1024);
+        System.out.printf("%-22s %7d ms %11d MB%n", label, millis, allocatedMb);
+    }
+}
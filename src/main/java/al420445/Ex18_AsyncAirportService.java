@@ -0,0 +1,67 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.dao.base.AirportDaoFactory;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.service.AirportService;
+import al420445.service.AsyncAirportService;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Ex18: AsyncAirportService under 10,000 concurrent requests.
+ *
+ * Each request fans out getAirports + 2 x findPassengersByName and waits for all three.
+ * The same service runs once with a platform thread per call and once with a virtual thread per call;
+ * in both cases the semaphore limits database access to the connection pool size.
+ */
+public class Ex18_AsyncAirportService {
+
+    private static final int REQUESTS = 10_000;
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+
+        Airport airport = new AirportDaoExamples().createAirport("Async airport");
+        new AirportService().addPassengers(airport.getId().intValue(), IntStream.range(0, 10_000)
+                .mapToObj(i -> "async-" + i)
+                .iterator());
+        int poolSize = JpaUtil.getConnectionPoolMetrics().maximum();
+
+        System.out.printf("%-16s %10s %12s %12s%n", "threads", "time", "requests/s", "peak threads");
+        for (int run = 0; run < 2; run++) {
+            measure("platform", Executors.newThreadPerTaskExecutor(Thread.ofPlatform().factory()), poolSize);
+            measure("virtual", Executors.newVirtualThreadPerTaskExecutor(), poolSize);
+        }
+
+        JpaUtil.close();
+    }
+
+    private static void measure(String label, ExecutorService executor, int poolSize) {
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        long start = System.nanoTime();
+
+        try (AsyncAirportService service = new AsyncAirportService(
+                AirportDaoFactory.create(), executor, poolSize)) {
+            List<CompletableFuture<Void>> requests = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                requests.add(CompletableFuture.allOf(
+                        service.getAirports(),
+                        service.findPassengersByName("async-" + (i % 1000)),
+                        service.findPassengersByName("async-9" + (i % 100))));
+            }
+            CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%-16s %7d ms %12.0f %12d%n", label, millis, REQUESTS * 1000.0 / millis,
+                ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+}
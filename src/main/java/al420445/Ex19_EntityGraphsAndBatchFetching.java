@@ -0,0 +1,95 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.ReturnTicket;
+import al420445.dao.base.FetchPlan;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.tx.TransactionExecutor;
+import al420445.service.AirportService;
+
+import org.hibernate.stat.Statistics;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Ex19: Avoiding N+1 queries when walking passenger → ticket graphs.
+ *
+ *  1. Lazy navigation (as in Ex08) for many passengers: @BatchSize loads tickets 50 passengers at a time
+ *  2. FetchPlan.PASSENGER_WITH_TICKETS: tickets come with the query (entity graph)
+ *  3. FetchPlan.AIRPORT_WITH_PASSENGERS
+ *
+ * Each step counts the SQL statements with Hibernate statistics and fails if the bound is exceeded.
+ */
+public class Ex19_EntityGraphsAndBatchFetching {
+
+    private static final int AIRPORTS = 3;
+    private static final int PASSENGERS_PER_AIRPORT = 100;
+    private static final int PASSENGERS = AIRPORTS * PASSENGERS_PER_AIRPORT;
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+        insertPassengersWithTickets();
+
+        AirportService service = new AirportService();
+        Statistics stats = JpaUtil.getStatistics();
+
+        // ---- 1. Lazy navigation with @BatchSize ---------------------------
+        System.out.println("=== 1. Lazy navigation inside a transaction ===");
+        // 1 query + ceil(300 / 50) ticket batches + 1 airport batch
+        int tickets = countStatements(stats, "lazy + @BatchSize", 1 + PASSENGERS / 50 + 1, () ->
+                TransactionExecutor.executeReadOnly(em -> em.createQuery(
+                                "select p from Passenger p where p.nameSearch like 'graph-%'", Passenger.class)
+                        .getResultList().stream()
+                        .mapToInt(p -> p.getTickets().size())
+                        .sum()));
+        System.out.println("Tickets: " + tickets);
+
+        // ---- 2. Passenger.withTickets -------------------------------------
+        System.out.println("\n=== 2. FetchPlan.PASSENGER_WITH_TICKETS ===");
+        List<Passenger> passengers = countStatements(stats, "Passenger.withTickets", 2, () ->
+                service.findPassengersByName("graph-", FetchPlan.PASSENGER_WITH_TICKETS));
+        // The EntityManager is closed, yet the tickets are already loaded
+        System.out.println("Tickets: " + passengers.stream().mapToInt(p -> p.getTickets().size()).sum());
+
+        // ---- 3. Airport.withPassengers ------------------------------------
+        System.out.println("\n=== 3. FetchPlan.AIRPORT_WITH_PASSENGERS ===");
+        List<Airport> airports = countStatements(stats, "Airport.withPassengers", 1, () ->
+                service.getAirports(FetchPlan.AIRPORT_WITH_PASSENGERS));
+        airports.forEach(a -> System.out.println(a.getName() + ": " + a.getPassengers().size() + " passengers"));
+
+        JpaUtil.close();
+    }
+
+    private static <T> T countStatements(Statistics stats, String label, long maxStatements, Supplier<T> action) {
+        stats.clear();
+        T result = action.get();
+        long statements = stats.getPrepareStatementCount();
+        System.out.printf("%s: %d SQL statement(s) (max %d)%n", label, statements, maxStatements);
+        if (statements > maxStatements) {
+            throw new IllegalStateException(label + ": expected at most " + maxStatements
+                    + " statements but got " + statements);
+        }
+        return result;
+    }
+
+    private static void insertPassengersWithTickets() {
+        TransactionExecutor.executeInTransaction(em -> {
+            for (int a = 0; a < AIRPORTS; a++) {
+                Airport airport = new Airport("Graph airport " + a);
+                em.persist(airport);
+                for (int p = 0; p < PASSENGERS_PER_AIRPORT; p++) {
+                    Passenger passenger = new Passenger("graph-" + a + "-" + p);
+                    airport.addPassenger(passenger);
+                    passenger.addTicket(new OneWayTicket(LocalDate.now()));
+                    passenger.addTicket(new ReturnTicket(LocalDate.now().plusDays(7)));
+                    em.persist(passenger);
+                }
+            }
+            return null;
+        });
+    }
+}
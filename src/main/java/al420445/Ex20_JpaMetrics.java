@@ -0,0 +1,57 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.metrics.JpaMetrics;
+import al420445.service.AirportService;
+
+import java.util.stream.IntStream;
+
+/**
+ * Ex20: Which AirportDao methods dominate? JpaUtil.getMetrics() under a mixed load.
+ *
+ * Prints per-SQL execution counts, p50/p99/max latency and rows, entity load/fetch counts,
+ * then the same snapshot as JSON. Statements slower than al420445.metrics.slow_query_ms
+ * (lowered to 20 ms here) are logged with their parameters.
+ */
+public class Ex20_JpaMetrics {
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+        System.setProperty("al420445.metrics.slow_query_ms", "20");
+
+        Airport airport = new AirportDaoExamples().createAirport("Metrics airport");
+        AirportService service = new AirportService();
+        service.addPassengers(airport.getId().intValue(), IntStream.range(0, 50_000)
+                .mapToObj(i -> "metrics-" + i)
+                .iterator());
+        JpaUtil.resetMetrics();
+
+        for (int i = 0; i < 2_000; i++) {
+            service.getAirports();
+            service.findPassengersByName("metrics-" + (i % 500));
+            if (i % 10 == 0) {
+                service.addPassenger("metrics-added-" + i, airport.getId().intValue());
+            }
+        }
+        service.findPassengersByName("metrics-"); // large result: slow query log
+
+        JpaMetrics metrics = JpaUtil.getMetrics();
+        System.out.println("\n=== Queries (most expensive first) ===");
+        System.out.printf("%8s %9s %8s %8s %8s  %s%n", "count", "rows", "p50 us", "p99 us", "max us", "sql");
+        for (JpaMetrics.QueryMetrics query : metrics.queries()) {
+            System.out.printf("%8d %9d %8d %8d %8d  %s%n", query.executions(), query.rows(),
+                    query.p50Micros(), query.p99Micros(), query.maxMicros(),
+                    query.sql().replaceAll("\\s+", " "));
+        }
+
+        System.out.println("\n=== Entities ===");
+        metrics.entities().forEach(System.out::println);
+
+        System.out.println("\n=== JSON ===");
+        System.out.println(metrics.toJson());
+
+        JpaUtil.close();
+    }
+}
@@ -0,0 +1,88 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.importer.ImportReport;
+import al420445.dao.importer.PassengerImporter;
+import al420445.service.AirportService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Ex21: StatelessSession import pipeline for CSV and NDJSON passenger feeds.
+ *
+ *  1. Generate a CSV and an NDJSON file (passengers + OneWay/Return tickets + address)
+ *  2. Import them: read → parallel parse → batched StatelessSession writer, rows/s per stage
+ *  3. Import the CSV again with the same checkpoint: everything is already committed
+ */
+public class Ex21_PassengerImport {
+
+    private static final int CSV_PASSENGERS = 200_000;
+    private static final int NDJSON_PASSENGERS = 100_000;
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("hibernate.show_sql", "false");
+
+        AirportDaoExamples examples = new AirportDaoExamples();
+        Airport yul = examples.createAirport("Montréal-Trudeau (YUL)");
+        Airport yyz = examples.createAirport("Toronto Pearson (YYZ)");
+
+        Path directory = Files.createTempDirectory("passenger-import");
+        Path csv = directory.resolve("passengers.csv");
+        Path ndjson = directory.resolve("passengers.ndjson");
+        writeCsv(csv, yul.getId(), yyz.getId());
+        writeNdjson(ndjson, yul.getId());
+        System.out.println("Feeds written to " + directory);
+
+        PassengerImporter importer = new PassengerImporter();
+
+        // ---- 1. CSV -------------------------------------------------------
+        System.out.println("\n=== 1. CSV import ===");
+        print(importer.importFile(csv, "passengers.csv"));
+
+        // ---- 2. NDJSON ----------------------------------------------------
+        System.out.println("\n=== 2. NDJSON import ===");
+        print(importer.importFile(ndjson, "passengers.ndjson"));
+
+        // ---- 3. Resume ----------------------------------------------------
+        System.out.println("\n=== 3. CSV import again (resumes after the last checkpoint) ===");
+        print(importer.importFile(csv, "passengers.csv"));
+
+        System.out.println("\nSearch 'csv-12345': " + new AirportService().findPassengersByName("csv-12345"));
+        JpaUtil.close();
+    }
+
+    private static void print(ImportReport report) {
+        System.out.println("Resumed from line " + report.resumedFromLine());
+        report.stages().forEach(System.out::println);
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("Heap used: %,d MB%n", (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+    }
+
+    private static void writeCsv(Path file, long airportA, long airportB) throws IOException {
+        LocalDate date = LocalDate.now();
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("name,airportId,street,city,province,postalCode,tickets\n");
+            for (int i = 0; i < CSV_PASSENGERS; i++) {
+                out.write("csv-" + i + "," + (i % 2 == 0 ? airportA : airportB)
+                        + ",\"" + i + ", rue Principale\",Montréal,QC,H1A 1A1,"
+                        + "OneWay:OW" + i + ":" + date + "|Return:RT" + i + ":" + date.plusDays(7) + "\n");
+            }
+        }
+    }
+
+    private static void writeNdjson(Path file, long airportId) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < NDJSON_PASSENGERS; i++) {
+                out.write("{\"name\":\"json-" + i + "\",\"airportId\":" + airportId
+                        + ",\"address\":{\"city\":\"Toronto\",\"province\":\"ON\"}"
+                        + ",\"tickets\":[{\"type\":\"OneWay\",\"number\":\"JS" + i + "\",\"date\":\"" + LocalDate.now() + "\"}]}\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package al420445;
+
+import al420445.airport.Address;
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.ReturnTicket;
+import al420445.airport.Ticket;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.export.ColumnarManifestReader;
+import al420445.dao.export.ExportReport;
+import al420445.dao.export.ManifestExporter;
+import al420445.dao.export.ManifestFormat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ex22: Streaming manifest export, one file per airport.
+ *
+ *  1. Seed 4 airports with passengers holding a OneWay and a Return ticket
+ *  2. Export every airport in parallel to CSV, then to the binary columnar format
+ *  3. Read a columnar file back and check its row count
+ *
+ * Usage: Ex22_ManifestExport [passengers] (default 250 000, i.e. 500 000 tickets).
+ * The in-memory H2 database lives in the same heap; the export itself only adds one row group
+ * (or one 32 MB mapped window, outside the heap) per airport being exported.
+ */
+public class Ex22_ManifestExport {
+
+    private static final int AIRPORTS = 4;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2025, 6, 1);
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("hibernate.show_sql", "false");
+        int passengers = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+
+        // ---- 1. Seed ------------------------------------------------------
+        AirportDaoExamples examples = new AirportDaoExamples();
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < AIRPORTS; i++) {
+            airports.add(examples.createAirport("Airport " + i));
+        }
+        long start = System.nanoTime();
+        seed(airports, passengers);
+        System.out.printf("Seeded %,d passengers / %,d tickets in %.1f s%n",
+                passengers, 2L * passengers, (System.nanoTime() - start) / 1e9);
+
+        Path directory = Files.createTempDirectory("manifests");
+        ManifestExporter exporter = new ManifestExporter();
+
+        // ---- 2. Export ----------------------------------------------------
+        for (ManifestFormat format : ManifestFormat.values()) {
+            System.out.println("\n=== " + format + " ===");
+            ExportReport report = exporter.exportAll(directory, format);
+            report.airports().forEach(System.out::println);
+            System.out.println(report);
+            printHeap();
+        }
+
+        // ---- 3. Read back -------------------------------------------------
+        System.out.println("\n=== Read back ===");
+        Path file = directory.resolve("airport-" + airports.getFirst().getId() + ".amc");
+        long[] shown = {0};
+        long rows = ColumnarManifestReader.read(file,
+                header -> System.out.println(header),
+                row -> {
+                    if (shown[0]++ < 2) System.out.println(row);
+                });
+        System.out.printf("%,d rows read from %s%n", rows, file);
+        System.out.println("CSV, first lines:");
+        try (var lines = Files.lines(directory.resolve("airport-" + airports.getFirst().getId() + ".csv"))) {
+            lines.limit(3).forEach(System.out::println);
+        }
+
+        JpaUtil.close();
+    }
+
+    private static void seed(List<Airport> airports, int passengers) {
+        SessionFactory sessionFactory = JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class);
+        // One transaction per 20 000 passengers so no connection stays out of the pool for long
+        for (int from = 0; from < passengers; from += 20_000) {
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                session.setJdbcBatchSize(JpaUtil.BATCH_SIZE);
+                session.beginTransaction();
+                List<Ticket> tickets = new ArrayList<>();
+                for (int i = from; i < Math.min(passengers, from + 20_000); i++) {
+                    Passenger passenger = new Passenger("manifest-" + i);
+                    passenger.setAirport(airports.get(i % airports.size()));
+                    passenger.setAddress(new Address(i + ", rue Sainte-Catherine", "Montréal", "QC", "H3B 1A7"));
+                    session.insert(passenger);
+                    tickets.add(ticket(new OneWayTicket(FIRST_DATE.plusDays(i % 365)), "OW" + i, passenger));
+                    tickets.add(ticket(new ReturnTicket(FIRST_DATE.plusDays(i % 365 + 7)), "RT" + i, passenger));
+                }
+                // Passengers first, then tickets: identical INSERTs share JDBC batches
+                tickets.forEach(session::insert);
+                session.getTransaction().commit();
+            }
+        }
+    }
+
+    private static Ticket ticket(Ticket ticket, String number, Passenger passenger) {
+        ticket.setNumber(number);
+        ticket.setPassenger(passenger);
+        return ticket;
+    }
+
+    private static void printHeap() {
+        System.gc(); // live objects only, not the garbage of the seeding
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("Heap used: %,d MB%n", (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+    }
+}
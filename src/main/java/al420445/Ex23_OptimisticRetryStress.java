@@ -0,0 +1,138 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.metrics.JpaMetrics;
+import al420445.dao.tx.RetryPolicy;
+import al420445.dao.tx.TransactionExecutor;
+import al420445.service.AirportService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Ex23: @Version + retry under contention.
+ *
+ * 32 threads move a small set of "hot" passengers to the next airport (A -> B -> C -> D -> A),
+ * while other threads rename the airports. Every successful transfer bumps the passenger version
+ * by exactly one, so sum(passenger.version) == successful transfers proves no update was lost.
+ *
+ *  1. No retry (1 attempt): conflicts surface as OptimisticLockException
+ *  2. RetryPolicy.DEFAULT: almost every transfer goes through after a few jittered retries
+ */
+public class Ex23_OptimisticRetryStress {
+
+    private static final int AIRPORTS = 4;
+    private static final int HOT_PASSENGERS = 20;
+    private static final int THREADS = 32;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final int RENAMES = 500;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("hibernate.show_sql", "false");
+        System.setProperty("al420445.metrics.slow_query_ms", "5000");
+
+        AirportDaoExamples examples = new AirportDaoExamples();
+        List<Long> airportIds = new ArrayList<>();
+        for (int i = 0; i < AIRPORTS; i++) {
+            airportIds.add(examples.createAirport("Hub " + (char) ('A' + i)).getId());
+        }
+        new AirportService().addPassengers(airportIds.getFirst().intValue(),
+                IntStream.range(0, HOT_PASSENGERS).mapToObj(i -> "hot-" + i).toList());
+        List<Long> passengerIds = TransactionExecutor.executeReadOnly(em ->
+                em.createQuery("select p.id from Passenger p where p.name like 'hot-%'", Long.class).getResultList());
+
+        run("1. No retry", new RetryPolicy(1, Duration.ZERO, Duration.ZERO), airportIds, passengerIds);
+        run("2. RetryPolicy.DEFAULT", RetryPolicy.DEFAULT, airportIds, passengerIds);
+
+        JpaUtil.close();
+    }
+
+    private static void run(String title, RetryPolicy policy, List<Long> airportIds, List<Long> passengerIds)
+            throws InterruptedException {
+        System.out.println("\n=== " + title + " ===");
+        JpaUtil.resetMetrics();
+        long versionsBefore = sumOfVersions("Passenger");
+        long airportVersionsBefore = sumOfVersions("Airport");
+        AtomicLong transferred = new AtomicLong();
+        AtomicLong failedTransfers = new AtomicLong();
+        AtomicLong renamed = new AtomicLong();
+        AtomicLong failedRenames = new AtomicLong();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS + 4)) {
+            for (int t = 0; t < THREADS; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        Long passengerId = passengerIds.get(ThreadLocalRandom.current().nextInt(passengerIds.size()));
+                        try {
+                            transferToNextAirport(policy, passengerId, airportIds);
+                            transferred.incrementAndGet();
+                        } catch (RuntimeException ex) {
+                            failedTransfers.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            // Renames conflict with each other, never with the transfers (see Airport.passengers)
+            for (int t = 0; t < 4; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < RENAMES / 4; i++) {
+                        Long airportId = airportIds.get(ThreadLocalRandom.current().nextInt(airportIds.size()));
+                        try {
+                            TransactionExecutor.executeWithRetry(policy, em -> {
+                                Airport airport = em.find(Airport.class, airportId);
+                                airport.setName(airport.getName().replaceAll(" #\\d+$", "") + " #" + airport.getVersion());
+                                return null;
+                            });
+                            renamed.incrementAndGet();
+                        } catch (RuntimeException ex) {
+                            failedRenames.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long versions = sumOfVersions("Passenger") - versionsBefore;
+        long airportVersions = sumOfVersions("Airport") - airportVersionsBefore;
+        System.out.printf("Transfers: %,d ok, %,d failed in %.2f s%n", transferred.get(), failedTransfers.get(), seconds);
+        System.out.printf("Renames:   %,d ok, %,d failed%n", renamed.get(), failedRenames.get());
+        System.out.printf("Passenger versions +%,d (%s), airport versions +%,d (%s)%n",
+                versions, versions == transferred.get() ? "no lost update" : "LOST UPDATES",
+                airportVersions, airportVersions == renamed.get() ? "= renames" : "MISMATCH");
+
+        JpaMetrics.RetryMetrics retries = JpaUtil.getMetrics().retries();
+        System.out.printf("Retry metrics: executions=%,d retries=%,d recovered=%,d exhausted=%,d by cause=%s%n",
+                retries.executions(), retries.retries(), retries.recovered(), retries.exhausted(), retries.byCause());
+    }
+
+    /**
+     * Read-modify-write: the destination depends on the current airport, so a lost update would
+     * be visible (two threads reading A would both write B, one transfer would vanish).
+     */
+    private static void transferToNextAirport(RetryPolicy policy, Long passengerId, List<Long> airportIds) {
+        TransactionExecutor.executeWithRetry(policy, em -> {
+            Passenger passenger = em.find(Passenger.class, passengerId);
+            int current = airportIds.indexOf(passenger.getAirport().getId());
+            Airport next = em.find(Airport.class, airportIds.get((current + 1) % airportIds.size()));
+            next.addPassenger(passenger);
+            return null;
+        });
+    }
+
+    private static long sumOfVersions(String entity) {
+        return TransactionExecutor.executeReadOnly(em ->
+                em.createQuery("select coalesce(sum(e.version), 0) from " + entity + " e", Long.class)
+                        .getSingleResult());
+    }
+}
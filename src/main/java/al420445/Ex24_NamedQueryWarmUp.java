@@ -0,0 +1,102 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.airport.PassengerTicketCountDTO;
+import al420445.airport.Ticket;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.base.NamedQueryWarmUp;
+import al420445.dao.metrics.JpaMetrics;
+import al420445.service.AirportService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Ex24: Named queries validated at boot and warmed up into the query plan cache.
+ *
+ * Two EntityManagerFactory on the same database: one cold, one after NamedQueryWarmUp.run().
+ * The first call of each query on the cold factory misses the plan cache (HQL interpretation
+ * with the DAO's result type, then SQL translation); on the warm factory both are cache hits.
+ *
+ * The size of the plan cache is hibernate.query.plan_cache_max_size (persistence.xml).
+ */
+public class Ex24_NamedQueryWarmUp {
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+
+        // JpaUtil's factory has already run the warm-up (al420445.query.warm_up=true)
+        AirportService service = new AirportService();
+        service.getAirports();
+        Airport airport = new al420445.dao.examples.AirportDaoExamples().createAirport("Warm-up airport");
+        service.addPassengers(airport.getId().intValue(),
+                IntStream.range(0, 1_000).mapToObj(i -> "warm-" + i).toList());
+
+        EntityManagerFactory cold = Persistence.createEntityManagerFactory("hibernate2.ex1",
+                Map.of("hibernate.show_sql", "false", "hibernate.hikari.poolName", "cold"));
+        EntityManagerFactory warm = Persistence.createEntityManagerFactory("hibernate2.ex1",
+                Map.of("hibernate.show_sql", "false", "hibernate.hikari.poolName", "warm"));
+        System.out.println("Warmed up: " + NamedQueryWarmUp.run(warm));
+
+        Map<String, Consumer<EntityManager>> calls = new LinkedHashMap<>();
+        calls.put(Airport.FIND_ALL, em -> em.createNamedQuery(Airport.FIND_ALL, Airport.class).getResultList());
+        calls.put(Passenger.FIND_BY_NAME_PREFIX, em -> em.createNamedQuery(Passenger.FIND_BY_NAME_PREFIX, Passenger.class)
+                .setParameter("name", "warm-12%").getResultList());
+        calls.put(Passenger.FIND_BY_NAME_PREFIX_AFTER_ID, em -> em.createNamedQuery(Passenger.FIND_BY_NAME_PREFIX_AFTER_ID, Passenger.class)
+                .setParameter("name", "warm-%").setParameter("afterId", 0L).setMaxResults(20).getResultList());
+        calls.put(Passenger.COUNT_BY_AIRPORT, em -> em.createNamedQuery(Passenger.COUNT_BY_AIRPORT, Long.class)
+                .setParameter("airportId", airport.getId()).getSingleResult());
+        calls.put(Ticket.COUNT_BY_PASSENGER, em -> em.createNamedQuery(Ticket.COUNT_BY_PASSENGER, PassengerTicketCountDTO.class)
+                .getResultList());
+
+        System.out.printf("%n%-36s %22s %22s%n", "first call of", "cold: µs / plan misses", "warm: µs / plan misses");
+        calls.forEach((name, call) -> {
+            FirstCall coldCall = firstCall(cold, call);
+            FirstCall warmCall = firstCall(warm, call);
+            System.out.printf("%-36s %13d / %6d %13d / %6d%n",
+                    name, coldCall.micros(), coldCall.misses(), warmCall.micros(), warmCall.misses());
+        });
+
+        print("cold", cold.unwrap(SessionFactory.class).getStatistics());
+        print("warm", warm.unwrap(SessionFactory.class).getStatistics());
+        JpaMetrics.QueryPlanMetrics plans = JpaUtil.getMetrics().queryPlans();
+        System.out.printf("JpaUtil factory: %d hits, %d misses (hit rate %.0f %%)%n",
+                plans.hits(), plans.misses(), plans.hitRate() * 100);
+
+        cold.close();
+        warm.close();
+        JpaUtil.close();
+    }
+
+    private record FirstCall(long micros, long misses) {
+    }
+
+    private static FirstCall firstCall(EntityManagerFactory emf, Consumer<EntityManager> call) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long missesBefore = statistics.getQueryPlanCacheMissCount();
+        EntityManager em = emf.createEntityManager();
+        try {
+            long start = System.nanoTime();
+            call.accept(em);
+            return new FirstCall((System.nanoTime() - start) / 1_000, statistics.getQueryPlanCacheMissCount() - missesBefore);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void print(String label, Statistics statistics) {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+        System.out.printf("%s factory: plan cache %d hits, %d misses (hit rate %.0f %%)%n",
+                label, hits, misses, hits + misses == 0 ? 0 : 100.0 * hits / (hits + misses));
+    }
+}
@@ -0,0 +1,221 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+import al420445.service.AirportService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.ManagedEntity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Ex25: Time to first query of the Ex0x entry points, default boot vs fast boot.
+ *
+ * Every measurement is a new JVM (same java, same classpath) running the entry point's main()
+ * against an H2 file database whose schema already exists. The time is taken from the launch
+ * of the process to the first SQL statement it prints (hibernate.show_sql), then the process is killed.
+ *
+ * - default:           hbm2ddl.auto=update, classpath scanning, named query warm-up (JpaUtil)
+ * - fastboot:          -Dal420445.fastboot=true (see FastBoot): no schema update, no scanning,
+ *                      no JDBC metadata at boot, no warm-up
+ * - fastboot + AppCDS: same, with a dynamic CDS archive recorded by a training run
+ *                      (-XX:ArchiveClassesAtExit, then -XX:SharedArchiveFile)
+ *
+ * Build with mvn -Pfastboot package to also measure entities enhanced at build time.
+ * CDS only archives classes loaded from jars: the directories of the classpath (target/classes)
+ * are copied to a jar first.
+ */
+public class Ex25_StartupTime {
+
+    private static final int RUNS = 5;
+
+    /**
+     * sharedFactory: the entry point boots through JpaUtil.getEntityManagerFactory(),
+     * whose warm-up queries (default mode) are part of the boot, not its first query.
+     */
+    private record EntryPoint(Class<?> main, boolean sharedFactory) {
+    }
+
+    private static final List<EntryPoint> ENTRY_POINTS = List.of(
+            new EntryPoint(Ex01_PersistEntities.class, false),
+            new EntryPoint(Ex05_JpqlQuery.class, false),
+            new EntryPoint(Ex08_NavigateRelations.class, false),
+            new EntryPoint(Ex09_FindByName.class, true));
+
+    private static final Pattern SQL = Pattern.compile("^Hibernate: (select|insert|update|delete)\\b.*", Pattern.CASE_INSENSITIVE);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("train")) {
+            train();
+            return;
+        }
+
+        Path work = Files.createTempDirectory("startup-time");
+        String classPath = jarredClassPath(work);
+        List<String> database = List.of(
+                "-Djakarta.persistence.jdbc.url=jdbc:h2:file:" + work.resolve("db").toAbsolutePath(),
+                "-Dhibernate.show_sql=true", "-Dhibernate.format_sql=false",
+                // The background scan of the name index would be taken for the entry point's first query
+                "-Dal420445.name_index.enabled=false");
+        Path archive = work.resolve("app-cds.jsa");
+
+        System.out.println("Entities enhanced at build time: " + ManagedEntity.class.isAssignableFrom(Airport.class)
+                + (ManagedEntity.class.isAssignableFrom(Airport.class) ? "" : " (mvn -Pfastboot package to enable)"));
+
+        // Schema created by a default boot (hbm2ddl.auto=update); also loads the jars in the OS file cache
+        run(work, command(classPath, database, Ex09_FindByName.class));
+
+        List<String> fastBoot = List.of("-Dal420445.fastboot=true");
+        run(work, command(classPath, concat(fastBoot, database, List.of("-XX:ArchiveClassesAtExit=" + archive)),
+                Ex25_StartupTime.class, "train"));
+        System.out.printf("AppCDS archive: %s (%d MB)%n", archive, Files.size(archive) / (1024 * 1024));
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("default", database);
+        modes.put("fastboot", concat(fastBoot, database));
+        modes.put("fastboot + AppCDS", concat(fastBoot, database, List.of("-XX:SharedArchiveFile=" + archive)));
+
+        System.out.printf("%nTime to first query, median of %d JVMs (ms)%n", RUNS);
+        System.out.printf("%-24s", "entry point");
+        modes.keySet().forEach(mode -> System.out.printf("%20s", mode));
+        System.out.println();
+        for (EntryPoint entryPoint : ENTRY_POINTS) {
+            System.out.printf("%-24s", entryPoint.main().getSimpleName());
+            long baseline = 0;
+            for (List<String> options : modes.values()) {
+                long[] millis = new long[RUNS];
+                for (int run = 0; run < RUNS; run++) {
+                    millis[run] = firstQueryMillis(classPath, options, entryPoint);
+                }
+                Arrays.sort(millis);
+                long median = millis[RUNS / 2];
+                if (baseline == 0) {
+                    baseline = median;
+                    System.out.printf("%20d", median);
+                } else {
+                    System.out.printf("%20s", "%d (%+.0f %%)".formatted(median, 100.0 * (median - baseline) / baseline));
+                }
+            }
+            System.out.println();
+        }
+    }
+
+    /**
+     * Training run for the AppCDS archive: the classes loaded by a boot, a few inserts
+     * and the DAO queries are the ones dumped at exit. Also used by mvn -Pfastboot package.
+     */
+    private static void train() {
+        EntityManagerFactory emf = JpaUtil.createEntityManagerFactory();
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        Airport airport = new Airport("Training " + System.nanoTime());
+        Passenger passenger = new Passenger("Training passenger " + System.nanoTime());
+        airport.addPassenger(passenger);
+        em.persist(airport);
+        em.persist(passenger);
+        em.getTransaction().commit();
+        em.close();
+        emf.close();
+
+        AirportService service = new AirportService();
+        service.getAirports();
+        service.findPassengersByName("Training");
+        JpaUtil.close();
+    }
+
+    private static long firstQueryMillis(String classPath, List<String> options, EntryPoint entryPoint) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command(classPath, options, entryPoint.main()))
+                .redirectErrorStream(true)
+                .start();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            boolean warmingUp = entryPoint.sharedFactory() && !options.contains("-Dal420445.fastboot=true");
+            for (String line = output.readLine(); line != null; line = output.readLine()) {
+                if (warmingUp) {
+                    warmingUp = !line.contains("Warmed up");
+                } else if (SQL.matcher(line).matches()) {
+                    return (System.nanoTime() - start) / 1_000_000;
+                }
+            }
+            throw new IllegalStateException(entryPoint.main().getSimpleName() + " ran no query (exit code " + process.waitFor() + ")");
+        } finally {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    /**
+     * Runs a JVM to completion, its output in a log file of the work directory.
+     */
+    private static void run(Path work, List<String> command) throws IOException, InterruptedException {
+        Path log = work.resolve(command.getLast() + ".log");
+        int exit = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start().waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException("JVM exited with code " + exit + ", see " + log);
+        }
+    }
+
+    private static List<String> command(String classPath, List<String> options, Class<?> main, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        // Same JVM options as this one, minus debugger/agents
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(option -> !option.startsWith("-agentlib") && !option.startsWith("-javaagent"))
+                .forEach(command::add);
+        command.addAll(options);
+        command.addAll(List.of("-cp", classPath, main.getName()));
+        command.addAll(List.of(args));
+        return command;
+    }
+
+    /**
+     * This JVM's classpath, with every directory replaced by a jar of its content.
+     */
+    private static String jarredClassPath(Path work) throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(java.io.File.pathSeparator)) {
+            Path path = Path.of(entry);
+            if (Files.isDirectory(path)) {
+                Path jar = work.resolve("classes-" + entries.size() + ".jar");
+                writeJar(path, jar);
+                entries.add(jar.toString());
+            } else {
+                entries.add(entry);
+            }
+        }
+        return String.join(java.io.File.pathSeparator, entries);
+    }
+
+    private static void writeJar(Path directory, Path jar) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                out.putNextEntry(new JarEntry(directory.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, (OutputStream) out);
+                out.closeEntry();
+            }
+        }
+    }
+
+    @SafeVarargs
+    private static List<String> concat(List<String>... lists) {
+        return Stream.of(lists).flatMap(List::stream).toList();
+    }
+}
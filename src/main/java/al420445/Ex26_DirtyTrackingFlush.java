@@ -0,0 +1,123 @@
+package al420445;
+
+import al420445.airport.Address;
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.Ticket;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ex26: Flush cost and heap per managed entity, snapshot dirty checking vs inline dirty tracking.
+ *
+ * Without enhancement, every flush compares each field of each managed entity with the copy taken
+ * when it was loaded. With the entities enhanced at build time (enhance profile of pom.xml,
+ * enableDirtyTracking), setters record the changed attributes and the flush only asks
+ * each entity whether it is dirty.
+ *
+ * Only the dirty check gets cheaper: the flush still visits every managed entity (cascades over
+ * Passenger.tickets, collection entries), and the persistence context still keeps the loaded state
+ * for the version check and the UPDATE. For large read-mostly transactions, executeReadOnly (Ex17)
+ * or clearing the EntityManager between batches remain the bigger levers.
+ *
+ * The default build does not enhance the entities. For the comparison, run it a second time with:
+ *   mvn clean compile exec:java -Dexec.mainClass=al420445.Ex26_DirtyTrackingFlush
+ *   mvn -Penhance clean compile exec:java -Dexec.mainClass=al420445.Ex26_DirtyTrackingFlush
+ */
+public class Ex26_DirtyTrackingFlush {
+
+    private static final int PASSENGERS = 50_000; // + 1 ticket each: 100 000 managed entities
+    private static final int RUNS = 5;
+    private static final int DIRTY = PASSENGERS / 100;
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+        System.out.printf("Inline dirty tracking: %s, lazy attribute loading: %s%n",
+                SelfDirtinessTracker.class.isAssignableFrom(Passenger.class),
+                PersistentAttributeInterceptable.class.isAssignableFrom(Passenger.class));
+
+        Airport airport = new AirportDaoExamples().createAirport("Flush airport");
+        seed(airport);
+
+        EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
+        try {
+            em.getTransaction().begin();
+            long heapBefore = usedHeap();
+            List<Ticket> tickets = em.createQuery("select t from Ticket t join fetch t.passenger", Ticket.class)
+                    .getResultList();
+            long managed = em.unwrap(Session.class).getStatistics().getEntityCount();
+            long heapAfter = usedHeap();
+            System.out.printf("%,d managed entities, %,d bytes of heap each (entity + persistence context)%n",
+                    managed, (heapAfter - heapBefore) / managed);
+
+            em.flush(); // warm-up
+
+            long[] clean = new long[RUNS];
+            long[] dirty = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                clean[run] = flushMicros(em);
+                for (int i = run; i < tickets.size(); i += tickets.size() / DIRTY) {
+                    Passenger passenger = tickets.get(i).getPassenger();
+                    passenger.setName(passenger.getName() + "'");
+                }
+                dirty[run] = flushMicros(em);
+            }
+            System.out.printf("%-28s %,10d µs%n", "flush, nothing dirty", median(clean));
+            System.out.printf("%-28s %,10d µs%n", "flush, " + DIRTY + " passengers dirty", median(dirty));
+        } finally {
+            em.getTransaction().rollback();
+            em.close();
+        }
+
+        JpaUtil.close();
+    }
+
+    private static void seed(Airport airport) {
+        try (StatelessSession session = JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class).openStatelessSession()) {
+            session.setJdbcBatchSize(JpaUtil.BATCH_SIZE);
+            session.beginTransaction();
+            Ticket[] tickets = new Ticket[PASSENGERS];
+            for (int i = 0; i < PASSENGERS; i++) {
+                Passenger passenger = new Passenger("flush-" + i);
+                passenger.setAirport(airport);
+                passenger.setAddress(new Address(i + ", rue Sherbrooke", "Montréal", "QC", "H2X 1X8"));
+                session.insert(passenger);
+                tickets[i] = new OneWayTicket(LocalDate.of(2025, 6, 1).plusDays(i % 365));
+                tickets[i].setNumber("FL" + i);
+                tickets[i].setPassenger(passenger);
+            }
+            Arrays.stream(tickets).forEach(session::insert);
+            session.getTransaction().commit();
+        }
+    }
+
+    private static long flushMicros(EntityManager em) {
+        long start = System.nanoTime();
+        em.flush();
+        return (System.nanoTime() - start) / 1_000;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,221 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.PassengerTicketCountDTO;
+import al420445.airport.ReturnTicket;
+import al420445.airport.Ticket;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.report.DailyTicketsDTO;
+import al420445.dao.report.PassengerTicketsDTO;
+import al420445.dao.report.ReportDao;
+import al420445.dao.report.ReportRebuild;
+import al420445.dao.tx.TransactionExecutor;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Ex27: Reporting aggregates maintained incrementally (package dao.report).
+ *
+ * Summary tables for tickets per passenger, passengers per airport and tickets per type and day
+ * are updated by Hibernate event listeners in the transaction that changes the data. Dashboard
+ * queries then read the rows they return instead of grouping the TICKET table.
+ *
+ * 1. Seed with a StatelessSession, which the listener does not see: ReportRebuild
+ * 2. Dashboard queries: GROUP BY over the source tables vs summary tables
+ * 3. Incremental maintenance through the EntityManager: new ticket, transfer, removal
+ * 4. Drift: a bulk delete bypasses the listener, ReportRebuild repairs the tables
+ */
+public class Ex27_ReportingAggregates {
+
+    private static final int AIRPORTS = 4;
+    private static final int PASSENGERS = 100_000;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2025, 6, 1);
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+        // H2 returns the previous result of an identical query on unchanged tables, hiding the GROUP BY cost
+        System.setProperty("jakarta.persistence.jdbc.url", "jdbc:h2:mem:hibernate2;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0");
+        ReportDao reports = new ReportDao();
+
+        // ---- 1. Seed ------------------------------------------------------
+        AirportDaoExamples examples = new AirportDaoExamples();
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < AIRPORTS; i++) {
+            airports.add(examples.createAirport("Report airport " + i));
+        }
+        long start = System.nanoTime();
+        seed(airports);
+        System.out.printf("Seeded %,d passengers / %,d tickets in %.1f s%n",
+                PASSENGERS, 2L * PASSENGERS, (System.nanoTime() - start) / 1e9);
+        System.out.println("Consistent: " + consistent(reports));
+        System.out.println(ReportRebuild.rebuild());
+        System.out.println("Consistent: " + consistent(reports));
+
+        // ---- 2. Dashboard queries -----------------------------------------
+        System.out.println("\n=== Dashboard: GROUP BY over the source tables vs summary tables ===");
+        LocalDate from = FIRST_DATE.plusDays(30);
+        LocalDate to = from.plusDays(6);
+        compare("100 passengers with their ticket count",
+                () -> TransactionExecutor.executeReadOnly(em -> em.createNamedQuery(Ticket.COUNT_BY_PASSENGER, PassengerTicketCountDTO.class)
+                        .setMaxResults(100).getResultList()).size(),
+                () -> reports.ticketsPerPassenger(0, 100).size());
+        compare("passengers per airport",
+                () -> passengersPerAirportFromSource().size(),
+                () -> reports.passengersPerAirport().size());
+        compare("tickets per day and type, 1 week",
+                () -> ticketsPerDayFromSource(from, to).size(),
+                () -> reports.ticketsPerDay(from, to).size());
+        reports.ticketsPerDay(from, from.plusDays(1)).forEach(System.out::println);
+        reports.topPassengers(3).forEach(System.out::println);
+
+        // ---- 3. Incremental maintenance ------------------------------------
+        System.out.println("\n=== Incremental maintenance ===");
+        long passengerId = reports.ticketsPerPassenger(0, 1).getFirst().passengerId();
+        TransactionExecutor.executeInTransaction(em -> {
+            Passenger passenger = em.find(Passenger.class, passengerId);
+            OneWayTicket ticket = new OneWayTicket(from);
+            ticket.setNumber("EXTRA");
+            passenger.addTicket(ticket);
+            return null;
+        });
+        System.out.println("After adding a ticket: " + reports.ticketCount(passengerId) + " tickets for passenger " + passengerId);
+        examples.transferPassenger(passengerId, airports.getLast().getId());
+        System.out.println("After a transfer:      " + reports.passengersPerAirport().stream()
+                .filter(airport -> airport.airportName().startsWith("Report")).toList());
+        TransactionExecutor.executeInTransaction(em -> {
+            em.remove(em.find(Passenger.class, passengerId)); // cascades to its tickets
+            return null;
+        });
+        System.out.println("After removing it:     " + reports.ticketCount(passengerId) + " tickets, consistent: " + consistent(reports));
+
+        // ---- 4. Drift and rebuild -----------------------------------------
+        System.out.println("\n=== Drift and rebuild ===");
+        int deleted = TransactionExecutor.executeInTransaction(em ->
+                em.createQuery("delete from ReturnTicket t where t.latestReturnDate < :date")
+                        .setParameter("date", FIRST_DATE.plusDays(14))
+                        .executeUpdate());
+        System.out.printf("Bulk delete of %,d tickets, consistent: %s%n", deleted, consistent(reports));
+        System.out.println(ReportRebuild.rebuild());
+        System.out.println("After rebuild, consistent: " + consistent(reports));
+
+        JpaUtil.close();
+    }
+
+    private static void seed(List<Airport> airports) {
+        SessionFactory sessionFactory = JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class);
+        for (int from = 0; from < PASSENGERS; from += 20_000) {
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                session.setJdbcBatchSize(JpaUtil.BATCH_SIZE);
+                session.beginTransaction();
+                List<Ticket> tickets = new ArrayList<>();
+                for (int i = from; i < Math.min(PASSENGERS, from + 20_000); i++) {
+                    Passenger passenger = new Passenger("report-" + i);
+                    passenger.setAirport(airports.get(i % airports.size()));
+                    session.insert(passenger);
+                    tickets.add(ticket(new OneWayTicket(FIRST_DATE.plusDays(i % 365)), "OW" + i, passenger));
+                    tickets.add(ticket(new ReturnTicket(FIRST_DATE.plusDays(i % 365 + 7)), "RT" + i, passenger));
+                }
+                tickets.forEach(session::insert);
+                session.getTransaction().commit();
+            }
+        }
+    }
+
+    private static Ticket ticket(Ticket ticket, String number, Passenger passenger) {
+        ticket.setNumber(number);
+        ticket.setPassenger(passenger);
+        return ticket;
+    }
+
+    private static void compare(String label, Supplier<Integer> source, Supplier<Integer> summary) {
+        int rows = source.get();
+        System.out.printf("%-42s %4d rows: %,10d µs -> %,8d µs%n", label, rows, medianMicros(source), medianMicros(summary));
+    }
+
+    private static long medianMicros(Supplier<Integer> query) {
+        long[] micros = new long[21];
+        for (int run = 0; run < micros.length; run++) {
+            long start = System.nanoTime();
+            query.get();
+            micros[run] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros[micros.length / 2];
+    }
+
+    // ---- Reference results, computed from the source tables ----
+
+    private static Map<Long, Long> passengersPerAirportFromSource() {
+        return toMap(TransactionExecutor.executeReadOnly(em -> em.createQuery(
+                "select p.airport.id, count(p) from Passenger p group by p.airport.id", Object[].class).getResultList()));
+    }
+
+    private static Map<Long, Long> ticketsPerPassengerFromSource() {
+        return toMap(TransactionExecutor.executeReadOnly(em -> em.createQuery(
+                "select t.passenger.id, count(t) from Ticket t group by t.passenger.id", Object[].class).getResultList()));
+    }
+
+    private static List<DailyTicketsDTO> ticketsPerDayFromSource(LocalDate from, LocalDate to) {
+        return TransactionExecutor.executeReadOnly(em -> {
+            List<DailyTicketsDTO> days = new ArrayList<>(em.createQuery("""
+                    select new al420445.dao.report.DailyTicketsDTO(t.latestDepartureDate, '%s', count(t))
+                    from OneWayTicket t where t.latestDepartureDate between :from and :to
+                    group by t.latestDepartureDate""".formatted(OneWayTicket.TYPE), DailyTicketsDTO.class)
+                    .setParameter("from", from).setParameter("to", to).getResultList());
+            days.addAll(em.createQuery("""
+                    select new al420445.dao.report.DailyTicketsDTO(t.latestReturnDate, '%s', count(t))
+                    from ReturnTicket t where t.latestReturnDate between :from and :to
+                    group by t.latestReturnDate""".formatted(ReturnTicket.TYPE), DailyTicketsDTO.class)
+                    .setParameter("from", from).setParameter("to", to).getResultList());
+            return days;
+        });
+    }
+
+    private static Map<Long, Long> toMap(List<Object[]> rows) {
+        Map<Long, Long> map = new HashMap<>();
+        rows.forEach(row -> map.put((Long) row[0], (Long) row[1]));
+        return map;
+    }
+
+    /**
+     * Summary tables == GROUP BY over the source tables (all passengers, all airports, all days).
+     */
+    private static boolean consistent(ReportDao reports) {
+        Map<Long, Long> tickets = new HashMap<>();
+        long afterId = 0;
+        for (List<PassengerTicketsDTO> page = reports.ticketsPerPassenger(afterId, 10_000); !page.isEmpty();
+             page = reports.ticketsPerPassenger(afterId, 10_000)) {
+            page.stream()
+                    .filter(row -> row.tickets() > 0)
+                    .forEach(row -> tickets.put(row.passengerId(), row.tickets()));
+            afterId = page.getLast().passengerId();
+        }
+        Map<Long, Long> passengers = new HashMap<>();
+        reports.passengersPerAirport().stream()
+                .filter(row -> row.passengers() > 0)
+                .forEach(row -> passengers.put(row.airportId(), row.passengers()));
+        LocalDate first = LocalDate.of(1900, 1, 1);
+        LocalDate last = LocalDate.of(9999, 12, 31);
+        return tickets.equals(ticketsPerPassengerFromSource())
+                && passengers.equals(passengersPerAirportFromSource())
+                && toDayMap(reports.ticketsPerDay(first, last)).equals(toDayMap(ticketsPerDayFromSource(first, last)));
+    }
+
+    private static Map<String, Long> toDayMap(List<DailyTicketsDTO> days) {
+        Map<String, Long> map = new HashMap<>();
+        days.forEach(day -> map.put(day.ticketDate() + " " + day.ticketType(), day.tickets()));
+        return map;
+    }
+}
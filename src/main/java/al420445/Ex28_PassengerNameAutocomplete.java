@@ -0,0 +1,202 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.search.PassengerNameIndex;
+import al420445.dao.search.PassengerNameMatch;
+import al420445.dao.tx.TransactionExecutor;
+import al420445.service.AirportService;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ex28: Passenger-name autocomplete from the off-heap PassengerNameIndex (package dao.search)
+ * vs a database query per keystroke.
+ *
+ * 1. Seed with a StatelessSession, which the index does not see: rebuild(), footprint
+ * 2. Latency per keystroke: findPassengerNames(prefix, 10), the database fallback, vs the index
+ * 3. Concurrent readers while passengers are inserted and renamed through the EntityManager
+ * 4. Freshness: committed insert, rolled-back insert, rename, removal
+ */
+public class Ex28_PassengerNameAutocomplete {
+
+    private static final int PASSENGERS = 200_000;
+    private static final int SUGGESTIONS = 10;
+    private static final int READERS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final String[] LAST_NAMES = {"Tremblay", "Gagnon", "Roy", "Côté", "Bouchard", "Gauthier",
+            "Morin", "Lavoie", "Fortin", "Gagné", "Ouellet", "Pelletier", "Bélanger", "Lévesque", "Bergeron"};
+    private static final String[] FIRST_NAMES = {"Marie", "Jean", "Louis", "Anne", "Luc", "Julie", "Marc",
+            "Sophie", "Éric", "Nathalie", "Martin", "Isabelle", "Michel", "Chantal", "Pierre", "Mélanie"};
+
+    private static final AtomicLong NAMES = new AtomicLong(); // PASSENGERS.NAME is unique
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("hibernate.show_sql", "false");
+        AirportService service = new AirportService();
+        PassengerNameIndex index = PassengerNameIndex.of(JpaUtil.getEntityManagerFactory())
+                .orElseThrow(() -> new IllegalStateException("al420445.name_index.enabled is false"));
+
+        // ---- 1. Seed and rebuild ------------------------------------------
+        Airport airport = new AirportDaoExamples().createAirport("Autocomplete airport");
+        seed(airport);
+        PassengerNameIndex.Stats stats = index.rebuild();
+        System.out.printf("Index rebuilt: %,d names in %d ms, %,.1f MB off-heap (%d bytes per name)%n",
+                stats.entries(), stats.lastRebuild().toMillis(), stats.offHeapBytes() / 1e6, stats.offHeapBytes() / stats.entries());
+
+        // ---- 2. Latency per keystroke --------------------------------------
+        System.out.printf("%n=== Typing \"Côté Ma\", %d suggestions per keystroke (median) ===%n", SUGGESTIONS);
+        System.out.printf("%-10s %8s %14s %12s%n", "prefix", "matches", "database", "index");
+        String typed = "Côté Ma";
+        for (int length = 1; length <= typed.length(); length++) {
+            String prefix = typed.substring(0, length);
+            System.out.printf("%-10s %8d %,11d µs %,9d µs%n", "\"" + prefix + "\"",
+                    index.search(prefix, Integer.MAX_VALUE).size(),
+                    medianMicros(() -> service.findPassengerNames(prefix, SUGGESTIONS)),
+                    medianMicros(() -> index.search(prefix, SUGGESTIONS)));
+        }
+        index.search("Côté Ma", 3).forEach(System.out::println);
+        System.out.println("same suggestions from the database: "
+                + service.findPassengerNames("Côté Ma", SUGGESTIONS).equals(index.search("Côté Ma", SUGGESTIONS)));
+
+        // ---- 3. Concurrent readers and writers ----------------------------
+        System.out.printf("%n=== %d readers, 1 writer, 3 s ===%n", READERS);
+        concurrentReadersAndWriter(service, index, airport);
+        System.out.println(index.stats());
+
+        // ---- 4. Freshness -------------------------------------------------
+        System.out.println("\n=== Freshness ===");
+        long visibleId = TransactionExecutor.executeInTransaction(em -> {
+            Passenger passenger = new Passenger("Zyzzyva Committed");
+            passenger.setAirport(em.getReference(Airport.class, airport.getId()));
+            em.persist(passenger);
+            return passenger.getId();
+        });
+        try {
+            TransactionExecutor.executeInTransaction(em -> {
+                em.persist(new Passenger("Zyzzyva Rolled back"));
+                em.flush();
+                throw new IllegalStateException("rollback");
+            });
+        } catch (IllegalStateException expected) {
+            // rolled back
+        }
+        System.out.println("After commit and rollback: " + service.suggestPassengers("zyzzyva", SUGGESTIONS));
+        TransactionExecutor.executeInTransaction(em -> {
+            em.find(Passenger.class, visibleId).setName("Zyzzyva Renamed");
+            return null;
+        });
+        System.out.println("After a rename:            " + service.suggestPassengers("zyzzyva", SUGGESTIONS));
+        TransactionExecutor.executeInTransaction(em -> {
+            em.remove(em.find(Passenger.class, visibleId));
+            return null;
+        });
+        System.out.println("After a removal:           " + service.suggestPassengers("zyzzyva", SUGGESTIONS));
+
+        JpaUtil.close();
+    }
+
+    private static void seed(Airport airport) {
+        try (StatelessSession session = JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class).openStatelessSession()) {
+            session.setJdbcBatchSize(JpaUtil.BATCH_SIZE);
+            session.beginTransaction();
+            for (int i = 0; i < PASSENGERS; i++) {
+                Passenger passenger = new Passenger(randomName());
+                passenger.setAirport(airport);
+                session.insert(passenger);
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    private static String randomName() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]
+                + " " + NAMES.incrementAndGet();
+    }
+
+    private static void concurrentReadersAndWriter(AirportService service, PassengerNameIndex index, Airport airport)
+            throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong lookups = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        String[] prefixes = new String[4096];
+        for (int i = 0; i < prefixes.length; i++) {
+            String name = randomName();
+            prefixes[i] = name.substring(0, ThreadLocalRandom.current().nextInt(1, name.length()));
+        }
+        List<Future<long[]>> readers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(READERS + 1)) {
+            for (int t = 0; t < READERS; t++) {
+                readers.add(executor.submit(() -> {
+                    long[] micros = new long[1 << 16];
+                    int samples = 0;
+                    while (running.get()) {
+                        String prefix = prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)];
+                        long start = System.nanoTime();
+                        index.search(prefix, SUGGESTIONS);
+                        micros[samples++ % micros.length] = (System.nanoTime() - start) / 1_000;
+                    }
+                    lookups.addAndGet(samples);
+                    return Arrays.copyOf(micros, Math.min(samples, micros.length));
+                }));
+            }
+            executor.submit(() -> {
+                while (running.get()) {
+                    // 50 new passengers, then 50 renames, per transaction
+                    List<String> names = new ArrayList<>();
+                    for (int i = 0; i < 50; i++) names.add(randomName());
+                    service.addPassengers(airport.getId().intValue(), names);
+                    TransactionExecutor.executeInTransaction(em -> {
+                        for (PassengerNameMatch match : index.search(randomName().substring(0, 3), 50)) {
+                            em.find(Passenger.class, match.passengerId()).setName(randomName());
+                        }
+                        return null;
+                    });
+                    written.addAndGet(100);
+                }
+                return null;
+            });
+            Thread.sleep(3_000);
+            running.set(false);
+        }
+        long[] micros = readers.stream().map(Ex28_PassengerNameAutocomplete::join).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%,d lookups (%,d/s), p50 %d µs, p99 %d µs; ~%,d passengers inserted or renamed meanwhile%n",
+                lookups.get(), lookups.get() / 3, micros[micros.length / 2], micros[micros.length * 99 / 100], written.get());
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static long medianMicros(Supplier<List<?>> search) {
+        for (int i = 0; i < 100; i++) {
+            search.get(); // warm-up (JIT)
+        }
+        long[] micros = new long[21];
+        for (int run = 0; run < micros.length; run++) {
+            long start = System.nanoTime();
+            search.get();
+            micros[run] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros[micros.length / 2];
+    }
+}
@@ -0,0 +1,243 @@
+package al420445;
+
+import al420445.airport.Address;
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.ReturnTicket;
+import al420445.airport.Ticket;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.cdc.CdcIntegrator;
+import al420445.dao.cdc.CdcLog;
+import al420445.dao.cdc.CdcReader;
+import al420445.dao.cdc.ChangeRecord;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.search.PassengerNameIndex;
+import al420445.dao.tx.TransactionExecutor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ex29: Change-data-capture log (package dao.cdc): committed inserts, updates and deletes
+ * appended to memory-mapped segments and tailed by CdcReader consumers.
+ *
+ * 1. Mutations of airports, passengers and tickets as change records (a rollback leaves none)
+ * 2. Commit latency with and without the log, while a consumer tails it
+ * 3. A consumer resumes from its committed offset
+ * 4. Retention: rolled segments deleted, a late consumer starts at the oldest record left
+ */
+public class Ex29_ChangeDataCapture {
+
+    private static final int TRANSACTIONS = 5_000;
+    private static final int ROUNDS = 10;
+    private static final int WARM_UP = 1_000;
+    private static final String RETENTION = "PT2S";
+
+    private static final AtomicLong NAMES = new AtomicLong(); // PASSENGERS.NAME is unique
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("airport-cdc");
+        System.setProperty("hibernate.show_sql", "false");
+        System.setProperty(CdcIntegrator.ENABLED, "true");
+        System.setProperty(CdcIntegrator.DIRECTORY, directory.toString());
+        System.setProperty(CdcIntegrator.SEGMENT_MB, "1"); // small segments to see them roll
+        System.setProperty(CdcIntegrator.RETENTION, RETENTION);
+        CdcLog log = CdcLog.of(JpaUtil.getEntityManagerFactory()).orElseThrow();
+        System.out.println("Change log in " + log.directory());
+
+        // ---- 1. Mutations -------------------------------------------------
+        System.out.println("\n=== Mutations ===");
+        AirportDaoExamples dao = new AirportDaoExamples();
+        Airport montreal = dao.createAirport("CDC Montréal");
+        Airport quebec = dao.createAirport("CDC Québec");
+        long passengerId = TransactionExecutor.executeInTransaction(em -> {
+            Passenger passenger = new Passenger("Émilie Cdc");
+            passenger.setAddress(new Address("1000 rue Sherbrooke", "Montréal", "QC", "H3A 1A1"));
+            passenger.setAirport(em.getReference(Airport.class, montreal.getId()));
+            passenger.addTicket(ticket(new OneWayTicket(LocalDate.of(2026, 12, 24))));
+            em.persist(passenger);
+            return passenger.getId();
+        });
+        dao.transferPassenger(passengerId, quebec.getId());
+        TransactionExecutor.executeInTransaction(em -> {
+            em.find(Passenger.class, passengerId).setName("Émilie Cdc-Tremblay");
+            return null;
+        });
+        try {
+            TransactionExecutor.executeInTransaction(em -> {
+                em.find(Passenger.class, passengerId).setName("Rolled back");
+                em.flush();
+                throw new IllegalStateException("rollback");
+            });
+        } catch (IllegalStateException expected) {
+            // rolled back: no record
+        }
+        TransactionExecutor.executeInTransaction(em -> {
+            em.remove(em.find(Passenger.class, passengerId)); // cascades to the ticket
+            return null;
+        });
+        try (CdcReader audit = new CdcReader(directory, "audit")) {
+            audit.poll(100).forEach(System.out::println);
+            audit.commit();
+            System.out.println("audit committed offset " + audit.position());
+        }
+
+        // ---- 2. Commit latency --------------------------------------------
+        System.out.printf("%n=== Commit latency, %,d transactions (passenger + ticket each) ===%n", TRANSACTIONS);
+        // Same unit without the log. Not closed before the end: it shares the JCache regions
+        System.setProperty(CdcIntegrator.ENABLED, "false");
+        EntityManagerFactory withoutLog = JpaUtil.createEntityManagerFactory();
+        awaitNameIndex(withoutLog);
+        awaitNameIndex(JpaUtil.getEntityManagerFactory());
+        commits(withoutLog, montreal, WARM_UP);
+        commits(JpaUtil.getEntityManagerFactory(), montreal, WARM_UP);
+
+        // Interleaved, so that neither side gets all the JIT and GC noise; a consumer tails the log meanwhile
+        Tail tail = new Tail(directory, log.stats().lastSequence() + 1);
+        long[] without = new long[0];
+        long[] with = new long[0];
+        for (int round = 0; round < ROUNDS; round++) {
+            without = concat(without, commits(withoutLog, montreal, TRANSACTIONS / ROUNDS));
+            with = concat(with, commits(JpaUtil.getEntityManagerFactory(), montreal, TRANSACTIONS / ROUNDS));
+        }
+        tail.stop();
+
+        System.out.printf("%-12s %12s %12s%n", "", "median", "p99");
+        System.out.printf("%-12s %,9d µs %,9d µs%n", "without log", percentile(without, 50), percentile(without, 99));
+        System.out.printf("%-12s %,9d µs %,9d µs%n", "with log", percentile(with, 50), percentile(with, 99));
+        CdcLog.Stats stats = log.stats();
+        System.out.printf("append: %,.1f µs mean, %,.1f µs max per transaction; %,d records, %d bytes per record, %d segments%n",
+                stats.meanAppendNanos() / 1e3, stats.maxAppendNanos() / 1e3, stats.records(),
+                stats.bytes() / stats.records(), stats.segments());
+        System.out.printf("tailing consumer: %,d records, max lag %d ms after the commit%n", tail.records.get(), tail.maxLagMillis.get());
+
+        // ---- 3. Resume from the committed offset --------------------------
+        System.out.println("\n=== Resume ===");
+        try (CdcReader audit = new CdcReader(directory, "audit")) {
+            List<ChangeRecord> next = audit.poll(1);
+            System.out.println("audit resumes at sequence " + next.getFirst().sequence());
+        }
+
+        // ---- 4. Retention --------------------------------------------------
+        System.out.printf("%n=== Retention %s ===%n", RETENTION);
+        fillSegment(log, montreal);
+        Thread.sleep(2_500);
+        fillSegment(log, montreal); // the roll deletes the segments closed more than RETENTION ago
+        try (CdcReader late = new CdcReader(directory, "late")) {
+            long first = late.poll(1).getFirst().sequence();
+            System.out.printf("segments left: %d; late consumer starts at sequence %,d (1..%,d deleted)%n",
+                    log.stats().segments(), first, first - 1);
+        }
+        try (CdcReader audit = new CdcReader(directory, "audit")) {
+            System.out.printf("audit (offset 8) resumes at sequence %,d: gap detected%n", audit.poll(1).getFirst().sequence());
+        }
+
+        JpaUtil.close();
+        withoutLog.close();
+    }
+
+    /**
+     * Waits for the background scan of the name index, which would compete with the measured commits.
+     */
+    private static void awaitNameIndex(EntityManagerFactory emf) throws InterruptedException {
+        PassengerNameIndex index = PassengerNameIndex.of(emf).orElse(null);
+        while (index != null && !index.isReady()) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Commits until the active segment is full and rolled.
+     */
+    private static void fillSegment(CdcLog log, Airport airport) {
+        long rolls = log.stats().rolls();
+        while (log.stats().rolls() == rolls) {
+            commits(JpaUtil.getEntityManagerFactory(), airport, 100);
+        }
+    }
+
+    /**
+     * Commit time of each transaction, in µs.
+     */
+    private static long[] commits(EntityManagerFactory emf, Airport airport, int transactions) {
+        long[] micros = new long[transactions];
+        for (int i = 0; i < transactions; i++) {
+            long start = System.nanoTime();
+            try (EntityManager em = emf.createEntityManager()) {
+                em.getTransaction().begin();
+                Passenger passenger = new Passenger("Cdc passenger " + NAMES.incrementAndGet());
+                passenger.setAirport(em.getReference(Airport.class, airport.getId()));
+                passenger.addTicket(ticket(new ReturnTicket(LocalDate.of(2027, 1, 1).plusDays(i % 365))));
+                em.persist(passenger);
+                em.getTransaction().commit();
+            }
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        return micros;
+    }
+
+    private static <T extends Ticket> T ticket(T ticket) {
+        ticket.setNumber("T-" + NAMES.incrementAndGet());
+        return ticket;
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        long[] all = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+    private static long percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    /**
+     * Consumer thread polling the log every millisecond when it has caught up.
+     */
+    private static final class Tail {
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong maxLagMillis = new AtomicLong();
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final Thread thread;
+
+        Tail(Path directory, long from) {
+            thread = Thread.ofPlatform().name("cdc-tail").start(() -> {
+                try (CdcReader reader = new CdcReader(directory, "tail")) {
+                    reader.seek(from);
+                    while (true) {
+                        boolean last = !running.get();
+                        List<ChangeRecord> polled = reader.poll(1_000);
+                        if (polled.isEmpty() && last) break;
+                        long now = System.currentTimeMillis();
+                        for (ChangeRecord record : polled) {
+                            maxLagMillis.accumulateAndGet(now - record.committedAt().toEpochMilli(), Math::max);
+                        }
+                        records.addAndGet(polled.size());
+                        if (polled.isEmpty()) LockSupport.parkNanos(1_000_000);
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+
+        void stop() throws InterruptedException {
+            running.set(false);
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.shard.ShardedAirportDao;
+import al420445.dao.shard.ShardedPersistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Ex30: Airports spread over several H2 databases (ShardedPersistence + ShardedAirportDao,
+ * AirportDaoFactory.Strategy.SHARDED).
+ *
+ * 1. Routing: airport ids encode their shard, addPassenger goes to that shard only
+ * 2. Scatter-gather: getAirports and findPassengersByName on every shard, merged by id;
+ *    keyset pages across shards
+ * 3. Throughput with 1, 2 and 4 shards: addPassenger and findPassengersByName from concurrent threads
+ */
+public class Ex30_ShardedAirports {
+
+    private static final int AIRPORTS = 8;
+    private static final int PASSENGERS_PER_AIRPORT = 2_000;
+    private static final int THREADS = 8;
+    private static final long WARM_UP_MILLIS = 1_000;
+    private static final long MEASURE_MILLIS = 3_000;
+    private static final String[] LAST_NAMES = {"Tremblay", "Gagnon", "Roy", "Côté", "Bouchard", "Gauthier", "Morin", "Lavoie"};
+
+    private static final AtomicLong NAMES = new AtomicLong(); // PASSENGERS.NAME is unique (per shard)
+
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("hibernate.show_sql", "false");
+
+        // ---- 1. Routing ---------------------------------------------------
+        System.out.println("=== Routing, 3 shards ===");
+        try (ShardedPersistence shards = ShardedPersistence.open(3, "jdbc:h2:mem:ex30_demo_shard{shard};DB_CLOSE_DELAY=-1")) {
+            ShardedAirportDao dao = new ShardedAirportDao(shards);
+            for (String name : List.of("Montréal-Trudeau", "Québec Jean-Lesage", "Toronto Pearson", "Vancouver", "Halifax")) {
+                Airport airport = dao.createAirport(name);
+                dao.addPassenger("Tremblay at " + name, airport.getId().intValue());
+                System.out.printf("%-20s id %,12d -> shard %d%n", name, airport.getId(), shards.shardOf(airport.getId()));
+            }
+
+            // ---- 2. Scatter-gather ----------------------------------------
+            System.out.println("\n=== Scatter-gather ===");
+            System.out.println("getAirports: " + dao.getAirports().stream().map(Airport::getName).toList());
+            for (Passenger passenger : dao.findPassengersByName("tremblay")) {
+                System.out.printf("  passenger %,d %s%n", passenger.getId(), passenger.getName());
+            }
+            long afterId = 0;
+            for (int page = 1; ; page++) {
+                List<Passenger> passengers = dao.findPassengersByName("tremblay", afterId, 2);
+                if (passengers.isEmpty()) break;
+                System.out.printf("  page %d: %s%n", page, passengers.stream().map(Passenger::getId).toList());
+                afterId = passengers.getLast().getId();
+            }
+        }
+
+        // ---- 3. Throughput ------------------------------------------------
+        System.out.printf("%n=== Throughput, %d threads, %d airports, %,d passengers ===%n",
+                THREADS, AIRPORTS, AIRPORTS * PASSENGERS_PER_AIRPORT);
+        System.out.printf("%-8s %18s %24s%n", "shards", "addPassenger/s", "findPassengersByName/s");
+        for (int count : new int[]{1, 2, 4}) {
+            try (ShardedPersistence shards = ShardedPersistence.open(count, "jdbc:h2:mem:ex30_" + count + "_shard{shard};DB_CLOSE_DELAY=-1")) {
+                ShardedAirportDao dao = new ShardedAirportDao(shards);
+                int[] airportIds = IntStream.range(0, AIRPORTS)
+                        .map(i -> dao.createAirport("Airport " + i).getId().intValue())
+                        .toArray();
+                for (int airportId : airportIds) {
+                    dao.addPassengers(airportId, IntStream.range(0, PASSENGERS_PER_AIRPORT).mapToObj(i -> randomName()).iterator());
+                }
+                Consumer<ThreadLocalRandom> insert = random -> dao.addPassenger(randomName(), airportIds[random.nextInt(AIRPORTS)]);
+                Consumer<ThreadLocalRandom> search = random -> dao.findPassengersByName(
+                        LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + random.nextInt(1, 10), 0, 10);
+                measure(insert, WARM_UP_MILLIS);
+                measure(search, WARM_UP_MILLIS);
+                double inserts = measure(insert, MEASURE_MILLIS);
+                double searches = measure(search, MEASURE_MILLIS);
+                System.out.printf("%-8d %,18.0f %,24.0f%n", count, inserts, searches);
+            }
+        }
+    }
+
+    /**
+     * Operations per second of THREADS threads running {@code operation} for {@code millis}.
+     */
+    private static double measure(Consumer<ThreadLocalRandom> operation, long millis) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong operations = new AtomicLong();
+        List<Runnable> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    operation.accept(random);
+                    operations.incrementAndGet();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            workers.forEach(executor::submit);
+            Thread.sleep(millis);
+            running.set(false);
+        }
+        return operations.get() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static String randomName() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + NAMES.incrementAndGet();
+    }
+}
@@ -0,0 +1,275 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.dao.base.AirportDaoFunctional;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.replica.ReadRouting;
+import al420445.dao.replica.ReplicaRoutingConnectionProvider;
+import al420445.dao.replica.ReplicaRoutingConnectionProvider.DataSourceStats;
+import al420445.service.AirportService;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Ex31: Read-only DAO calls on replicas (ReplicaRoutingConnectionProvider, package dao.replica).
+ *
+ * Two in-memory H2 databases stand in for the replicas; ReplicaSync copies the primary into them
+ * every 500 ms, the lag of an asynchronous replica.
+ *
+ * 1. Read-your-writes: the session that wrote reads from the primary for al420445.replica.sticky_ms,
+ *    another session reads the replica and sees the write after the next copy
+ *    (the cached getAirports query included: replica reads bypass the second-level cache)
+ * 2. 90% reads / 10% writes of 1000 users from 8 threads: connections per data source
+ * 3. round_robin vs least_outstanding when one replica is slower than the other
+ */
+public class Ex31_ReadReplicas {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:hibernate2";
+    private static final List<String> REPLICA_URLS = List.of(
+            "jdbc:h2:mem:ex31_replica1;DB_CLOSE_DELAY=-1",
+            // THROTTLE: H2 pauses each connection of this replica 20 ms every 50 ms of work
+            "jdbc:h2:mem:ex31_replica2;DB_CLOSE_DELAY=-1;THROTTLE=20");
+    private static final long SYNC_MILLIS = 500;
+    private static final int THREADS = 8;
+    private static final int USERS = 1_000;
+    private static final long MEASURE_MILLIS = 3_000;
+
+    private static final AtomicLong NAMES = new AtomicLong(); // PASSENGERS.NAME is unique
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("hibernate.show_sql", "false");
+        System.setProperty(ReplicaRoutingConnectionProvider.URLS, String.join(",", REPLICA_URLS));
+        System.setProperty(ReplicaRoutingConnectionProvider.STICKY_MS, "1000");
+
+        AirportService service = new AirportService();
+        Airport airport = new AirportDaoExamples().createAirport("Replica airport");
+        int airportId = airport.getId().intValue();
+        service.addPassengers(airportId, IntStream.range(0, 20_000).mapToObj(i -> "Replica passenger " + NAMES.incrementAndGet()).iterator());
+        ReplicaRoutingConnectionProvider routing = routing(JpaUtil.getEntityManagerFactory());
+
+        try (ReplicaSync sync = ReplicaSync.start(PRIMARY_URL, REPLICA_URLS, SYNC_MILLIS)) {
+            sync.awaitCopy();
+
+            // ---- 1. Read-your-writes ------------------------------------------
+            System.out.println("=== Read-your-writes (replicas copied every " + SYNC_MILLIS + " ms) ===");
+            service.addPassenger("Zoé Writer", airportId);
+            System.out.printf("writer, just after its write:   %d found (%s)%n",
+                    service.findPassengersByName("zoé writer").size(), lastServed(routing, () -> service.findPassengersByName("zoé writer")));
+            int found = ReadRouting.inSession("another session", () -> service.findPassengersByName("zoé writer").size());
+            System.out.printf("another session, same moment:   %d found (replica not copied yet)%n", found);
+            sync.awaitCopy();
+            found = ReadRouting.inSession("another session", () -> service.findPassengersByName("zoé writer").size());
+            System.out.printf("another session, after a copy:  %d found%n", found);
+            Thread.sleep(1_000);
+            System.out.printf("writer, after the window:       %s%n", lastServed(routing, () -> service.findPassengersByName("zoé writer")));
+
+            // Cached query: the other session's replica read, made after the write, must not be cached
+            sync.awaitCopy();
+            Airport written = new AirportDaoExamples().createAirport("Writer airport");
+            int airports = ReadRouting.inSession("another session", () -> service.getAirports().size());
+            boolean seen = service.getAirports().stream().anyMatch(a -> a.getId().equals(written.getId()));
+            System.out.printf("getAirports (query cache):      another session %d airports, writer sees its airport: %b%n",
+                    airports, seen);
+
+            // ---- 2. Mixed load -------------------------------------------------
+            System.out.printf("%n=== 90%% reads / 10%% writes, %,d users, %d threads, round_robin ===%n", USERS, THREADS);
+            mixedLoad(service, routing, airportId);
+
+            // ---- 3. Selection with a slow replica --------------------------------
+            System.out.printf("%n=== Read latency, replica-2 throttled ===%n");
+            System.out.printf("%-18s %10s %10s %14s%n", "selection", "median", "p99", "replica-2 share");
+            readLatency("round_robin", new AirportService(), routing);
+            EntityManagerFactory leastOutstanding = JpaUtil.createEntityManagerFactory(
+                    Map.of(ReplicaRoutingConnectionProvider.SELECTION, "least_outstanding"));
+            readLatency("least_outstanding", new AirportService(new AirportDaoFunctional(leastOutstanding)), routing(leastOutstanding));
+
+            JpaUtil.close();
+            leastOutstanding.close(); // after: the factories share the JCache regions
+        }
+    }
+
+    private static void mixedLoad(AirportService service, ReplicaRoutingConnectionProvider routing, int airportId)
+            throws InterruptedException {
+        List<DataSourceStats> before = routing.getStats();
+        long stickyBefore = routing.getStickyReads();
+        AtomicLong reads = new AtomicLong();
+        AtomicLong writes = new AtomicLong();
+        run(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            ReadRouting.inSession("user " + random.nextInt(USERS), () -> {
+                if (random.nextInt(10) == 0) {
+                    service.addPassenger("Replica passenger " + NAMES.incrementAndGet(), airportId);
+                    writes.incrementAndGet();
+                } else {
+                    service.findPassengersByName("replica passenger " + random.nextInt(1, 100), 0, 10);
+                    reads.incrementAndGet();
+                }
+                return null;
+            });
+        });
+        System.out.printf("%,d reads, %,d writes; reads on the primary after a write of their user: %,d%n",
+                reads.get(), writes.get(), routing.getStickyReads() - stickyBefore);
+        List<DataSourceStats> after = routing.getStats();
+        long total = IntStream.range(0, after.size()).mapToLong(i -> after.get(i).acquisitions() - before.get(i).acquisitions()).sum();
+        for (int i = 0; i < after.size(); i++) {
+            long connections = after.get(i).acquisitions() - before.get(i).acquisitions();
+            System.out.printf("  %-10s %,8d connections (%4.1f%%)%n", after.get(i).name(), connections, 100.0 * connections / total);
+        }
+    }
+
+    private static void readLatency(String label, AirportService service, ReplicaRoutingConnectionProvider routing)
+            throws InterruptedException {
+        long[] micros = new long[1 << 20];
+        AtomicLong samples = new AtomicLong();
+        long slowBefore = routing.getStats().get(2).acquisitions();
+        long replicasBefore = routing.getStats().stream().skip(1).mapToLong(DataSourceStats::acquisitions).sum();
+        run(() -> {
+            long start = System.nanoTime();
+            service.findPassengersByName("replica passenger " + ThreadLocalRandom.current().nextInt(1, 100), 0, 10);
+            micros[(int) (samples.getAndIncrement() & (micros.length - 1))] = (System.nanoTime() - start) / 1_000;
+        });
+        long[] sorted = Arrays.copyOf(micros, (int) Math.min(samples.get(), micros.length));
+        Arrays.sort(sorted);
+        long slow = routing.getStats().get(2).acquisitions() - slowBefore;
+        long replicas = routing.getStats().stream().skip(1).mapToLong(DataSourceStats::acquisitions).sum() - replicasBefore;
+        System.out.printf("%-18s %,7d µs %,7d µs %13.1f%%%n", label,
+                sorted[sorted.length / 2], sorted[sorted.length * 99 / 100], 100.0 * slow / replicas);
+    }
+
+    /**
+     * THREADS threads calling {@code operation} for MEASURE_MILLIS.
+     */
+    private static void run(Runnable operation) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                executor.submit(() -> {
+                    while (running.get()) operation.run();
+                });
+            }
+            Thread.sleep(MEASURE_MILLIS);
+            running.set(false);
+        }
+    }
+
+    /**
+     * Name of the data source that gave a connection to {@code read}.
+     */
+    private static String lastServed(ReplicaRoutingConnectionProvider routing, Runnable read) {
+        List<DataSourceStats> before = routing.getStats();
+        read.run();
+        List<DataSourceStats> after = routing.getStats();
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < after.size(); i++) {
+            if (after.get(i).acquisitions() > before.get(i).acquisitions()) served.add(after.get(i).name());
+        }
+        return "served by " + String.join(", ", served);
+    }
+
+    private static ReplicaRoutingConnectionProvider routing(EntityManagerFactory emf) {
+        return emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(ConnectionProvider.class)
+                .unwrap(ReplicaRoutingConnectionProvider.class);
+    }
+
+    /**
+     * Test stand-in for replication: copies AIRPORTS, PASSENGERS and TICKET from the primary to each
+     * replica every {@code intervalMillis} (H2 linked tables, one transaction per replica).
+     */
+    private static final class ReplicaSync implements AutoCloseable {
+
+        private static final List<String> TABLES = List.of("AIRPORTS", "PASSENGERS", "TICKET");
+
+        private final List<Connection> replicas;
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("replica-sync").daemon().factory());
+        private final AtomicLong copies = new AtomicLong();
+        private volatile SQLException failure;
+
+        private ReplicaSync(List<Connection> replicas) {
+            this.replicas = replicas;
+        }
+
+        static ReplicaSync start(String primaryUrl, List<String> replicaUrls, long intervalMillis) throws SQLException {
+            List<Connection> replicas = new ArrayList<>();
+            for (String url : replicaUrls) {
+                Connection replica = DriverManager.getConnection(url.replaceAll(";THROTTLE=\\d+", ""), "sa", "");
+                try (Statement statement = replica.createStatement()) {
+                    for (String table : TABLES) {
+                        statement.execute("create linked table PRIMARY_%s('', '%s', 'sa', '', '%s')".formatted(table, primaryUrl, table));
+                        statement.execute("create table %s as select * from PRIMARY_%s with no data".formatted(table, table));
+                        statement.execute("alter table %s alter column ID set not null".formatted(table));
+                        statement.execute("alter table %s add primary key (ID)".formatted(table));
+                    }
+                    statement.execute("create index on PASSENGERS(NAME_SEARCH)");
+                }
+                replica.setAutoCommit(false);
+                replicas.add(replica);
+            }
+            ReplicaSync sync = new ReplicaSync(replicas);
+            sync.scheduler.scheduleWithFixedDelay(sync::copy, 0, intervalMillis, TimeUnit.MILLISECONDS);
+            return sync;
+        }
+
+        private void copy() {
+            try {
+                for (Connection replica : replicas) {
+                    try (Statement statement = replica.createStatement()) {
+                        for (String table : TABLES) {
+                            statement.execute("delete from " + table);
+                            statement.execute("insert into %s select * from PRIMARY_%s".formatted(table, table));
+                        }
+                    }
+                    replica.commit();
+                }
+            } catch (SQLException ex) {
+                failure = ex;
+                scheduler.shutdown();
+            }
+            synchronized (this) {
+                copies.incrementAndGet();
+                notifyAll();
+            }
+        }
+
+        /**
+         * Waits for a copy that started after this call.
+         */
+        synchronized void awaitCopy() throws InterruptedException {
+            long target = copies.get() + 2;
+            while (copies.get() < target && failure == null) {
+                wait();
+            }
+            if (failure != null) throw new IllegalStateException("Replica copy failed", failure);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            scheduler.shutdownNow();
+            for (Connection replica : replicas) {
+                replica.close();
+            }
+        }
+    }
+}
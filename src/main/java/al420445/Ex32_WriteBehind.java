@@ -0,0 +1,154 @@
+package al420445;
+
+import al420445.dao.base.AirportDaoFunctional;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.cdc.CdcIntegrator;
+import al420445.dao.search.PassengerNameIndexIntegrator;
+import al420445.dao.tx.TransactionExecutor;
+import al420445.airport.Airport;
+import al420445.service.AirportService;
+import al420445.service.PassengerWriteBehind;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Ex32: Group commit for addPassenger (service.PassengerWriteBehind), on a file-backed H2 database.
+ *
+ * 1. 1 to 64 callers: AirportService.addPassenger (one transaction per passenger) vs
+ *    PassengerWriteBehind.addPassenger(...).join() (one transaction per batch): passengers/s, latency
+ * 2. Failures: duplicate names in a burst; only their futures fail, the rest of each batch is committed
+ */
+public class Ex32_WriteBehind {
+
+    private static final Path DIRECTORY = Path.of("target", "ex32");
+    private static final int[] CALLERS = {1, 8, 64};
+    private static final long MEASURE_MILLIS = 3_000;
+
+    private static final AtomicLong NAMES = new AtomicLong(); // PASSENGERS.NAME is unique
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("hibernate.show_sql", "false");
+        deleteDirectory();
+
+        EntityManagerFactory emf = JpaUtil.createEntityManagerFactory(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:file:./" + DIRECTORY.resolve("airports").toString().replace('\\', '/'),
+                "hibernate.cache.use_second_level_cache", "false",
+                "hibernate.cache.use_query_cache", "false",
+                PassengerNameIndexIntegrator.ENABLED, "false",
+                CdcIntegrator.ENABLED, "false"));
+        try {
+            int airportId = TransactionExecutor.executeInTransaction(emf, em -> {
+                Airport airport = new Airport("Write-behind airport");
+                em.persist(airport);
+                return airport.getId().intValue();
+            });
+            AirportService service = new AirportService(new AirportDaoFunctional(emf));
+
+            // ---- 1. Throughput ----------------------------------------------
+            System.out.println("=== addPassenger, file-backed H2 ===");
+            System.out.printf("%-8s %-14s %14s %10s %10s %12s%n", "callers", "mode", "passengers/s", "p50", "p99", "batch size");
+            for (int callers : CALLERS) {
+                measure(callers, "transaction", null, () -> {
+                    service.addPassenger(nextName(), airportId);
+                    return null;
+                });
+                try (PassengerWriteBehind writes = new PassengerWriteBehind(emf, PassengerWriteBehind.DEFAULT_CAPACITY,
+                        PassengerWriteBehind.DEFAULT_MAX_BATCH, PassengerWriteBehind.DEFAULT_LINGER)) {
+                    measure(callers, "write-behind", writes, () -> writes.addPassenger(nextName(), airportId).join());
+                }
+            }
+
+            // ---- 2. Failures ------------------------------------------------
+            System.out.println("\n=== 1,000 passengers, 10 names already taken ===");
+            try (PassengerWriteBehind writes = new PassengerWriteBehind(emf, PassengerWriteBehind.DEFAULT_CAPACITY,
+                    100, Duration.ofMillis(20))) {
+                List<CompletableFuture<Void>> stored = new ArrayList<>();
+                for (int i = 0; i < 1_000; i++) {
+                    // Names 1 to 10 were stored by section 1
+                    String name = i % 100 == 0 ? "Write-behind passenger " + (i / 100 + 1) : nextName();
+                    stored.add(writes.addPassenger(name, airportId));
+                }
+                CompletableFuture.allOf(stored.toArray(CompletableFuture[]::new)).exceptionally(ex -> null).join();
+                long failed = stored.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+                System.out.printf("committed %,d, failed %,d%n", stored.size() - failed, failed);
+                stored.stream().filter(CompletableFuture::isCompletedExceptionally).findFirst().ifPresent(future -> {
+                    Throwable cause = future.handle((ok, ex) -> ex instanceof CompletionException ? ex.getCause() : ex).join();
+                    System.out.println("first failure: " + cause.getClass().getSimpleName());
+                });
+                PassengerWriteBehind.Stats stats = writes.getStats();
+                System.out.printf("%,d transactions committed, %,d rolled back (bisection), mean batch %.1f%n",
+                        stats.batches(), stats.rollbacks(), stats.meanBatchSize());
+            }
+        } finally {
+            emf.close();
+        }
+    }
+
+    /**
+     * {@code callers} virtual threads calling {@code addPassenger} for MEASURE_MILLIS.
+     */
+    private static void measure(int callers, String mode, PassengerWriteBehind writes, Supplier<Void> addPassenger)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<long[]> latencies = new ArrayList<>();
+        List<AtomicLong> counts = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < callers; c++) {
+                long[] micros = new long[1 << 16];
+                AtomicLong count = new AtomicLong();
+                latencies.add(micros);
+                counts.add(count);
+                executor.submit(() -> {
+                    while (running.get()) {
+                        long begin = System.nanoTime();
+                        addPassenger.get();
+                        micros[(int) (count.getAndIncrement() & (micros.length - 1))] = (System.nanoTime() - begin) / 1_000;
+                    }
+                });
+            }
+            Thread.sleep(MEASURE_MILLIS);
+            running.set(false);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = counts.stream().mapToLong(AtomicLong::get).sum();
+        long[] sorted = Stream.iterate(0, i -> i + 1).limit(callers)
+                .flatMapToLong(i -> Arrays.stream(latencies.get(i), 0, (int) Math.min(counts.get(i).get(), latencies.get(i).length)))
+                .sorted()
+                .toArray();
+        System.out.printf("%-8d %-14s %,14.0f %,7d µs %,7d µs %12s%n", callers, mode, total / seconds,
+                sorted[sorted.length / 2], sorted[sorted.length * 99 / 100],
+                writes == null ? "1" : "%.1f".formatted(writes.getStats().meanBatchSize()));
+    }
+
+    private static String nextName() {
+        return "Write-behind passenger " + NAMES.incrementAndGet();
+    }
+
+    private static void deleteDirectory() throws IOException {
+        if (!Files.exists(DIRECTORY)) return;
+        try (Stream<Path> files = Files.walk(DIRECTORY)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
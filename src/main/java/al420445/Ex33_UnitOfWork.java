@@ -0,0 +1,98 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.AirportDao;
+import al420445.dao.base.AirportDaoFactory;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.tx.UnitOfWork;
+
+import org.hibernate.stat.Statistics;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Ex33: Several DAO calls in one EntityManager and transaction (dao.tx.UnitOfWork).
+ *
+ * 1. A composite operation (countPassengers, addPassenger, findPassengersByName) as three units of work
+ *    vs inside UnitOfWork.run: time, connections, transactions, statements and entity loads per operation
+ * 2. All or nothing: a failing call rolls back the calls before it
+ */
+public class Ex33_UnitOfWork {
+
+    private static final int PASSENGERS = 100;
+    private static final int WARM_UP = 500;
+    private static final int OPERATIONS = 2_000;
+    private static final int RUNS = 3;
+
+    private static final AtomicLong NAMES = new AtomicLong(); // PASSENGERS.NAME is unique
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+
+        AirportDaoExamples examples = new AirportDaoExamples();
+        Airport airport = examples.createAirport("Unit of work airport");
+        long airportId = airport.getId();
+
+        // ---- 1. Composite operation -------------------------------------------
+        System.out.printf("%-22s %-14s %10s %12s %13s %11s %13s%n",
+                "strategy", "mode", "µs/op", "connections", "transactions", "statements", "entity loads");
+        for (AirportDaoFactory.Strategy strategy : List.of(AirportDaoFactory.Strategy.TEMPLATE_METHOD, AirportDaoFactory.Strategy.FUNCTIONAL_INTERFACE)) {
+            AirportDao dao = AirportDaoFactory.create(strategy);
+            dao.addPassengers((int) airportId, IntStream.range(0, PASSENGERS).mapToObj(i -> nextName()).iterator());
+
+            Supplier<List<Passenger>> checkIn = () -> {
+                examples.countPassengers(airportId);
+                String name = nextName();
+                dao.addPassenger(name, (int) airportId);
+                return dao.findPassengersByName(name);
+            };
+            for (int run = 0; run < RUNS; run++) {
+                measure(strategy, "separate", WARM_UP, OPERATIONS, checkIn);
+                measure(strategy, "UnitOfWork.run", WARM_UP, OPERATIONS, () -> UnitOfWork.run(checkIn));
+            }
+        }
+
+        // ---- 2. All or nothing ------------------------------------------------
+        System.out.println("\n=== createAirport, then a failing call, in one unit of work ===");
+        try {
+            UnitOfWork.run(() -> {
+                examples.createAirport("Rolled back airport");
+                examples.deleteAirport(-1L); // nothing to delete: no failure
+                throw new IllegalStateException("payment refused");
+            });
+        } catch (IllegalStateException ex) {
+            System.out.println("failed: " + ex.getMessage());
+        }
+        System.out.println("'Rolled back airport' exists? " + examples.airportExists("Rolled back airport"));
+
+        JpaUtil.close();
+    }
+
+    private static void measure(AirportDaoFactory.Strategy strategy, String mode, int warmUp, int operations,
+                                Supplier<List<Passenger>> operation) {
+        for (int i = 0; i < warmUp; i++) {
+            operation.get();
+        }
+        Statistics statistics = JpaUtil.getStatistics();
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            if (operation.get().size() != 1) throw new IllegalStateException("New passenger not found");
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / operations;
+        System.out.printf("%-22s %-14s %,10.0f %12.1f %13.1f %11.1f %13.1f%n", strategy, mode, micros,
+                (double) statistics.getConnectCount() / operations,
+                (double) statistics.getTransactionCount() / operations,
+                (double) statistics.getPrepareStatementCount() / operations,
+                (double) statistics.getEntityLoadCount() / operations);
+    }
+
+    private static String nextName() {
+        return "Unit of work passenger " + NAMES.incrementAndGet();
+    }
+}
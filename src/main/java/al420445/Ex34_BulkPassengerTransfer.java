@@ -0,0 +1,101 @@
+package al420445;
+
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.bulk.BulkPassengerTransfer;
+import al420445.dao.bulk.TransferReport;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.report.AirportPassengersDTO;
+import al420445.dao.report.ReportDao;
+import al420445.dao.tx.TransactionExecutor;
+import al420445.dao.tx.UnitOfWork;
+import al420445.service.AirportService;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Ex34: Closing an airport: per-passenger transfer vs set-based UPDATE in chunks (dao.bulk.BulkPassengerTransfer).
+ *
+ * 1. AirportDaoExamples.transferPassenger in a loop vs transferPassengers(ids), chunks of 100 to 5,000
+ * 2. By criteria and by whole airport
+ * 3. Consistency: summary table vs count(*), passengers without airport included
+ * 4. Inside a UnitOfWork: refused, the chunks commit one by one
+ */
+public class Ex34_BulkPassengerTransfer {
+
+    private static final int PASSENGERS = 30_000;
+    private static final int LOOP = 1_000;
+    private static final int PER_CHUNK_SIZE = 5_000;
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.show_sql", "false");
+
+        AirportDaoExamples examples = new AirportDaoExamples();
+        long closing = examples.createAirport("Closing airport").getId();
+        long target = examples.createAirport("Target airport").getId();
+        long other = examples.createAirport("Other airport").getId();
+        new AirportService().addPassengers((int) closing, IntStream.range(0, PASSENGERS)
+                .mapToObj(i -> (i % 10 == 0 ? "Tremblay " : "Gagnon ") + i)
+                .iterator());
+        List<Long> ids = TransactionExecutor.executeReadOnly(em -> em.createQuery(
+                        "select p.id from Passenger p where p.airport.id = :airportId order by p.id", Long.class)
+                .setParameter("airportId", closing)
+                .getResultList());
+
+        // ---- 1. Per passenger vs by id list -----------------------------------
+        System.out.println("=== Moving passengers to another airport ===");
+        long start = System.nanoTime();
+        for (Long passengerId : ids.subList(0, LOOP)) {
+            examples.transferPassenger(passengerId, target);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-34s %,d passengers in %.2f s -> %,.0f passengers/s%n", "transferPassenger loop", LOOP, seconds, LOOP / seconds);
+        int from = LOOP;
+        for (int chunkSize : new int[]{100, 1_000, 5_000}) {
+            TransferReport report = new BulkPassengerTransfer(JpaUtil.getEntityManagerFactory(), chunkSize)
+                    .transferPassengers(ids.subList(from, from + PER_CHUNK_SIZE), target);
+            System.out.printf("%-34s %s%n", "transferPassengers(ids), chunk " + chunkSize, report);
+            from += PER_CHUNK_SIZE;
+        }
+
+        // ---- 2. By criteria, whole airport -------------------------------------
+        BulkPassengerTransfer transfer = new BulkPassengerTransfer();
+        TransferReport tremblays = transfer.transferPassengers(
+                (cb, passenger) -> cb.and(
+                        cb.equal(passenger.get("airport").get("id"), closing),
+                        cb.like(passenger.get("nameSearch"), Passenger.normalizeName("tremblay") + "%")),
+                other);
+        System.out.printf("%-34s %s%n", "transferPassengers(Tremblay*)", tremblays);
+        System.out.printf("%-34s %s%n", "reassignAirport", transfer.reassignAirport(closing, target));
+        System.out.printf("%-34s %s%n", "reassignAirport again", transfer.reassignAirport(closing, target));
+        List<Long> withoutAirport = TransactionExecutor.executeInTransaction(em -> IntStream.range(0, 100)
+                .mapToObj(i -> {
+                    Passenger passenger = new Passenger("No airport " + i);
+                    em.persist(passenger);
+                    return passenger;
+                })
+                .toList()).stream().map(Passenger::getId).toList();
+        System.out.printf("%-34s %s%n", "transferPassengers(no airport)", transfer.transferPassengers(withoutAirport, target));
+
+        // ---- 3. Consistency -----------------------------------------------------
+        System.out.println("\n=== Summary table vs count(*) ===");
+        for (AirportPassengersDTO row : new ReportDao().passengersPerAirport()) {
+            if (row.airportId() != closing && row.airportId() != target && row.airportId() != other) continue;
+            long counted = TransactionExecutor.executeReadOnly(em -> em.createNamedQuery(Passenger.COUNT_BY_AIRPORT, Long.class)
+                    .setParameter("airportId", row.airportId())
+                    .getSingleResult());
+            System.out.printf("%-16s summary %,7d   count(*) %,7d%n", row.airportName(), row.passengers(), counted);
+        }
+
+        // ---- 4. Inside a UnitOfWork --------------------------------------------
+        System.out.println("\n=== Inside a UnitOfWork ===");
+        try {
+            UnitOfWork.run(() -> transfer.reassignAirport(other, target));
+        } catch (IllegalStateException ex) {
+            System.out.println("refused: " + ex.getMessage());
+        }
+
+        JpaUtil.close();
+    }
+}
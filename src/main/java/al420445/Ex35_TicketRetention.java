@@ -0,0 +1,250 @@
+package al420445;
+
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.ReturnTicket;
+import al420445.airport.Ticket;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.examples.AirportDaoExamples;
+import al420445.dao.report.DailyTicketsDTO;
+import al420445.dao.report.PassengerTicketsDTO;
+import al420445.dao.report.ReportDao;
+import al420445.dao.report.ReportRebuild;
+import al420445.dao.retention.RetentionProgress;
+import al420445.dao.retention.TicketRetentionJob;
+import al420445.dao.tx.TransactionExecutor;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ex35: Purging expired tickets while passengers keep buying tickets (dao.retention.TicketRetentionJob).
+ *
+ * Production traffic: 4 threads, each transaction loads a passenger with its tickets and adds one.
+ * Its latency (p50, p99, max) is measured while:
+ * 1. nothing is purged, after a warm-up run
+ * 2. the expired tickets are deleted by one bulk statement per type in one transaction (Ex06, section 25)
+ * 3. TicketRetentionJob deletes as many tickets, in chunks, paused and resumed halfway
+ * 4. Consistency of the summary tables after each purge
+ */
+public class Ex35_TicketRetention {
+
+    private static final int PASSENGERS = 25_000;
+    private static final int THREADS = 4;
+    private static final Duration BASELINE = Duration.ofSeconds(5);
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private static final AtomicLong NUMBERS = new AtomicLong();
+
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("hibernate.show_sql", "false");
+        ReportDao reports = new ReportDao();
+
+        // ---- Seed: per passenger, 2 tickets expired 3 months ago, 2 expired last month, 2 valid --
+        Airport airport = new AirportDaoExamples().createAirport("Retention airport");
+        List<Long> passengerIds = seed(airport);
+        System.out.printf("Seeded %,d passengers / %,d tickets%n", PASSENGERS, 6L * PASSENGERS);
+        System.out.println(ReportRebuild.rebuild());
+
+        System.out.printf("%n%-28s %9s %9s %8s %9s %9s %9s%n", "purge", "deleted", "time (s)", "ops", "p50 (ms)", "p99 (ms)", "max (ms)");
+
+        // ---- 1. No purge (twice: the first run warms up the JIT) --------------
+        for (String label : List.of("none (warm-up)", "none")) {
+            measure(label, passengerIds, () -> {
+                sleep(BASELINE);
+                return 0L;
+            });
+        }
+
+        // ---- 2. One statement per type, one transaction ----------------------
+        measure("one bulk delete", passengerIds, () -> TransactionExecutor.executeInTransaction(em -> {
+            LocalDate cutoff = TODAY.minusDays(90);
+            return (long) em.createQuery("delete from OneWayTicket t where t.latestDepartureDate < :cutoff")
+                    .setParameter("cutoff", cutoff)
+                    .executeUpdate()
+                    + em.createQuery("delete from ReturnTicket t where t.latestReturnDate < :cutoff")
+                    .setParameter("cutoff", cutoff)
+                    .executeUpdate();
+        }));
+        System.out.println("  consistent: " + consistent(reports) + " -> " + ReportRebuild.rebuild());
+
+        // ---- 3. TicketRetentionJob ------------------------------------------
+        TicketRetentionJob retention = new TicketRetentionJob(JpaUtil.getEntityManagerFactory(),
+                Period.ofDays(30), Duration.ofHours(1), Duration.ofMillis(20), 10_000);
+        List<RetentionProgress> progress = new ArrayList<>();
+        measure("TicketRetentionJob", passengerIds, () -> {
+            retention.start();
+            boolean paused = false;
+            while (retention.getProgress().passes() == 0) {
+                sleep(Duration.ofSeconds(1));
+                progress.add(retention.getProgress());
+                if (!paused && retention.getProgress().deleted() > 2L * PASSENGERS / 2) {
+                    paused = true;
+                    retention.pause();
+                    sleep(Duration.ofSeconds(1));
+                    progress.add(retention.getProgress());
+                    retention.resume();
+                }
+            }
+            return retention.getProgress().deleted();
+        });
+        retention.close();
+        progress.forEach(snapshot -> System.out.println("  " + snapshot));
+        System.out.println("  " + retention.getProgress() + ", throttled " + retention.getProgress().throttled().toMillis() + " ms");
+
+        // ---- 4. Consistency ---------------------------------------------------
+        System.out.println("\nconsistent after TicketRetentionJob, without rebuild: " + consistent(reports));
+        long left = TransactionExecutor.executeReadOnly(em ->
+                em.createQuery("select count(t) from Ticket t", Long.class).getSingleResult());
+        System.out.printf("tickets left: %,d%n", left);
+
+        JpaUtil.close();
+    }
+
+    @FunctionalInterface
+    private interface Purge {
+        long run() throws InterruptedException;
+    }
+
+    /**
+     * Runs the production threads for 1 s, then during {@code purge}, and prints the latencies
+     * measured during the purge.
+     */
+    private static void measure(String label, List<Long> passengerIds, Purge purge) throws InterruptedException {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            threads.add(Thread.ofPlatform().name("production-" + i).start(() -> {
+                while (!stopped.get()) {
+                    long start = System.nanoTime();
+                    buyTicket(passengerIds.get(ThreadLocalRandom.current().nextInt(passengerIds.size())));
+                    if (measuring.get()) latencies.add(System.nanoTime() - start);
+                }
+            }));
+        }
+        sleep(Duration.ofSeconds(1));
+        measuring.set(true);
+        long start = System.nanoTime();
+        long deleted = purge.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        measuring.set(false);
+        stopped.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        Collections.sort(sorted);
+        System.out.printf("%-28s %,9d %9.2f %,8d %9.1f %9.1f %9.1f%n", label, deleted, seconds, sorted.size(),
+                millis(sorted, 0.50), millis(sorted, 0.99), sorted.getLast() / 1e6);
+    }
+
+    private static void buyTicket(long passengerId) {
+        TransactionExecutor.executeInTransaction(em -> {
+            Passenger passenger = em.find(Passenger.class, passengerId);
+            int tickets = passenger.getTickets().size();
+            OneWayTicket ticket = new OneWayTicket(TODAY.plusDays(60));
+            ticket.setNumber("NEW" + NUMBERS.incrementAndGet());
+            passenger.addTicket(ticket);
+            return tickets;
+        });
+    }
+
+    private static double millis(List<Long> sorted, double percentile) {
+        return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1) / 1e6;
+    }
+
+    private static List<Long> seed(Airport airport) {
+        SessionFactory sessionFactory = JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class);
+        List<Long> ids = new ArrayList<>(PASSENGERS);
+        for (int from = 0; from < PASSENGERS; from += 5_000) {
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                session.setJdbcBatchSize(JpaUtil.BATCH_SIZE);
+                session.beginTransaction();
+                List<Ticket> tickets = new ArrayList<>();
+                for (int i = from; i < Math.min(PASSENGERS, from + 5_000); i++) {
+                    Passenger passenger = new Passenger("retention-" + i);
+                    passenger.setAirport(airport);
+                    session.insert(passenger);
+                    ids.add(passenger.getId());
+                    int day = i % 30;
+                    tickets.add(ticket(new OneWayTicket(TODAY.minusDays(91 + day)), passenger));
+                    tickets.add(ticket(new ReturnTicket(TODAY.minusDays(91 + day)), passenger));
+                    tickets.add(ticket(new OneWayTicket(TODAY.minusDays(31 + day)), passenger));
+                    tickets.add(ticket(new ReturnTicket(TODAY.minusDays(31 + day)), passenger));
+                    tickets.add(ticket(new OneWayTicket(TODAY.plusDays(1 + day)), passenger));
+                    tickets.add(ticket(new ReturnTicket(TODAY.plusDays(8 + day)), passenger));
+                }
+                tickets.forEach(session::insert);
+                session.getTransaction().commit();
+            }
+        }
+        return ids;
+    }
+
+    private static Ticket ticket(Ticket ticket, Passenger passenger) {
+        ticket.setNumber("T" + NUMBERS.incrementAndGet());
+        ticket.setPassenger(passenger);
+        return ticket;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Tickets per passenger and per day in the summary tables == GROUP BY over TICKET.
+     */
+    private static boolean consistent(ReportDao reports) {
+        Map<Long, Long> tickets = new HashMap<>();
+        long afterId = 0;
+        for (List<PassengerTicketsDTO> page = reports.ticketsPerPassenger(afterId, 10_000); !page.isEmpty();
+             page = reports.ticketsPerPassenger(afterId, 10_000)) {
+            page.stream()
+                    .filter(row -> row.tickets() > 0)
+                    .forEach(row -> tickets.put(row.passengerId(), row.tickets()));
+            afterId = page.getLast().passengerId();
+        }
+        Map<Long, Long> counted = new HashMap<>();
+        TransactionExecutor.executeReadOnly(em -> em.createQuery(
+                "select t.passenger.id, count(t) from Ticket t group by t.passenger.id", Object[].class).getResultList())
+                .forEach(row -> counted.put((Long) row[0], (Long) row[1]));
+
+        Map<String, Long> days = new HashMap<>();
+        for (DailyTicketsDTO day : reports.ticketsPerDay(TODAY.minusYears(1), TODAY.plusYears(1))) {
+            days.put(day.ticketDate() + " " + day.ticketType(), day.tickets());
+        }
+        Map<String, Long> countedDays = new HashMap<>();
+        TransactionExecutor.executeReadOnly(em -> {
+            em.createQuery("select t.latestDepartureDate, count(t) from OneWayTicket t group by t.latestDepartureDate", Object[].class)
+                    .getResultList()
+                    .forEach(row -> countedDays.put(row[0] + " " + OneWayTicket.TYPE, (Long) row[1]));
+            em.createQuery("select t.latestReturnDate, count(t) from ReturnTicket t group by t.latestReturnDate", Object[].class)
+                    .getResultList()
+                    .forEach(row -> countedDays.put(row[0] + " " + ReturnTicket.TYPE, (Long) row[1]));
+            return null;
+        });
+        return tickets.equals(counted) && days.equals(countedDays);
+    }
+}
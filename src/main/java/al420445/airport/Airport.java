@@ -1,24 +1,48 @@
 package al420445.airport;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 @Entity
+@NamedQuery(name = Airport.FIND_ALL, query = "select a from Airport a")
+@NamedQuery(name = Airport.COUNT_BY_NAME, query = "select count(a) from Airport a where a.name = :name")
+@NamedQuery(name = Airport.FIND_BY_NAME_PREFIX_WITH_PASSENGERS,
+        query = "select a from Airport a left join fetch a.passengers where lower(a.name) like :prefix")
+@NamedEntityGraph(name = "Airport.withPassengers", attributeNodes = @NamedAttributeNode("passengers"))
+@BatchSize(size = 50) // Passenger.airport: eager loads for 50 airports go in one IN (...) query
 @Table(name = "AIRPORTS")
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Airport {
 
+     // Named queries: parsed and validated when the EntityManagerFactory starts (see NamedQueryWarmUp)
+     public static final String FIND_ALL = "Airport.findAll";
+     public static final String COUNT_BY_NAME = "Airport.countByName";
+     public static final String FIND_BY_NAME_PREFIX_WITH_PASSENGERS = "Airport.findByNamePrefixWithPassengers";
+
      @Id
      @GeneratedValue(strategy = GenerationType.IDENTITY)
      @Column(name = "ID")
      private Long id;
 
+     @Version
+     @Column(name = "VERSION")
+     private Long version;
+
      @Column(name = "NAME")
      private String name;
 
+     // The FK is in PASSENGERS: a transfer bumps the passenger's version, not the airport's,
+     // so concurrent transfers into the same airport do not conflict with each other
      @OneToMany(mappedBy = "airport")
+     @BatchSize(size = 50)
+     @OptimisticLock(excluded = true)
      private List<Passenger> passengers = new ArrayList<>();
 
      public Airport(String name) {
@@ -36,6 +60,10 @@ public class Airport {
           this.id = id;
      }
 
+     public Long getVersion() {
+          return version;
+     }
+
      public String getName() {
           return name;
      }
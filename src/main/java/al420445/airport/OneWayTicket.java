@@ -5,8 +5,11 @@ import jakarta.persistence.Entity;
 import java.time.LocalDate;
 
 @Entity
-@DiscriminatorValue("OneWay")
+@DiscriminatorValue(OneWayTicket.TYPE)
 public class OneWayTicket extends Ticket {
+
+    public static final String TYPE = "OneWay";
+
     private LocalDate latestDepartureDate;
 
     public OneWayTicket(LocalDate latestDepartureDate) {
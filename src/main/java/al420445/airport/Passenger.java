@@ -1,23 +1,64 @@
 package al420445.airport;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.OptimisticLock;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 @Entity
-@Table(name = "PASSENGERS")
+@NamedQuery(name = Passenger.FIND_BY_NAME_PREFIX, query = "select p from Passenger p where p.nameSearch like :name")
+@NamedQuery(name = Passenger.FIND_BY_NAME_PREFIX_AFTER_ID,
+        query = "select p from Passenger p where p.nameSearch like :name and p.id > :afterId order by p.id")
+@NamedQuery(name = Passenger.FIND_NAMES_BY_PREFIX, query = """
+        select new al420445.dao.search.PassengerNameMatch(p.id, p.name) from Passenger p
+        where p.nameSearch like :name
+        order by p.nameSearch, p.id""")
+@NamedQuery(name = Passenger.FIND_BY_NAME, query = "select p from Passenger p where p.name = :name")
+@NamedQuery(name = Passenger.FIND_BY_AIRPORT_NAME_PREFIX,
+        query = "select p from Passenger p where lower(p.airport.name) like :prefix")
+@NamedQuery(name = Passenger.FIND_AFTER_ID, query = "select p from Passenger p where p.id > :afterId order by p.id")
+@NamedQuery(name = Passenger.COUNT, query = "select count(p) from Passenger p")
+@NamedQuery(name = Passenger.COUNT_BY_AIRPORT, query = "select count(p) from Passenger p where p.airport.id = :airportId")
+@NamedEntityGraph(name = "Passenger.withTickets", attributeNodes = @NamedAttributeNode("tickets"))
+@BatchSize(size = 50) // Ticket.passenger: eager loads for 50 passengers go in one IN (...) query
+@Table(name = "PASSENGERS",
+        indexes = @Index(name = "IDX_PASSENGERS_NAME_SEARCH", columnList = "NAME_SEARCH"))
 public class Passenger {
 
+    // Search prefixes must go through normalizeName() and end with '%'
+    public static final String FIND_BY_NAME_PREFIX = "Passenger.findByNamePrefix";
+    public static final String FIND_BY_NAME_PREFIX_AFTER_ID = "Passenger.findByNamePrefixAfterId";
+    public static final String FIND_NAMES_BY_PREFIX = "Passenger.findNamesByPrefix";
+    public static final String FIND_BY_NAME = "Passenger.findByName";
+    public static final String FIND_BY_AIRPORT_NAME_PREFIX = "Passenger.findByAirportNamePrefix";
+    public static final String FIND_AFTER_ID = "Passenger.findAfterId";
+    public static final String COUNT = "Passenger.count";
+    public static final String COUNT_BY_AIRPORT = "Passenger.countByAirport";
+
+    // SEQUENCE (pooled optimizer) instead of IDENTITY so Hibernate can batch INSERTs
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "passenger_seq")
+    @SequenceGenerator(name = "passenger_seq", sequenceName = "PASSENGERS_SEQ", allocationSize = 50)
     @Column(name = "ID")
     private Long id;
 
+    // Optimistic locking: UPDATE ... where VERSION = ?; 0 rows updated -> OptimisticLockException
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
+
     @Column(name = "NAME", unique = true)
     private String name;
 
+    // Lower-cased copy of name, so prefix searches use the index instead of lower(NAME).
+    // NameSearchIntegrator fills it for older rows and adds the varchar_pattern_ops index on PostgreSQL.
+    @Column(name = "NAME_SEARCH")
+    private String nameSearch;
+
     @ManyToOne
     @JoinColumn
     private Airport airport;
@@ -25,11 +66,14 @@ public class Passenger {
     @Embedded
     private Address address;
 
+    // Walking the tickets of N passengers costs N/50 queries instead of N
     @OneToMany(mappedBy = "passenger", cascade = CascadeType.ALL)
+    @BatchSize(size = 50)
+    @OptimisticLock(excluded = true) // the FK is in TICKET: adding a ticket leaves the passenger version alone
     private List<Ticket> tickets = new ArrayList<>();
 
     public Passenger(String name) {
-        this.name = name;
+        setName(name);
     }
 
     public Passenger() {
@@ -43,12 +87,17 @@ public class Passenger {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
 
     public void setName(String name) {
         this.name = name;
+        this.nameSearch = normalizeName(name);
     }
 
     public Airport getAirport() {
@@ -76,6 +125,21 @@ public class Passenger {
         this.address = address;
     }
 
+    // setName keeps nameSearch in sync; the callbacks also cover field changes made by other means.
+    // (StatelessSession inserts do not run JPA callbacks.)
+    @PrePersist
+    @PreUpdate
+    private void updateNameSearch() {
+        nameSearch = normalizeName(name);
+    }
+
+    /**
+     * Normalization applied to NAME_SEARCH; search prefixes must go through it too.
+     */
+    public static String normalizeName(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -6,8 +6,11 @@ import jakarta.persistence.Entity;
 import java.time.LocalDate;
 
 @Entity
-@DiscriminatorValue("Return")
+@DiscriminatorValue(ReturnTicket.TYPE)
 public class ReturnTicket extends Ticket {
+
+    public static final String TYPE = "Return";
+
     private LocalDate latestReturnDate;
 
     public ReturnTicket(LocalDate latestReturnDate) {
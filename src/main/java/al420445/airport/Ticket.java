@@ -4,14 +4,26 @@ import jakarta.persistence.*;
 import java.util.Objects;
 
 @Entity
+@NamedQuery(name = Ticket.COUNT_BY_PASSENGER, query = """
+        select new al420445.airport.PassengerTicketCountDTO(count(t), t.passenger)
+        from Ticket t
+        group by t.passenger""")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "discriminator")
 public abstract class Ticket {
 
+    public static final String COUNT_BY_PASSENGER = "Ticket.countByPassenger";
+
+    // SEQUENCE (pooled optimizer) instead of IDENTITY so Hibernate can batch INSERTs
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "TICKET_SEQ", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
+
     private String number;
 
     @ManyToOne
@@ -33,6 +45,10 @@ public abstract class Ticket {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getNumber() {
         return number;
     }
@@ -2,11 +2,63 @@ package al420445.dao.base;
 
 import al420445.airport.Airport;
 import al420445.airport.Passenger;
+import al420445.dao.search.PassengerNameIndex;
+import al420445.dao.search.PassengerNameMatch;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AirportDao {
     List<Airport> getAirports();
     void addPassenger(String name, int airportId);
     List<Passenger> findPassengersByName(String name);
+
+    /**
+     * Same queries, also loading the associations of the given fetch plan
+     * (e.g. FetchPlan.PASSENGER_WITH_TICKETS) in the same SQL statement.
+     */
+    List<Airport> getAirports(FetchPlan<Airport> fetchPlan);
+    List<Passenger> findPassengersByName(String name, FetchPlan<Passenger> fetchPlan);
+
+    /**
+     * Keyset pagination: the next {@code limit} passengers whose id is greater than {@code afterId},
+     * ordered by id. Pass 0 for the first page, then the id of the last passenger received.
+     * Unlike setFirstResult (OFFSET), deep pages cost the same as the first one.
+     */
+    List<Passenger> findPassengersByName(String name, long afterId, int limit);
+
+    /**
+     * The first {@code limit} passengers whose name starts with {@code prefix}, ordered by name then id
+     * like PassengerNameIndex.search: ids and names only, no entity loaded.
+     */
+    List<PassengerNameMatch> findPassengerNames(String prefix, int limit);
+
+    /**
+     * Streams matching passengers from a scrollable result instead of loading them all.
+     * The stream holds an open EntityManager: always close it (try-with-resources).
+     */
+    Stream<Passenger> streamPassengersByName(String name);
+
+    /**
+     * Bulk insert in a single transaction, flushing/clearing every JpaUtil.BATCH_SIZE rows.
+     * The iterator is consumed lazily so the names never need to be all in memory.
+     *
+     * @return the number of passengers inserted (0 if the airport does not exist)
+     */
+    int addPassengers(int airportId, Iterator<String> names);
+
+    default int addPassengers(int airportId, Collection<String> names) {
+        return addPassengers(airportId, names.iterator());
+    }
+
+    /**
+     * The autocomplete index of the database this DAO queries; empty when it has none
+     * (al420445.name_index.enabled false) or queries several databases (ShardedAirportDao).
+     */
+    default Optional<PassengerNameIndex> passengerNameIndex() {
+        return Optional.empty();
+    }
 }
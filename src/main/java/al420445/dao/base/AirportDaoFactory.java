@@ -1,10 +1,14 @@
 package al420445.dao.base;
 
+import al420445.dao.shard.ShardedAirportDao;
+import al420445.dao.shard.ShardedPersistence;
+
 /**
  * Factory for creating AirportDao instances.
  * This allows easy swapping between different implementation strategies:
  * - Template Method pattern (AirportDaoImpl)
  * - Functional Interface approach (AirportDaoFunctional)
+ * - Sharded by airport over several databases (ShardedAirportDao)
  *
  * Usage:
  * <pre>
@@ -16,6 +20,9 @@ package al420445.dao.base;
  *
  * // Or choose Functional Interface approach
  * AirportDao dao = AirportDaoFactory.createFunctional();
+ *
+ * // Or spread the airports over ShardedPersistence.shared()
+ * AirportDao dao = AirportDaoFactory.createSharded();
  * </pre>
  */
 public class AirportDaoFactory {
@@ -25,7 +32,8 @@ public class AirportDaoFactory {
      */
     public enum Strategy {
         TEMPLATE_METHOD,
-        FUNCTIONAL_INTERFACE
+        FUNCTIONAL_INTERFACE,
+        SHARDED
     }
 
     // Default strategy - can be changed
@@ -59,6 +67,7 @@ public class AirportDaoFactory {
         return switch (strategy) {
             case TEMPLATE_METHOD -> new AirportDaoImpl();
             case FUNCTIONAL_INTERFACE -> new AirportDaoFunctional();
+            case SHARDED -> createSharded();
         };
     }
 
@@ -75,5 +84,12 @@ public class AirportDaoFactory {
     public static AirportDao createFunctional() {
         return new AirportDaoFunctional();
     }
-}
 
+    /**
+     * Create an AirportDao over the shards configured by al420445.shard.count and al420445.shard.url
+     * (opened on first use, see ShardedPersistence)
+     */
+    public static AirportDao createSharded() {
+        return new ShardedAirportDao(ShardedPersistence.shared());
+    }
+}
@@ -1,24 +1,56 @@
 package al420445.dao.base;
 
 import al420445.dao.tx.TransactionalDao;
+import al420445.dao.tx.UnitOfWork;
 
 import al420445.airport.Airport;
 import al420445.airport.Passenger;
+import al420445.dao.replica.ReadRouting;
+import al420445.dao.search.PassengerNameIndex;
+import al420445.dao.search.PassengerNameMatch;
 
 import jakarta.persistence.*;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public class AirportDaoImpl implements AirportDao {
 
     // Read-only: no transaction needed for simple SELECT queries
+    // Cacheable: served from the query cache until an Airport is inserted/updated/deleted
+    // ReadRouting.readOnly: the queries of this DAO may run on a replica (ReplicaRoutingConnectionProvider)
+    // UnitOfWork.entityManager: inside UnitOfWork.run(...), queries share its EntityManager
     public List<Airport> getAirports() {
-        EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery("select a from Airport a", Airport.class).getResultList();
-        } finally {
-            em.close();
-        }
+        return ReadRouting.readOnly(() -> {
+            EntityManager em = UnitOfWork.entityManager(JpaUtil.getEntityManagerFactory());
+            try {
+                return em.createNamedQuery(Airport.FIND_ALL, Airport.class)
+                        .setHint(HibernateHints.HINT_CACHEABLE, true)
+                        .setHint(HibernateHints.HINT_CACHE_MODE, ReadRouting.cacheMode(JpaUtil.getEntityManagerFactory()))
+                        .getResultList();
+            } finally {
+                UnitOfWork.release(em);
+            }
+        });
+    }
+
+    @Override
+    public List<Airport> getAirports(FetchPlan<Airport> fetchPlan) {
+        return ReadRouting.readOnly(() -> {
+            EntityManager em = UnitOfWork.entityManager(JpaUtil.getEntityManagerFactory());
+            try {
+                return em.createNamedQuery(Airport.FIND_ALL, Airport.class)
+                        .setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, fetchPlan.entityGraph(em))
+                        .getResultList();
+            } finally {
+                UnitOfWork.release(em);
+            }
+        });
     }
 
     public void addPassenger(String name, int airportId) {
@@ -36,17 +68,124 @@ public class AirportDaoImpl implements AirportDao {
         }.executeInTransaction();
     }
 
+    @Override
+    public int addPassengers(int airportId, Iterator<String> names) {
+        return new TransactionalDao<Integer>() {
+            @Override
+            protected Integer executeInTransaction(EntityManager em) {
+                Airport airport = em.find(Airport.class, (long) airportId);
+                if (airport == null) return 0;
+
+                List<Passenger> flushed = new ArrayList<>(JpaUtil.BATCH_SIZE);
+                int count = 0;
+                while (names.hasNext()) {
+                    // Only the owning side is set: filling airport.passengers would keep every row in memory
+                    Passenger newPassenger = new Passenger(names.next());
+                    newPassenger.setAirport(airport);
+                    em.persist(newPassenger);
+                    flushed.add(newPassenger);
+
+                    if (++count % JpaUtil.BATCH_SIZE == 0) {
+                        em.flush();
+                        // Not em.clear(): inside a UnitOfWork the persistence context also holds the caller's entities
+                        flushed.forEach(em::detach);
+                        flushed.clear();
+                    }
+                }
+                return count;
+            }
+        }.executeInTransaction();
+    }
+
     @Override
     public List<Passenger> findPassengersByName(String name) {
-        EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            TypedQuery<Passenger> query = em.createQuery(
-                    "select p from Passenger p where lower(p.name) like :name", Passenger.class);
-            query.setParameter("name", name.toLowerCase() + "%");
-            List<Passenger> result = query.getResultList();
-            return result == null ? Collections.emptyList() : result;
-        } finally {
-            em.close();
-        }
+        return ReadRouting.readOnly(() -> {
+            EntityManager em = UnitOfWork.entityManager(JpaUtil.getEntityManagerFactory());
+            try {
+                TypedQuery<Passenger> query = em.createNamedQuery(Passenger.FIND_BY_NAME_PREFIX, Passenger.class);
+                query.setParameter("name", Passenger.normalizeName(name) + "%");
+                List<Passenger> result = query.getResultList();
+                return result == null ? Collections.emptyList() : result;
+            } finally {
+                UnitOfWork.release(em);
+            }
+        });
+    }
+
+    @Override
+    public List<Passenger> findPassengersByName(String name, FetchPlan<Passenger> fetchPlan) {
+        return ReadRouting.readOnly(() -> {
+            EntityManager em = UnitOfWork.entityManager(JpaUtil.getEntityManagerFactory());
+            try {
+                return em.createNamedQuery(Passenger.FIND_BY_NAME_PREFIX, Passenger.class)
+                        .setParameter("name", Passenger.normalizeName(name) + "%")
+                        .setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, fetchPlan.entityGraph(em))
+                        .getResultList();
+            } finally {
+                UnitOfWork.release(em);
+            }
+        });
+    }
+
+    @Override
+    public List<Passenger> findPassengersByName(String name, long afterId, int limit) {
+        return ReadRouting.readOnly(() -> {
+            EntityManager em = UnitOfWork.entityManager(JpaUtil.getEntityManagerFactory());
+            try {
+                return em.createNamedQuery(Passenger.FIND_BY_NAME_PREFIX_AFTER_ID, Passenger.class)
+                        .setParameter("name", Passenger.normalizeName(name) + "%")
+                        .setParameter("afterId", afterId)
+                        .setMaxResults(limit)
+                        .getResultList();
+            } finally {
+                UnitOfWork.release(em);
+            }
+        });
+    }
+
+    @Override
+    public List<PassengerNameMatch> findPassengerNames(String prefix, int limit) {
+        return ReadRouting.readOnly(() -> {
+            EntityManager em = UnitOfWork.entityManager(JpaUtil.getEntityManagerFactory());
+            try {
+                return em.createNamedQuery(Passenger.FIND_NAMES_BY_PREFIX, PassengerNameMatch.class)
+                        .setParameter("name", Passenger.normalizeName(prefix) + "%")
+                        .setMaxResults(limit)
+                        .getResultList();
+            } finally {
+                UnitOfWork.release(em);
+            }
+        });
+    }
+
+    @Override
+    public Stream<Passenger> streamPassengersByName(String name) {
+        return ReadRouting.readOnly(() -> {
+            EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                // Some drivers (PostgreSQL) only honour the fetch size inside a transaction
+                tx.begin();
+                return em.createNamedQuery(Passenger.FIND_BY_NAME_PREFIX, Passenger.class)
+                        .setParameter("name", Passenger.normalizeName(name) + "%")
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, JpaUtil.FETCH_SIZE)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true)
+                        .getResultStream()
+                        .peek(em::detach) // keeps the persistence context from growing with the stream
+                        .onClose(() -> {
+                            if (tx.isActive()) tx.rollback();
+                            em.close();
+                        });
+            } catch (RuntimeException ex) {
+                if (tx.isActive()) tx.rollback();
+                em.close();
+                throw ex;
+            }
+        });
+    }
+
+    @Override
+    public Optional<PassengerNameIndex> passengerNameIndex() {
+        return PassengerNameIndex.of(JpaUtil.getEntityManagerFactory());
     }
 }
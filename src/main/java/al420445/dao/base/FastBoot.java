@@ -0,0 +1,108 @@
+package al420445.dao.base;
+
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.ReturnTicket;
+import al420445.airport.Ticket;
+import al420445.dao.importer.ImportCheckpoint;
+import al420445.dao.report.AirportPassengerTotal;
+import al420445.dao.report.DailyTicketTotal;
+import al420445.dao.report.PassengerTicketTotal;
+import al420445.dao.search.PassengerNameIndexIntegrator;
+
+import org.hibernate.boot.archive.scan.internal.DisabledScanner;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.hibernate.jpa.boot.internal.PersistenceXmlParser;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Boot settings for short-lived JVMs (batch jobs, CLI tools) that run against an existing schema.
+ * Enabled with -Dal420445.fastboot=true; any setting given explicitly still wins.
+ *
+ * - hibernate.hbm2ddl.auto=none instead of update (pass validate to keep a schema check):
+ *   update reads the metadata of every table and sequence on each start.
+ * - no classpath scanning: the entity classes are listed here (hibernate.loaded_classes).
+ * - no JDBC metadata access at boot when the database can be derived from the URL (H2, PostgreSQL),
+ *   the overridden jakarta.persistence.jdbc.url or else the one of persistence.xml.
+ * - no NamedQueryWarmUp: a batch JVM runs few queries, each of them only once.
+ * - no PassengerNameIndex: its background scan reads every passenger, for a type-ahead a batch has no use of.
+ * - no runtime bytecode provider when the entities were enhanced at build time (mvn -Pfastboot).
+ */
+final class FastBoot {
+
+    static final String ENABLED = "al420445.fastboot";
+
+    /**
+     * Every entity of the persistence unit: add new @Entity classes here, they are not scanned.
+     */
+    static final List<Class<?>> ENTITIES = List.of(
+            Airport.class, Passenger.class, Ticket.class, OneWayTicket.class, ReturnTicket.class,
+            PassengerTicketTotal.class, AirportPassengerTotal.class, DailyTicketTotal.class, ImportCheckpoint.class);
+
+    private FastBoot() {
+    }
+
+    static boolean isEnabled(Map<String, Object> overrides) {
+        return Boolean.parseBoolean(String.valueOf(overrides.getOrDefault(ENABLED, "false")));
+    }
+
+    /**
+     * True when the entity classes on the classpath went through the Hibernate enhancer.
+     */
+    static boolean isEnhanced() {
+        return ENTITIES.stream().allMatch(ManagedEntity.class::isAssignableFrom);
+    }
+
+    /**
+     * @return the overrides completed with the fast-boot defaults, or unchanged if fast boot is disabled
+     */
+    static Map<String, Object> apply(String persistenceUnit, Map<String, Object> overrides) {
+        if (!isEnabled(overrides)) {
+            return overrides;
+        }
+        Map<String, Object> settings = new HashMap<>(overrides);
+        settings.putIfAbsent("hibernate.hbm2ddl.auto", "none");
+        settings.putIfAbsent("hibernate.archive.scanner", DisabledScanner.class.getName());
+        settings.putIfAbsent("hibernate.loaded_classes", ENTITIES);
+        settings.putIfAbsent(NamedQueryWarmUp.ENABLED, "false");
+        settings.putIfAbsent(PassengerNameIndexIntegrator.ENABLED, "false");
+
+        String database = databaseFor(jdbcUrl(persistenceUnit, settings));
+        if ("none".equals(settings.get("hibernate.hbm2ddl.auto")) && database != null) {
+            // Dialect resolved from the product name instead of a connection's DatabaseMetaData
+            settings.putIfAbsent("jakarta.persistence.database-product-name", database);
+            settings.putIfAbsent("hibernate.boot.allow_jdbc_metadata_access", "false");
+        }
+        if (isEnhanced()) {
+            settings.putIfAbsent("hibernate.bytecode.provider", "none");
+        }
+        return settings;
+    }
+
+    /**
+     * The URL Hibernate will connect to: the override if any, else the property of the unit in persistence.xml.
+     */
+    private static String jdbcUrl(String persistenceUnit, Map<String, Object> settings) {
+        Object url = settings.get("jakarta.persistence.jdbc.url");
+        if (url != null) {
+            return url.toString();
+        }
+        return PersistenceXmlParser.locatePersistenceUnits(Map.of()).stream()
+                .filter(unit -> persistenceUnit.equals(unit.getName()))
+                .map(unit -> unit.getProperties().getProperty("jakarta.persistence.jdbc.url"))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse("");
+    }
+
+    private static String databaseFor(String url) {
+        if (url.startsWith("jdbc:h2:")) return "H2";
+        if (url.startsWith("jdbc:postgresql:")) return "PostgreSQL";
+        return null;
+    }
+}
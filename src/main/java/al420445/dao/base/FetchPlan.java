@@ -0,0 +1,29 @@
+package al420445.dao.base;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Which associations to load together with the queried entities, backed by a named entity graph.
+ * Associations in the graph are fetched by the query itself and stay usable after the
+ * EntityManager is closed; the others keep their mapping defaults (lazy collections, batch fetching).
+ *
+ * @param root      the entity the graph applies to
+ * @param graphName the @NamedEntityGraph name
+ */
+public record FetchPlan<T>(Class<T> root, String graphName) {
+
+    public static final FetchPlan<Passenger> PASSENGER_WITH_TICKETS =
+            new FetchPlan<>(Passenger.class, "Passenger.withTickets");
+
+    public static final FetchPlan<Airport> AIRPORT_WITH_PASSENGERS =
+            new FetchPlan<>(Airport.class, "Airport.withPassengers");
+
+    @SuppressWarnings("unchecked")
+    EntityGraph<T> entityGraph(EntityManager em) {
+        return (EntityGraph<T>) em.getEntityGraph(graphName);
+    }
+}
@@ -1,7 +1,23 @@
 package al420445.dao.base;
 
+import al420445.dao.metrics.JpaMetrics;
+import al420445.dao.metrics.RetryCounters;
+import al420445.dao.metrics.SqlMetrics;
+import al420445.dao.pool.ConnectionPoolMetrics;
+import al420445.dao.pool.HikariConnectionProvider;
+
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Simple utility to manage a single EntityManagerFactory for the application.
@@ -9,22 +25,142 @@ import jakarta.persistence.Persistence;
  */
 public final class JpaUtil {
 
-    private static final EntityManagerFactory EMF = buildEntityManagerFactory();
+    /**
+     * Number of rows written between two flush/clear in bulk operations.
+     * Matches hibernate.jdbc.batch_size in persistence.xml.
+     */
+    public static final int BATCH_SIZE = 50;
+
+    /**
+     * JDBC fetch size used when streaming large results.
+     */
+    public static final int FETCH_SIZE = 500;
+
+    static final String PERSISTENCE_UNIT = "hibernate2.ex1";
 
     private JpaUtil() {
     }
 
+    /**
+     * The shared factory is built on first use, not when JpaUtil is loaded:
+     * entry points that only call createEntityManagerFactory() don't boot it twice.
+     */
+    private static final class Holder {
+        static final EntityManagerFactory EMF = buildEntityManagerFactory();
+    }
+
     private static EntityManagerFactory buildEntityManagerFactory() {
-        return Persistence.createEntityManagerFactory("hibernate2.ex1");
+        EntityManagerFactory emf = createEntityManagerFactory();
+        if (Boolean.parseBoolean(String.valueOf(emf.getProperties().getOrDefault(NamedQueryWarmUp.ENABLED, "true")))) {
+            NamedQueryWarmUp.run(emf);
+        }
+        return emf;
+    }
+
+    /**
+     * A new factory for the hibernate2.ex1 unit, with the same settings as the shared one
+     * (system overrides, fast boot). For entry points that manage the factory's lifecycle themselves;
+     * the caller closes it. Never warmed up: see NamedQueryWarmUp.
+     *
+     * With -Dal420445.fastboot=true the schema is not updated and the classpath is not scanned,
+     * see FastBoot.
+     */
+    public static EntityManagerFactory createEntityManagerFactory() {
+        return createEntityManagerFactory(Map.of());
+    }
+
+    /**
+     * Same as createEntityManagerFactory(), with {@code overrides} taking precedence over the system
+     * properties (e.g. the URL of each database of ShardedPersistence).
+     */
+    public static EntityManagerFactory createEntityManagerFactory(Map<String, Object> overrides) {
+        Map<String, Object> properties = systemOverrides();
+        properties.putAll(overrides);
+        return Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, FastBoot.apply(PERSISTENCE_UNIT, properties));
+    }
+
+    /**
+     * Any "hibernate.*", "jakarta.persistence.*" or "al420445.*" system property overrides persistence.xml,
+     * e.g. -Dhibernate.show_sql=false for benchmarks, or -Djakarta.persistence.jdbc.url=... to target PostgreSQL.
+     */
+    private static Map<String, Object> systemOverrides() {
+        Map<String, Object> overrides = new HashMap<>();
+        System.getProperties().forEach((key, value) -> {
+            String name = key.toString();
+            if (name.startsWith("hibernate.") || name.startsWith("jakarta.persistence.") || name.startsWith("al420445.")) {
+                overrides.put(name, value);
+            }
+        });
+        return overrides;
     }
 
     public static EntityManagerFactory getEntityManagerFactory() {
-        return EMF;
+        return Holder.EMF;
+    }
+
+    /**
+     * Hibernate statistics (second-level/query cache hits and misses, query counts...).
+     * Populated because hibernate.generate_statistics is enabled in persistence.xml.
+     */
+    public static Statistics getStatistics() {
+        return getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Current state of the connection pool (active/idle connections, wait times).
+     *
+     * @throws IllegalStateException if the unit is not configured with HikariConnectionProvider
+     */
+    public static ConnectionPoolMetrics getConnectionPoolMetrics() {
+        return hikariConnectionProvider()
+                .orElseThrow(() -> new IllegalStateException("Connection provider is not HikariConnectionProvider"))
+                .getMetrics();
+    }
+
+    /**
+     * Per-SQL latency (p50/p99/max) and rows, entity load/fetch counts, transaction retries
+     * and query plan cache hits.
+     * SQL metrics are empty unless al420445.metrics.enabled is true.
+     */
+    public static JpaMetrics getMetrics() {
+        List<JpaMetrics.QueryMetrics> queries = sqlMetrics().map(SqlMetrics::snapshot).orElse(List.of());
+        Statistics statistics = getStatistics();
+        List<JpaMetrics.EntityMetrics> entities = Stream.of(statistics.getEntityNames())
+                .sorted()
+                .map(name -> {
+                    var entity = statistics.getEntityStatistics(name);
+                    return new JpaMetrics.EntityMetrics(name,
+                            entity.getLoadCount(), entity.getFetchCount(),
+                            entity.getInsertCount(), entity.getUpdateCount(), entity.getDeleteCount());
+                })
+                .toList();
+        return new JpaMetrics(queries, entities, RetryCounters.snapshot(),
+                new JpaMetrics.QueryPlanMetrics(statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount()));
+    }
+
+    public static void resetMetrics() {
+        sqlMetrics().ifPresent(SqlMetrics::reset);
+        RetryCounters.reset();
+        getStatistics().clear();
+    }
+
+    private static Optional<SqlMetrics> sqlMetrics() {
+        return hikariConnectionProvider().flatMap(HikariConnectionProvider::getSqlMetrics);
+    }
+
+    private static Optional<HikariConnectionProvider> hikariConnectionProvider() {
+        ConnectionProvider provider = getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(ConnectionProvider.class);
+        return provider.isUnwrappableAs(HikariConnectionProvider.class)
+                ? Optional.of(provider.unwrap(HikariConnectionProvider.class))
+                : Optional.empty();
     }
 
     public static void close() {
-        if (EMF != null && EMF.isOpen()) {
-            EMF.close();
+        EntityManagerFactory emf = getEntityManagerFactory();
+        if (emf.isOpen()) {
+            emf.close();
         }
     }
 }
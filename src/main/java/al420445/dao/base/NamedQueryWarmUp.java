@@ -0,0 +1,115 @@
+package al420445.dao.base;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Parameter;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.spi.SqmQuery;
+import org.hibernate.query.sqm.tree.SqmStatement;
+import org.hibernate.query.sqm.tree.select.SqmSelectStatement;
+import org.hibernate.query.sqm.tree.select.SqmSelection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates every named SELECT query to SQL once, so that the first real call finds its plan
+ * and SQL already in Hibernate's query plan cache.
+ *
+ * The named queries (@NamedQuery on the al420445.airport entities) are parsed and validated
+ * when the EntityManagerFactory starts (hibernate.query.startup_check): a typo fails the boot.
+ * What remains for the first call is the translation to SQL, which this warm-up does.
+ *
+ * The queries are not run: the session's StatementInspector aborts each one once Hibernate has
+ * cached its SQL, before a statement is prepared. Boot time therefore does not depend on the size
+ * of the tables. The query is called as the DAOs call it (same result type, no limit):
+ * a translation with a limit, or setMaxResults(0), would not serve the first real call.
+ * Called by JpaUtil when al420445.query.warm_up is true.
+ */
+public final class NamedQueryWarmUp {
+
+    public static final String ENABLED = "al420445.query.warm_up";
+
+    private static final Logger log = LoggerFactory.getLogger(NamedQueryWarmUp.class);
+
+    // Thrown by the StatementInspector: the SQL is translated and cached, nothing is sent to the database
+    private static final class Translated extends RuntimeException {
+        Translated() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final Translated TRANSLATED = new Translated();
+
+    private NamedQueryWarmUp() {
+    }
+
+    /**
+     * @return the names of the queries translated
+     * @throws IllegalStateException if a query cannot be translated
+     */
+    public static List<String> run(EntityManagerFactory emf) {
+        long start = System.nanoTime();
+        List<String> registered = new ArrayList<>();
+        emf.unwrap(SessionFactoryImplementor.class)
+                .getQueryEngine()
+                .getNamedObjectRepository()
+                .visitSqmQueryMementos(memento -> registered.add(memento.getRegistrationName()));
+        registered.sort(null);
+
+        List<String> names = new ArrayList<>();
+        try (Session session = emf.unwrap(SessionFactory.class)
+                .withOptions()
+                .statementInspector(sql -> {
+                    throw TRANSLATED;
+                })
+                .openSession()) {
+            for (String name : registered) {
+                if (warmUp(session, name)) names.add(name);
+            }
+        }
+        log.info("Warmed up {} named queries in {} ms", names.size(), (System.nanoTime() - start) / 1_000_000);
+        return names;
+    }
+
+    // false for UPDATE/DELETE queries, which are not translated
+    private static boolean warmUp(EntityManager em, String name) {
+        try {
+            SqmStatement<?> statement = em.createNamedQuery(name).unwrap(SqmQuery.class).getSqmStatement();
+            if (!(statement instanceof SqmSelectStatement<?> select)) {
+                return false;
+            }
+            // Same result type as the DAOs use: it is part of the plan cache key
+            TypedQuery<?> query = em.createNamedQuery(name, resultType(select));
+            for (Parameter<?> parameter : query.getParameters()) {
+                query.setParameter(parameter.getName(), sampleValue(parameter.getParameterType()));
+            }
+            query.getResultList();
+            return true;
+        } catch (Translated expected) {
+            return true;
+        } catch (RuntimeException ex) {
+            throw new IllegalStateException("Warm-up of named query " + name + " failed", ex);
+        }
+    }
+
+    private static Class<?> resultType(SqmSelectStatement<?> statement) {
+        List<SqmSelection<?>> selections = statement.getQuerySpec().getSelectClause().getSelections();
+        return selections.size() == 1 ? selections.getFirst().getNodeJavaType().getJavaTypeClass() : Object[].class;
+    }
+
+    private static Object sampleValue(Class<?> type) {
+        if (type == null || type == String.class) return "";
+        if (type == Long.class) return Long.MAX_VALUE;
+        if (type == Integer.class) return Integer.MAX_VALUE;
+        if (type == LocalDate.class) return LocalDate.of(9999, 12, 31);
+        if (type == Boolean.class) return Boolean.FALSE;
+        return null;
+    }
+}
@@ -0,0 +1,179 @@
+package al420445.dao.bulk;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.cdc.CdcBulkChanges;
+import al420445.dao.report.ReportBulkChanges;
+import al420445.dao.tx.TransactionExecutor;
+import al420445.dao.tx.UnitOfWork;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Moves passengers to another airport with set-based UPDATE statements, e.g. when an airport closes:
+ * <pre>
+ * TransferReport report = new BulkPassengerTransfer().reassignAirport(closedAirportId, targetAirportId);
+ * </pre>
+ * AirportDaoExamples.transferPassenger loads and dirty-checks one passenger per transaction. Here each
+ * chunk of chunkSize passengers is one transaction:
+ * - the ids and current airports of the chunk are selected in id order, rows locked (for update),
+ *   skipping passengers already at the target airport
+ * - one "update versioned Passenger": the version is incremented, so a concurrent dirty-checked
+ *   update of a moved passenger fails on its @Version check (RetryingTransactionalDao re-runs it)
+ * - the summary tables and the change log record the move (ReportBulkChanges, CdcBulkChanges),
+ *   which their listeners do not see
+ * A failure rolls back its chunk only; calling again moves the passengers that are left.
+ *
+ * Not inside a UnitOfWork (IllegalStateException): the chunks commit one by one, they cannot be
+ * rolled back with the unit of work, and their row locks could wait on those of its transaction.
+ *
+ * Caches: after a bulk statement Hibernate invalidates the query cache results on PASSENGERS and the
+ * cached Passenger data; cached Airport entries hold no passenger state. PassengerNameIndex holds
+ * no airport.
+ *
+ * As with transferPassenger, nothing is moved when the target airport does not exist.
+ */
+public class BulkPassengerTransfer {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1_000;
+
+    /**
+     * Selects the passengers to move, like a Criteria API where clause.
+     */
+    @FunctionalInterface
+    public interface PassengerFilter {
+        Predicate toPredicate(CriteriaBuilder cb, Root<Passenger> passenger);
+    }
+
+    private record Chunk(List<Long> ids, Map<Long, Long> byAirport) {
+        static final Chunk EMPTY = new Chunk(List.of(), Map.of());
+    }
+
+    private final EntityManagerFactory emf;
+    private final int chunkSize;
+
+    public BulkPassengerTransfer(EntityManagerFactory emf, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.emf = emf;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Shared factory, chunks of DEFAULT_CHUNK_SIZE passengers
+     */
+    public BulkPassengerTransfer() {
+        this(JpaUtil.getEntityManagerFactory(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Every passenger of {@code sourceAirportId}.
+     */
+    public TransferReport reassignAirport(long sourceAirportId, long targetAirportId) {
+        return transferPassengers((cb, passenger) -> cb.equal(passenger.get("airport").get("id"), sourceAirportId), targetAirportId);
+    }
+
+    /**
+     * The passengers matching {@code filter}, e.g.
+     * {@code (cb, p) -> cb.like(p.get("nameSearch"), "tremblay%")}.
+     */
+    public TransferReport transferPassengers(PassengerFilter filter, long targetAirportId) {
+        requireNoUnitOfWork();
+        long start = System.nanoTime();
+        Map<Long, Long> moved = new TreeMap<>();
+        int chunks = 0;
+        long afterId = 0;
+        while (true) {
+            long after = afterId;
+            Chunk chunk = TransactionExecutor.executeInTransaction(emf, em -> moveChunk(em, filter, after, targetAirportId));
+            if (chunk.ids().isEmpty()) break;
+            chunks++;
+            chunk.byAirport().forEach((airportId, count) -> moved.merge(airportId, count, Long::sum));
+            if (chunk.ids().size() < chunkSize) break;
+            afterId = chunk.ids().getLast();
+        }
+        return new TransferReport(targetAirportId, moved, chunks, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * The passengers of {@code passengerIds}; unknown ids are ignored.
+     */
+    public TransferReport transferPassengers(Collection<Long> passengerIds, long targetAirportId) {
+        requireNoUnitOfWork();
+        long start = System.nanoTime();
+        List<Long> ids = passengerIds.stream().distinct().sorted().toList();
+        Map<Long, Long> moved = new TreeMap<>();
+        int chunks = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> slice = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            Chunk chunk = TransactionExecutor.executeInTransaction(emf,
+                    em -> moveChunk(em, (cb, passenger) -> passenger.get("id").in(slice), 0, targetAirportId));
+            if (chunk.ids().isEmpty()) continue;
+            chunks++;
+            chunk.byAirport().forEach((airportId, count) -> moved.merge(airportId, count, Long::sum));
+        }
+        return new TransferReport(targetAirportId, moved, chunks, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private Chunk moveChunk(EntityManager em, PassengerFilter filter, long afterId, long targetAirportId) {
+        Airport target = em.find(Airport.class, targetAirportId);
+        if (target == null) return Chunk.EMPTY;
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Passenger> passenger = query.from(Passenger.class);
+        Path<Long> id = passenger.get("id");
+        Path<Long> airportId = passenger.get("airport").get("id"); // the foreign key, no join
+        query.multiselect(id, airportId)
+                .where(filter.toPredicate(cb, passenger),
+                        cb.gt(id, afterId),
+                        cb.or(cb.isNull(airportId), cb.notEqual(airportId, targetAirportId)))
+                .orderBy(cb.asc(id));
+        List<Tuple> rows = em.createQuery(query)
+                .setMaxResults(chunkSize)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (rows.isEmpty()) return Chunk.EMPTY;
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        Map<Long, Long> byAirport = new TreeMap<>();
+        for (Tuple row : rows) {
+            ids.add(row.get(0, Long.class));
+            Long from = row.get(1, Long.class);
+            byAirport.merge(from == null ? 0L : from, 1L, Long::sum);
+        }
+        em.createQuery("update versioned Passenger p set p.airport = :airport where p.id in :ids")
+                .setParameter("airport", target)
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        Map<Long, Long> leftAirports = new TreeMap<>(byAirport);
+        leftAirports.remove(0L);
+        ReportBulkChanges.passengersMoved(em, leftAirports, ids.size(), targetAirportId);
+        CdcBulkChanges.passengersMoved(em, ids, targetAirportId);
+        return new Chunk(ids, byAirport);
+    }
+
+    private void requireNoUnitOfWork() {
+        if (UnitOfWork.isActive(emf)) {
+            throw new IllegalStateException("BulkPassengerTransfer commits each chunk: call it outside UnitOfWork.run");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package al420445.dao.bulk;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Result of a BulkPassengerTransfer call.
+ *
+ * @param movedByAirport passengers moved, per airport they left (0 for passengers without airport)
+ * @param chunks         UPDATE statements run, one transaction each
+ */
+public record TransferReport(long targetAirportId, Map<Long, Long> movedByAirport, int chunks, Duration elapsed) {
+
+    public long moved() {
+        return movedByAirport.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double passengersPerSecond() {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return seconds == 0 ? 0 : moved() / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d passengers to airport %d in %d chunks, %.2f s -> %,.0f passengers/s",
+                moved(), targetAirportId, chunks, elapsed.toNanos() / 1_000_000_000.0, passengersPerSecond());
+    }
+}
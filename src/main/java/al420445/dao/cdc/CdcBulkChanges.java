@@ -0,0 +1,46 @@
+package al420445.dao.cdc;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collection;
+
+/**
+ * Change records of bulk HQL statements, which CdcListener does not see: the caller records what
+ * its statement changed, in the same transaction, and the records are appended with those of the
+ * listener when the transaction commits. Ignored when al420445.cdc.enabled is false.
+ */
+public final class CdcBulkChanges {
+
+    private static final int PASSENGER_AIRPORT = CdcEntity.PASSENGER.fields().indexOf("airport");
+
+    private CdcBulkChanges() {
+    }
+
+    /**
+     * One UPDATE record per passenger, with its new airport.
+     */
+    public static void passengersMoved(EntityManager em, Collection<Long> passengerIds, long newAirportId) {
+        CdcLog.of(em.getEntityManagerFactory()).ifPresent(log ->
+                CdcTransaction.record(em.unwrap(SharedSessionContractImplementor.class), log, records -> {
+                    for (long passengerId : passengerIds) {
+                        records.beginRecord(CdcEntity.PASSENGER, ChangeRecord.Operation.UPDATE, passengerId);
+                        records.putField(PASSENGER_AIRPORT, newAirportId);
+                        records.endRecord();
+                    }
+                }));
+    }
+
+    /**
+     * One DELETE record per ticket.
+     */
+    public static void ticketsDeleted(EntityManager em, Collection<Long> ticketIds) {
+        CdcLog.of(em.getEntityManagerFactory()).ifPresent(log ->
+                CdcTransaction.record(em.unwrap(SharedSessionContractImplementor.class), log, records -> {
+                    for (long ticketId : ticketIds) {
+                        records.beginRecord(CdcEntity.TICKET, ChangeRecord.Operation.DELETE, ticketId);
+                        records.endRecord();
+                    }
+                }));
+    }
+}
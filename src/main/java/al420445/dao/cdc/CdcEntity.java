@@ -0,0 +1,62 @@
+package al420445.dao.cdc;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.airport.Ticket;
+
+import java.util.List;
+
+/**
+ * Entities written to the change log, with the fields of their records. A field is identified
+ * in the log by its position in this list: append new fields at the end, never reorder them.
+ * Associations are logged as the id of the target, the address of a passenger as its four fields.
+ */
+public enum CdcEntity {
+
+    AIRPORT(1, Airport.class, List.of("name")),
+    PASSENGER(2, Passenger.class, List.of("name", "airport", "street", "city", "province", "postalCode")),
+    TICKET(3, Ticket.class, List.of("number", "passenger", "type", "date"));
+
+    private final byte code;
+    private final Class<?> type;
+    private final List<String> fields;
+
+    CdcEntity(int code, Class<?> type, List<String> fields) {
+        this.code = (byte) code;
+        this.type = type;
+        this.fields = fields;
+    }
+
+    public List<String> fields() {
+        return fields;
+    }
+
+    byte code() {
+        return code;
+    }
+
+    Class<?> type() {
+        return type;
+    }
+
+    /**
+     * @return the logged entity of {@code entity}, null if its changes are not logged
+     */
+    static CdcEntity of(Object entity) {
+        for (CdcEntity candidate : values()) {
+            if (candidate.type.isInstance(entity)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    static CdcEntity of(byte code) {
+        for (CdcEntity candidate : values()) {
+            if (candidate.code == code) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown entity code " + code);
+    }
+}
@@ -0,0 +1,181 @@
+package al420445.dao.cdc;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary layout of the change log. The log is a directory of segment files named after
+ * their first sequence number (00000000000000000001.cdc...), each of a fixed, preallocated size.
+ *
+ * <pre>
+ * segment : "ACDC" | version (int) | first sequence (long) | record* | end
+ * record  : length (int &gt; 0, bytes after this field) | sequence (long) | commit time (long, epoch ms)
+ *           | state (byte: 0 = prepared, 1 = committed, 2 = aborted; + 0x80 on the last record of a transaction)
+ *           | entity (byte, CdcEntity) | operation (byte, 1 = insert, 2 = update, 3 = delete) | id (long)
+ *           | field count (byte) | field*
+ * field   : field (byte, position in CdcEntity.fields()) | value
+ * value   : 0 = null | 1, zig-zag varint = integer | 2, varint length, UTF-8 = string
+ *           | 3, zig-zag varint epoch day = date
+ * end     : 0 (int) = nothing written yet, the writer appends here | -1 (int) = continued in the next segment
+ * </pre>
+ * Integers are big-endian, varints unsigned LEB128. The writer fills a record before its length:
+ * a reader that sees a length &gt; 0 can read the whole record. The state is the only byte
+ * changed afterwards (CdcLog.resolve).
+ */
+final class CdcFormat {
+
+    static final byte[] MAGIC = "ACDC".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 16;
+    /** sequence + commit time + state, added to each record when it is appended */
+    static final int RECORD_PREFIX = 17;
+    /** offset of the state from the start of a record */
+    static final int STATE = Integer.BYTES + 16;
+    static final int END = 0;
+    static final int NEXT_SEGMENT = -1;
+
+    static final byte PREPARED = 0;
+    static final byte COMMITTED = 1;
+    static final byte ABORTED = 2;
+    static final byte LAST = (byte) 0x80;
+
+    static final byte NULL = 0;
+    static final byte INTEGER = 1;
+    static final byte STRING = 2;
+    static final byte DATE = 3;
+
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private static final String SUFFIX = ".cdc";
+
+    private CdcFormat() {
+    }
+
+    static Path segmentFile(Path directory, long firstSequence) {
+        return directory.resolve("%020d%s".formatted(firstSequence, SUFFIX));
+    }
+
+    /**
+     * @return the first sequence of a segment file, or -1 if {@code file} is not one
+     */
+    static long firstSequence(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(SUFFIX) || name.length() != 20 + SUFFIX.length()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, 20));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    static void writeHeader(MemorySegment segment, long firstSequence) {
+        MemorySegment.copy(MAGIC, 0, segment, ValueLayout.JAVA_BYTE, 0, MAGIC.length);
+        segment.set(INT, 4, VERSION);
+        segment.set(LONG, 8, firstSequence);
+    }
+
+    static void checkHeader(MemorySegment segment, Path file) {
+        byte[] magic = segment.asSlice(0, MAGIC.length).toArray(ValueLayout.JAVA_BYTE);
+        if (!Arrays.equals(magic, MAGIC) || segment.get(INT, 4) != VERSION) {
+            throw new IllegalStateException(file + " is not a change log segment (version " + VERSION + ")");
+        }
+    }
+
+    /**
+     * Length field at {@code offset}, END past the end of the segment.
+     */
+    static int length(MemorySegment segment, long offset) {
+        return offset + Integer.BYTES > segment.byteSize() ? END : segment.get(INT, offset);
+    }
+
+    static long sequence(MemorySegment segment, long offset) {
+        return segment.get(LONG, offset + Integer.BYTES);
+    }
+
+    /**
+     * State of the record at {@code offset}, without the LAST flag.
+     */
+    static byte state(MemorySegment segment, long offset) {
+        return (byte) (segment.get(ValueLayout.JAVA_BYTE, offset + STATE) & ~LAST);
+    }
+
+    /**
+     * Decodes the record at {@code offset}, whose length is > 0.
+     */
+    static ChangeRecord read(MemorySegment segment, long offset) {
+        Cursor in = new Cursor(segment, offset + Integer.BYTES);
+        long sequence = in.getLong();
+        Instant committedAt = Instant.ofEpochMilli(in.getLong());
+        in.get(); // state
+        CdcEntity entity = CdcEntity.of(in.get());
+        ChangeRecord.Operation operation = ChangeRecord.Operation.of(in.get());
+        long id = in.getLong();
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (int count = in.get(); count > 0; count--) {
+            String field = entity.fields().get(in.get());
+            fields.put(field, switch (in.get()) {
+                case NULL -> null;
+                case INTEGER -> in.getZigZag();
+                case STRING -> in.getString();
+                case DATE -> LocalDate.ofEpochDay(in.getZigZag());
+                default -> throw new IllegalStateException("Corrupt record " + sequence);
+            });
+        }
+        return new ChangeRecord(sequence, committedAt, entity, operation, id, Collections.unmodifiableMap(fields));
+    }
+
+    private static final class Cursor {
+        private final MemorySegment segment;
+        private long offset;
+
+        Cursor(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        byte get() {
+            return segment.get(ValueLayout.JAVA_BYTE, offset++);
+        }
+
+        long getLong() {
+            long value = segment.get(LONG, offset);
+            offset += Long.BYTES;
+            return value;
+        }
+
+        long getVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        long getZigZag() {
+            long value = getVarLong();
+            return value >>> 1 ^ -(value & 1);
+        }
+
+        String getString() {
+            int length = (int) getVarLong();
+            byte[] bytes = segment.asSlice(offset, length).toArray(ValueLayout.JAVA_BYTE);
+            offset += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
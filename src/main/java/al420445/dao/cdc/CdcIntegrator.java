@@ -0,0 +1,118 @@
+package al420445.dao.cdc;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.StatelessSession;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Opens the change log and registers CdcListener when al420445.cdc.enabled is true:
+ * <ul>
+ *   <li>al420445.cdc.directory: where the segments go (default: airport-cdc/&lt;JDBC URL&gt; in
+ *   java.io.tmpdir, one log per database; the factories of a JVM on the same database share it)</li>
+ *   <li>al420445.cdc.segment_mb: size of a segment (default 64)</li>
+ *   <li>al420445.cdc.retention: ISO-8601 duration after which rolled segments are deleted (default P7D)</li>
+ * </ul>
+ * Once the factory is built, the transactions that the previous writer left in doubt are resolved
+ * from the database. The log is closed with the EntityManagerFactory. Discovered by Hibernate through
+ * META-INF/services/org.hibernate.integrator.spi.Integrator.
+ */
+public class CdcIntegrator implements Integrator {
+
+    public static final String ENABLED = "al420445.cdc.enabled";
+    public static final String DIRECTORY = "al420445.cdc.directory";
+    public static final String SEGMENT_MB = "al420445.cdc.segment_mb";
+    public static final String RETENTION = "al420445.cdc.retention";
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        Map<String, Object> properties = sessionFactory.getProperties();
+        if (!Boolean.parseBoolean(String.valueOf(properties.getOrDefault(ENABLED, "false")))) {
+            return;
+        }
+        CdcLog log;
+        try {
+            log = CdcLog.open(
+                    properties.containsKey(DIRECTORY) ? Path.of(String.valueOf(properties.get(DIRECTORY))) : defaultDirectory(properties),
+                    Long.parseLong(String.valueOf(properties.getOrDefault(SEGMENT_MB, "64"))) * 1024 * 1024,
+                    Duration.parse(String.valueOf(properties.getOrDefault(RETENTION, "P7D"))));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        CdcLog.register(sessionFactory, log);
+
+        CdcListener listener = new CdcListener(log);
+        EventListenerRegistry listeners = sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_INSERT, listener);
+        listeners.appendListeners(EventType.POST_UPDATE, listener);
+        listeners.appendListeners(EventType.POST_DELETE, listener);
+
+        sessionFactory.addObserver(new SessionFactoryObserver() {
+            @Override
+            public void sessionFactoryCreated(SessionFactory factory) {
+                log.resolveInDoubt(transaction -> inDatabase(sessionFactory, transaction));
+            }
+
+            @Override
+            public void sessionFactoryClosed(SessionFactory factory) {
+                CdcLog.unregister(factory);
+                try {
+                    log.close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        });
+    }
+
+    private static Path defaultDirectory(Map<String, Object> properties) {
+        Object url = properties.getOrDefault("jakarta.persistence.jdbc.url", properties.getOrDefault("hibernate.connection.url", "default"));
+        return Path.of(System.getProperty("java.io.tmpdir"), "airport-cdc", String.valueOf(url).replaceAll("[^A-Za-z0-9._-]+", "_"));
+    }
+
+    /**
+     * Whether the database has the changes of an in-doubt transaction: the last change of each
+     * row must be there (row present with the logged values, or absent after a delete).
+     */
+    private static boolean inDatabase(SessionFactoryImplementor sessionFactory, List<ChangeRecord> transaction) {
+        Map<String, ChangeRecord> lastChanges = new LinkedHashMap<>();
+        transaction.forEach(record -> lastChanges.put(record.entity() + "#" + record.id(), record));
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (ChangeRecord record : lastChanges.values()) {
+                Object row = session.get(record.entity().type(), record.id());
+                if (record.operation() == ChangeRecord.Operation.DELETE) {
+                    if (row != null) return false;
+                    continue;
+                }
+                if (row == null) return false;
+                Object[] values = CdcListener.values(record.entity(), row, sessionFactory);
+                for (Map.Entry<String, Object> field : record.fields().entrySet()) {
+                    Object value = values[record.entity().fields().indexOf(field.getKey())];
+                    if (!Objects.equals(value instanceof Integer number ? Long.valueOf(number) : value, field.getValue())) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,130 @@
+package al420445.dao.cdc;
+
+import al420445.airport.Address;
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.ReturnTicket;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Encodes a change record for each insert, update and delete of an airport, passenger or ticket
+ * made through an EntityManager/Session (CdcTransaction appends them when the transaction commits).
+ *
+ * Not logged: bulk HQL/SQL statements and StatelessSession writes (PassengerImporter), whose
+ * events carry no session (CdcBulkChanges records those of BulkPassengerTransfer and
+ * TicketRetentionJob); updates that change none of the CdcEntity fields (version only, collections).
+ */
+final class CdcListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // The only date of each ticket type
+    private static final Map<String, String> TICKET_DATE = Map.of(
+            OneWayTicket.TYPE, "latestDepartureDate",
+            ReturnTicket.TYPE, "latestReturnDate");
+
+    private final CdcLog log;
+
+    CdcListener(CdcLog log) {
+        this.log = log;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        CdcEntity entity = CdcEntity.of(event.getEntity());
+        if (entity == null) return;
+        long id = (Long) event.getId();
+        Object[] values = values(entity, event.getPersister(), event.getState());
+        CdcTransaction.record(event.getSession(), log, records -> {
+            records.beginRecord(entity, ChangeRecord.Operation.INSERT, id);
+            for (int field = 0; field < values.length; field++) {
+                if (values[field] != null) records.putField(field, values[field]);
+            }
+            records.endRecord();
+        });
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        CdcEntity entity = CdcEntity.of(event.getEntity());
+        if (entity == null) return;
+        long id = (Long) event.getId();
+        Object[] values = values(entity, event.getPersister(), event.getState());
+        // Without the old state (update of a detached instance), every field is logged
+        Object[] oldValues = event.getOldState() == null ? null : values(entity, event.getPersister(), event.getOldState());
+        if (oldValues != null && Arrays.equals(values, oldValues)) return;
+        CdcTransaction.record(event.getSession(), log, records -> {
+            records.beginRecord(entity, ChangeRecord.Operation.UPDATE, id);
+            for (int field = 0; field < values.length; field++) {
+                if (oldValues == null || !Objects.equals(oldValues[field], values[field])) records.putField(field, values[field]);
+            }
+            records.endRecord();
+        });
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        CdcEntity entity = CdcEntity.of(event.getEntity());
+        if (entity == null) return;
+        long id = (Long) event.getId();
+        CdcTransaction.record(event.getSession(), log, records -> {
+            records.beginRecord(entity, ChangeRecord.Operation.DELETE, id);
+            records.endRecord();
+        });
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * The CdcEntity.fields() of a loaded entity, in order.
+     */
+    static Object[] values(CdcEntity entity, Object instance, SessionFactoryImplementor sessionFactory) {
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(instance.getClass());
+        return values(entity, persister, persister.getValues(instance));
+    }
+
+    /**
+     * The CdcEntity.fields() of an entity state, in order.
+     */
+    private static Object[] values(CdcEntity entity, EntityPersister persister, Object[] state) {
+        return switch (entity) {
+            case AIRPORT -> new Object[]{value(persister, state, "name")};
+            case PASSENGER -> {
+                Address address = (Address) value(persister, state, "address");
+                yield new Object[]{
+                        value(persister, state, "name"),
+                        value(persister, state, "airport") instanceof Airport airport ? airport.getId() : null,
+                        address == null ? null : address.getStreet(),
+                        address == null ? null : address.getCity(),
+                        address == null ? null : address.getProvince(),
+                        address == null ? null : address.getPostalCode()};
+            }
+            case TICKET -> {
+                String type = (String) persister.getDiscriminatorValue();
+                yield new Object[]{
+                        value(persister, state, "number"),
+                        value(persister, state, "passenger") instanceof Passenger passenger ? passenger.getId() : null,
+                        type,
+                        value(persister, state, TICKET_DATE.get(type))};
+            }
+        };
+    }
+
+    private static Object value(EntityPersister persister, Object[] state, String attribute) {
+        return attribute == null ? null : state[persister.getPropertyIndex(attribute)];
+    }
+}
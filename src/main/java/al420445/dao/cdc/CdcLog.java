@@ -0,0 +1,390 @@
+package al420445.dao.cdc;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Writer of the change log (format: CdcFormat), one per directory: the factories of a JVM that
+ * open the same directory share it, and it is closed with the last of them.
+ *
+ * The active segment is preallocated and mapped in full: appending the records of a transaction
+ * is a copy of bytes already encoded by RecordBuffer, under a lock, with no system call and no
+ * allocation. Pages are written back by the OS: records survive a crash of the JVM, not of the
+ * system; they are forced to disk when a segment is full (rolled) and on close().
+ *
+ * A transaction is appended just before its database commit, while it still holds its row locks,
+ * as PREPARED records that readers do not pass; resolve() marks them COMMITTED or ABORTED after
+ * the commit. Two transactions that change the same row therefore reach consumers in commit
+ * order; transactions on different rows may be appended in a different order than they commit.
+ * Records left PREPARED by a writer that stopped between the two steps are in doubt until
+ * resolveInDoubt() checks them against the database (CdcIntegrator, at boot).
+ *
+ * When a record does not fit in the rest of the active segment, the segment is closed with a
+ * NEXT_SEGMENT marker, truncated to its content, and a new one starts with the next sequence.
+ * Rolled segments last modified more than {@code retention} ago are then deleted, whether or not
+ * every consumer has read them (CdcReader resumes at the oldest record still there).
+ */
+public final class CdcLog implements AutoCloseable {
+
+    private static final Map<SessionFactory, CdcLog> LOGS = new ConcurrentHashMap<>();
+    private static final Map<Path, CdcLog> OPEN = new HashMap<>(); // guarded by itself
+
+    /**
+     * @param lastSequence   sequence of the last record appended, 0 if none
+     * @param segments        segment files in the directory
+     * @param rolls           segments filled and closed since the log was opened
+     * @param appends         transactions appended since the log was opened
+     * @param meanAppendNanos time spent in append() per transaction, lock wait and rolls excluded
+     */
+    public record Stats(long lastSequence, long records, long bytes, int segments, long rolls, long appends,
+                        long meanAppendNanos, long maxAppendNanos) {
+    }
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Duration retention;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private FileChannel channel;
+    private Arena arena;
+    private MemorySegment segment;
+    private long position;
+    private long nextSequence;
+    private int users; // guarded by OPEN
+    private int prepared; // transactions appended and not resolved yet, all in the active segment
+    private final List<Long> inDoubt = new ArrayList<>();
+
+    private long records;
+    private long bytes;
+    private long rolls;
+    private long appends;
+    private long appendNanos;
+    private long maxAppendNanos;
+
+    private CdcLog(Path directory, long segmentSize, Duration retention) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.retention = retention;
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("writer.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Change log " + directory + " is already open by another writer");
+        }
+        recover();
+    }
+
+    /**
+     * Opens the log in {@code directory}, creating it if needed, and continues after its last record.
+     * If this JVM has it open already, returns that log (with its segment size and retention): each
+     * open() needs its close().
+     *
+     * @throws IllegalStateException if another JVM has the directory open
+     */
+    public static CdcLog open(Path directory, long segmentSize, Duration retention) throws IOException {
+        if (segmentSize < 4096 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 4 KB and 2 GB: " + segmentSize);
+        }
+        Path key = directory.toAbsolutePath().normalize();
+        synchronized (OPEN) {
+            CdcLog log = OPEN.get(key);
+            if (log == null) {
+                log = new CdcLog(key, segmentSize, retention);
+                OPEN.put(key, log);
+            }
+            log.users++;
+            return log;
+        }
+    }
+
+    /**
+     * The log written by the listeners of {@code emf}, empty if al420445.cdc.enabled is false.
+     */
+    public static Optional<CdcLog> of(EntityManagerFactory emf) {
+        return Optional.ofNullable(LOGS.get(emf.unwrap(SessionFactory.class)));
+    }
+
+    static void register(SessionFactory sessionFactory, CdcLog log) {
+        LOGS.put(sessionFactory, log);
+    }
+
+    static void unregister(SessionFactory sessionFactory) {
+        LOGS.remove(sessionFactory);
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Appends the records of a transaction, numbered from the next sequence: PREPARED, to be
+     * resolved after the commit, or COMMITTED right away (changes made without a transaction).
+     * Nothing is appended if the transaction does not fit in a segment.
+     *
+     * @return the position of the first record, for resolve(); -1 if {@code buffer} is empty
+     */
+    synchronized long append(RecordBuffer buffer, boolean committed) {
+        if (buffer.size() == 0) {
+            return -1;
+        }
+        int count = 0;
+        for (int offset = 0; offset < buffer.size(); offset += Integer.BYTES + buffer.length(offset)) {
+            count++;
+        }
+        long size = buffer.size() + (long) count * CdcFormat.RECORD_PREFIX;
+        // The records of a transaction stay in one segment, which is not rolled while one is prepared
+        while (position + size + Integer.BYTES > segmentSize) {
+            if (position == CdcFormat.HEADER_SIZE) {
+                throw new IllegalArgumentException("Transaction larger than a segment (" + segmentSize + " bytes)");
+            }
+            if (prepared > 0) {
+                awaitResolved();
+            } else {
+                roll();
+            }
+        }
+        long start = System.nanoTime();
+        long first = position;
+        long committedAt = System.currentTimeMillis();
+        byte state = committed ? CdcFormat.COMMITTED : CdcFormat.PREPARED;
+        byte[] source = buffer.bytes();
+        for (int offset = 0; offset < buffer.size(); ) {
+            int body = buffer.length(offset);
+            int length = CdcFormat.RECORD_PREFIX + body;
+            boolean last = offset + Integer.BYTES + body == buffer.size();
+            long sequence = nextSequence++;
+            segment.set(CdcFormat.LONG, position + Integer.BYTES, sequence);
+            segment.set(CdcFormat.LONG, position + Integer.BYTES + Long.BYTES, committedAt);
+            segment.set(ValueLayout.JAVA_BYTE, position + CdcFormat.STATE, last ? (byte) (state | CdcFormat.LAST) : state);
+            MemorySegment.copy(source, offset + Integer.BYTES, segment, ValueLayout.JAVA_BYTE,
+                    position + Integer.BYTES + CdcFormat.RECORD_PREFIX, body);
+            VarHandle.releaseFence(); // the record before its length
+            segment.set(CdcFormat.INT, position, length);
+            position += Integer.BYTES + length;
+            offset += Integer.BYTES + body;
+            records++;
+            bytes += Integer.BYTES + length;
+        }
+        if (!committed) {
+            prepared++;
+        }
+        long nanos = System.nanoTime() - start;
+        appends++;
+        appendNanos += nanos;
+        maxAppendNanos = Math.max(maxAppendNanos, nanos);
+        return first;
+    }
+
+    /**
+     * Marks the records of the prepared transaction appended at {@code position} committed or aborted
+     * (readers skip aborted records: their sequences are never returned).
+     */
+    synchronized void resolve(long position, boolean committed) {
+        byte state = committed ? CdcFormat.COMMITTED : CdcFormat.ABORTED;
+        for (long offset = position; ; ) {
+            int length = CdcFormat.length(segment, offset);
+            if (length <= 0) {
+                break; // transaction cut by a crash, aborted by recover()
+            }
+            boolean last = (segment.get(ValueLayout.JAVA_BYTE, offset + CdcFormat.STATE) & CdcFormat.LAST) != 0;
+            segment.set(ValueLayout.JAVA_BYTE, offset + CdcFormat.STATE, last ? (byte) (state | CdcFormat.LAST) : state);
+            offset += Integer.BYTES + length;
+            if (last) {
+                break;
+            }
+        }
+        prepared--;
+        notifyAll();
+    }
+
+    /**
+     * Resolves the transactions that the previous writer appended but did not resolve (it stopped
+     * between their append and their commit): {@code committed} tells, from their records, whether
+     * the database has them.
+     */
+    synchronized void resolveInDoubt(Predicate<List<ChangeRecord>> committed) {
+        for (long start : inDoubt) {
+            List<ChangeRecord> transaction = new ArrayList<>();
+            for (long offset = start; ; ) {
+                int length = CdcFormat.length(segment, offset);
+                transaction.add(CdcFormat.read(segment, offset));
+                if ((segment.get(ValueLayout.JAVA_BYTE, offset + CdcFormat.STATE) & CdcFormat.LAST) != 0) {
+                    break;
+                }
+                offset += Integer.BYTES + length;
+            }
+            resolve(start, committed.test(transaction));
+        }
+        inDoubt.clear();
+    }
+
+    private void awaitResolved() {
+        try {
+            wait();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for prepared transactions before a roll", ex);
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(nextSequence - 1, records, bytes, segmentFiles().size(), rolls, appends,
+                appends == 0 ? 0 : appendNanos / appends, maxAppendNanos);
+    }
+
+    /**
+     * Closes the log when the last user that opened it closes it. Prepared transactions stay in
+     * doubt until the next writer resolves them.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (OPEN) {
+            if (users == 0 || --users > 0) {
+                return;
+            }
+            OPEN.remove(directory);
+        }
+        closeSegments();
+    }
+
+    private synchronized void closeSegments() throws IOException {
+        segment.force();
+        arena.close();
+        arena = null;
+        FileChannel active = channel;
+        try (active; lockChannel) {
+            lock.release();
+        }
+    }
+
+    // ---- Segments ----------------------------------------------------------
+
+    /**
+     * Maps the last segment and finds the end of its records; the bytes after it (a record cut
+     * by a crash before its length was written) are cleared. Prepared transactions are in doubt,
+     * except one cut by the crash before its last record: it was not committed.
+     */
+    private void recover() throws IOException {
+        List<Path> segments = segmentFiles();
+        if (segments.isEmpty()) {
+            create(1);
+            return;
+        }
+        Path last = segments.getLast();
+        map(last);
+        CdcFormat.checkHeader(segment, last);
+        nextSequence = CdcFormat.firstSequence(last);
+        position = CdcFormat.HEADER_SIZE;
+        long transaction = position;
+        for (int length = CdcFormat.length(segment, position); length > 0; length = CdcFormat.length(segment, position)) {
+            nextSequence = CdcFormat.sequence(segment, position) + 1;
+            if (position == transaction && CdcFormat.state(segment, position) == CdcFormat.PREPARED) {
+                inDoubt.add(position);
+                prepared++;
+            }
+            boolean ends = (segment.get(ValueLayout.JAVA_BYTE, position + CdcFormat.STATE) & CdcFormat.LAST) != 0;
+            position += Integer.BYTES + length;
+            if (ends) {
+                transaction = position;
+            }
+        }
+        if (transaction != position && inDoubt.remove(transaction)) {
+            resolve(transaction, false);
+        }
+        if (CdcFormat.length(segment, position) == CdcFormat.NEXT_SEGMENT) {
+            closeSegment(position + Integer.BYTES);
+            create(nextSequence);
+        } else {
+            segment.asSlice(position).fill((byte) 0);
+        }
+    }
+
+    private void roll() {
+        try {
+            segment.set(CdcFormat.INT, position, CdcFormat.NEXT_SEGMENT);
+            segment.force();
+            closeSegment(position + Integer.BYTES);
+            create(nextSequence);
+            rolls++;
+            deleteExpiredSegments();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void create(long firstSequence) throws IOException {
+        map(CdcFormat.segmentFile(directory, firstSequence));
+        CdcFormat.writeHeader(segment, firstSequence);
+        nextSequence = firstSequence;
+        position = CdcFormat.HEADER_SIZE;
+    }
+
+    private void map(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        arena = Arena.ofShared();
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize, arena);
+    }
+
+    /**
+     * Unmaps the active segment and truncates it to {@code size} bytes, its content and end marker.
+     */
+    private void closeSegment(long size) throws IOException {
+        arena.close();
+        arena = null;
+        try (FileChannel rolled = channel) {
+            rolled.truncate(size);
+        }
+    }
+
+    private void deleteExpiredSegments() throws IOException {
+        FileTime expiry = FileTime.from(Instant.now().minus(retention));
+        List<Path> segments = segmentFiles();
+        for (Path file : segments.subList(0, segments.size() - 1)) {
+            if (Files.getLastModifiedTime(file).compareTo(expiry) < 0) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private List<Path> segmentFiles() {
+        return segmentFiles(directory);
+    }
+
+    /**
+     * Segment files of {@code directory}, oldest first.
+     */
+    static List<Path> segmentFiles(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> CdcFormat.firstSequence(file) > 0)
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
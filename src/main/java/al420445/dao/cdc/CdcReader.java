@@ -0,0 +1,176 @@
+package al420445.dao.cdc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tails the change log of a directory for one named consumer, in this JVM or another one.
+ *
+ * poll() returns the records committed since the last call (never blocks: an empty list means
+ * the consumer has caught up) and follows the log from segment to segment. It stops at the first
+ * record whose transaction is still committing, and skips the records of aborted transactions:
+ * their sequences are never returned. commit() stores the
+ * sequence of the last record returned in consumers/&lt;consumer&gt;.offset; a new reader of the
+ * same consumer starts right after it. If retention has deleted that part of the log, the reader
+ * starts at the oldest record left: compare ChangeRecord.sequence() with the expected one to
+ * detect the gap.
+ *
+ * Not thread-safe: one reader per consumer thread.
+ */
+public final class CdcReader implements AutoCloseable {
+
+    private final Path directory;
+    private final Path offsetFile;
+    private Arena arena;
+    private MemorySegment segment; // null until a segment of the log exists
+    private long segmentFirstSequence;
+    private long position;
+    private long lastSequence;
+
+    public CdcReader(Path directory, String consumer) throws IOException {
+        this.directory = directory;
+        this.offsetFile = directory.resolve("consumers").resolve(consumer + ".offset");
+        long committed = Files.exists(offsetFile) ? Long.parseLong(Files.readString(offsetFile).trim()) : 0;
+        seek(committed + 1);
+    }
+
+    /**
+     * Sequence of the last record returned by poll(), 0 if none.
+     */
+    public long position() {
+        return lastSequence;
+    }
+
+    /**
+     * Moves the reader so that the next poll() starts at {@code sequence}
+     * (or at the oldest record left, if retention has deleted it).
+     */
+    public void seek(long sequence) {
+        unmap();
+        lastSequence = sequence - 1;
+        List<Path> segments = CdcLog.segmentFiles(directory);
+        Path file = null;
+        for (Path candidate : segments) {
+            if (file == null || CdcFormat.firstSequence(candidate) <= sequence) {
+                file = candidate;
+            }
+        }
+        if (file == null || !map(file)) {
+            return;
+        }
+        lastSequence = Math.max(lastSequence, segmentFirstSequence - 1);
+        for (int length = length(); length > 0 && CdcFormat.sequence(segment, position) < sequence; length = length()) {
+            position += Integer.BYTES + length;
+        }
+    }
+
+    /**
+     * Up to {@code maxRecords} records following the last one returned, in sequence order.
+     */
+    public List<ChangeRecord> poll(int maxRecords) {
+        List<ChangeRecord> records = new ArrayList<>();
+        if (segment == null) {
+            seek(lastSequence + 1);
+            if (segment == null) {
+                return records;
+            }
+        }
+        while (records.size() < maxRecords) {
+            int length = length();
+            if (length == CdcFormat.END) {
+                break;
+            }
+            if (length == CdcFormat.NEXT_SEGMENT) {
+                if (!mapNextSegment()) break;
+                continue;
+            }
+            byte state = CdcFormat.state(segment, position);
+            if (state == CdcFormat.PREPARED) {
+                break; // its transaction is committing: the records after it wait for the outcome
+            }
+            if (state == CdcFormat.COMMITTED) {
+                records.add(CdcFormat.read(segment, position));
+            }
+            lastSequence = CdcFormat.sequence(segment, position);
+            position += Integer.BYTES + length;
+        }
+        return records;
+    }
+
+    /**
+     * Stores position() as the consumer's offset (written to a temporary file, then renamed).
+     */
+    public void commit() throws IOException {
+        Files.createDirectories(offsetFile.getParent());
+        Path temporary = offsetFile.resolveSibling(offsetFile.getFileName() + ".tmp");
+        Files.writeString(temporary, Long.toString(lastSequence));
+        Files.move(temporary, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+        unmap();
+    }
+
+    private int length() {
+        int length = CdcFormat.length(segment, position);
+        VarHandle.acquireFence(); // the length before the record
+        return length;
+    }
+
+    private boolean mapNextSegment() {
+        for (Path candidate : CdcLog.segmentFiles(directory)) {
+            if (CdcFormat.firstSequence(candidate) > segmentFirstSequence) {
+                unmap();
+                return map(candidate);
+            }
+        }
+        return false; // the writer has not created it yet
+    }
+
+    /**
+     * @return false if the file is not there anymore or the writer has not written its header yet
+     */
+    private boolean map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < CdcFormat.HEADER_SIZE) {
+                return false;
+            }
+            Arena mapped = Arena.ofShared();
+            MemorySegment content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), mapped);
+            if (content.get(CdcFormat.INT, 4) == 0) { // version, written after the magic
+                mapped.close();
+                return false;
+            }
+            CdcFormat.checkHeader(content, file);
+            arena = mapped;
+            segment = content;
+            segmentFirstSequence = CdcFormat.firstSequence(file);
+            position = CdcFormat.HEADER_SIZE;
+            return true;
+        } catch (NoSuchFileException ex) {
+            return false;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void unmap() {
+        if (arena != null) {
+            arena.close();
+            arena = null;
+            segment = null;
+        }
+    }
+}
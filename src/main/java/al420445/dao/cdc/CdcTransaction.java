@@ -0,0 +1,66 @@
+package al420445.dao.cdc;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Change records of one transaction, encoded when the change is flushed. They are appended to the
+ * log in beforeCompletion, after the last flush and before the database commit, while the
+ * transaction still holds its row locks, and resolved in afterCompletion (CdcLog): the commit
+ * only waits for a copy of bytes into the mapped segment. A failed append (a transaction larger
+ * than a segment) rolls the transaction back; a transaction rolled back before its commit leaves
+ * no record.
+ */
+final class CdcTransaction implements Synchronization {
+
+    private static final Map<SharedSessionContractImplementor, CdcTransaction> PENDING = new ConcurrentHashMap<>();
+
+    private final SharedSessionContractImplementor session;
+    private final CdcLog log;
+    private final RecordBuffer records = new RecordBuffer();
+    private long position = -1;
+
+    private CdcTransaction(SharedSessionContractImplementor session, CdcLog log) {
+        this.session = session;
+        this.log = log;
+    }
+
+    /**
+     * Records changes for the current transaction of the session (appended immediately without one).
+     * Events of a StatelessSession have no session (Hibernate 6.6): they are ignored.
+     */
+    static void record(SharedSessionContractImplementor session, CdcLog log, Consumer<RecordBuffer> changes) {
+        if (session == null) {
+            return;
+        }
+        if (!session.isTransactionInProgress()) {
+            RecordBuffer records = new RecordBuffer();
+            changes.accept(records);
+            log.append(records, true);
+            return;
+        }
+        changes.accept(PENDING.computeIfAbsent(session, owner -> {
+            CdcTransaction transaction = new CdcTransaction(owner, log);
+            owner.getTransactionCoordinator().getLocalSynchronizations().registerSynchronization(transaction);
+            return transaction;
+        }).records);
+    }
+
+    @Override
+    public void beforeCompletion() {
+        position = log.append(records, false);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        PENDING.remove(session);
+        if (position >= 0) {
+            log.resolve(position, status == Status.STATUS_COMMITTED);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package al420445.dao.cdc;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One committed change read from the log by CdcReader.
+ *
+ * @param sequence    position in the log: increasing, in commit order for the changes of a row
+ *                    (the sequences of aborted transactions are skipped)
+ * @param committedAt commit time of the transaction (taken just before its database commit)
+ * @param fields      inserted: the non-null fields; updated: the changed fields (null values included);
+ *                    deleted: none. Keys are CdcEntity.fields(), in that order
+ */
+public record ChangeRecord(long sequence, Instant committedAt, CdcEntity entity, Operation operation, long id,
+                           Map<String, Object> fields) {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE;
+
+        byte code() {
+            return (byte) (ordinal() + 1);
+        }
+
+        static Operation of(byte code) {
+            return values()[code - 1];
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package al420445.dao.cdc;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Records of one transaction, encoded as soon as the change happens: length (int) and body,
+ * without the sequence, commit time and state that CdcLog.append adds. Values are written as bytes
+ * directly: no String or byte[] is allocated per field.
+ */
+final class RecordBuffer {
+
+    private byte[] bytes = new byte[256];
+    private int size;
+    private int recordStart;
+    private int fieldCountOffset;
+    private int fieldCount;
+
+    int size() {
+        return size;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    void beginRecord(CdcEntity entity, ChangeRecord.Operation operation, long id) {
+        recordStart = size;
+        putInt(0); // length, set by endRecord()
+        put(entity.code());
+        put(operation.code());
+        putLong(id);
+        fieldCountOffset = size;
+        fieldCount = 0;
+        put((byte) 0);
+    }
+
+    void putField(int field, Object value) {
+        put((byte) field);
+        switch (value) {
+            case null -> put(CdcFormat.NULL);
+            case Long number -> putInteger(number);
+            case Integer number -> putInteger(number);
+            case LocalDate date -> {
+                put(CdcFormat.DATE);
+                putZigZag(date.toEpochDay());
+            }
+            default -> {
+                put(CdcFormat.STRING);
+                putString(value.toString());
+            }
+        }
+        fieldCount++;
+    }
+
+    void endRecord() {
+        bytes[fieldCountOffset] = (byte) fieldCount;
+        int length = size - recordStart - Integer.BYTES;
+        bytes[recordStart] = (byte) (length >>> 24);
+        bytes[recordStart + 1] = (byte) (length >>> 16);
+        bytes[recordStart + 2] = (byte) (length >>> 8);
+        bytes[recordStart + 3] = (byte) length;
+    }
+
+    /**
+     * Body length of the record starting at {@code offset}.
+     */
+    int length(int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8 | bytes[offset + 3] & 0xFF;
+    }
+
+    private void putInteger(long value) {
+        put(CdcFormat.INTEGER);
+        putZigZag(value);
+    }
+
+    /**
+     * Varint length, then UTF-8 without going through String.getBytes().
+     */
+    private void putString(String value) {
+        int length = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        putVarLong(length);
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                put((byte) c);
+            } else if (c < 0x800) {
+                put((byte) (0xC0 | c >> 6));
+                put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                put((byte) (0xF0 | codePoint >> 18));
+                put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                put((byte) (0xE0 | c >> 12));
+                put((byte) (0x80 | c >> 6 & 0x3F));
+                put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private void putZigZag(long value) {
+        putVarLong(value << 1 ^ value >> 63);
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        put((byte) value);
+    }
+
+    private void putInt(int value) {
+        put((byte) (value >>> 24));
+        put((byte) (value >>> 16));
+        put((byte) (value >>> 8));
+        put((byte) value);
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    private void put(byte b) {
+        if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, 2 * size);
+        }
+        bytes[size++] = b;
+    }
+}
@@ -1,5 +1,7 @@
 package al420445.dao.examples;
 
+import al420445.dao.tx.ReadOnlyTransactionalDao;
+import al420445.dao.tx.RetryingTransactionalDao;
 import al420445.dao.tx.TransactionalDao;
 
 import al420445.airport.Airport;
@@ -28,9 +30,10 @@ public class AirportDaoExamples {
 
     /**
      * Example 2: Updating an entity
+     * (re-run if a concurrent transaction updated the airport first: @Version conflict)
      */
     public void updateAirportName(Long airportId, String newName) {
-        new TransactionalDao<Void>() {
+        new RetryingTransactionalDao<Void>() {
             @Override
             protected Void executeInTransaction(EntityManager em) {
                 Airport airport = em.find(Airport.class, airportId);
@@ -61,14 +64,13 @@ public class AirportDaoExamples {
 
     /**
      * Example 4: Returning a primitive/wrapper type
+     * (query only: ReadOnlyTransactionalDao skips dirty checking and flushing)
      */
     public Long countPassengers(Long airportId) {
-        return new TransactionalDao<Long>() {
+        return new ReadOnlyTransactionalDao<Long>() {
             @Override
             protected Long executeInTransaction(EntityManager em) {
-                return em.createQuery(
-                    "select count(p) from Passenger p where p.airport.id = :airportId",
-                    Long.class)
+                return em.createNamedQuery(Passenger.COUNT_BY_AIRPORT, Long.class)
                     .setParameter("airportId", airportId)
                     .getSingleResult();
             }
@@ -77,9 +79,10 @@ public class AirportDaoExamples {
 
     /**
      * Example 5: Transferring a passenger between airports
+     * (re-run if a concurrent transaction moved the same passenger first)
      */
     public void transferPassenger(Long passengerId, Long newAirportId) {
-        new TransactionalDao<Void>() {
+        new RetryingTransactionalDao<Void>() {
             @Override
             protected Void executeInTransaction(EntityManager em) {
                 Passenger passenger = em.find(Passenger.class, passengerId);
@@ -98,12 +101,10 @@ public class AirportDaoExamples {
      * Example 6: Returning a boolean result
      */
     public boolean airportExists(String name) {
-        return new TransactionalDao<Boolean>() {
+        return new ReadOnlyTransactionalDao<Boolean>() {
             @Override
             protected Boolean executeInTransaction(EntityManager em) {
-                Long count = em.createQuery(
-                    "select count(a) from Airport a where a.name = :name",
-                    Long.class)
+                Long count = em.createNamedQuery(Airport.COUNT_BY_NAME, Long.class)
                     .setParameter("name", name)
                     .getSingleResult();
                 return count > 0;
@@ -27,9 +27,10 @@ public class FunctionalInterfaceExamples {
 
     /**
      * Example 2: Updating an entity
+     * (re-run if a concurrent transaction updated the airport first: @Version conflict)
      */
     public void updateAirportName(Long airportId, String newName) {
-        TransactionExecutor.executeInTransaction(em -> {
+        TransactionExecutor.executeWithRetry(em -> {
             Airport airport = em.find(Airport.class, airportId);
             if (airport != null) {
                 airport.setName(newName);
@@ -53,12 +54,11 @@ public class FunctionalInterfaceExamples {
 
     /**
      * Example 4: Returning a primitive/wrapper type
+     * (query only: executeReadOnly skips dirty checking and flushing)
      */
     public Long countPassengers(Long airportId) {
-        return TransactionExecutor.executeInTransaction(em -> {
-            return em.createQuery(
-                "select count(p) from Passenger p where p.airport.id = :airportId",
-                Long.class)
+        return TransactionExecutor.executeReadOnly(em -> {
+            return em.createNamedQuery(Passenger.COUNT_BY_AIRPORT, Long.class)
                 .setParameter("airportId", airportId)
                 .getSingleResult();
         });
@@ -66,9 +66,10 @@ public class FunctionalInterfaceExamples {
 
     /**
      * Example 5: Transferring a passenger between airports
+     * (re-run if a concurrent transaction moved the same passenger first)
      */
     public void transferPassenger(Long passengerId, Long newAirportId) {
-        TransactionExecutor.executeInTransaction(em -> {
+        TransactionExecutor.executeWithRetry(em -> {
             Passenger passenger = em.find(Passenger.class, passengerId);
             Airport newAirport = em.find(Airport.class, newAirportId);
 
@@ -83,10 +84,8 @@ public class FunctionalInterfaceExamples {
      * Example 6: Returning a boolean result
      */
     public boolean airportExists(String name) {
-        return TransactionExecutor.executeInTransaction(em -> {
-            Long count = em.createQuery(
-                "select count(a) from Airport a where a.name = :name",
-                Long.class)
+        return TransactionExecutor.executeReadOnly(em -> {
+            Long count = em.createNamedQuery(Airport.COUNT_BY_NAME, Long.class)
                 .setParameter("name", name)
                 .getSingleResult();
             return count > 0;
@@ -0,0 +1,132 @@
+package al420445.dao.export;
+
+import java.time.LocalDate;
+
+/**
+ * Destination of the manifest encoders. Values are written as bytes directly:
+ * no per-row String, StringBuilder or byte[] is allocated.
+ */
+abstract class ByteSink {
+
+    abstract void put(byte b);
+
+    abstract void put(byte[] src, int offset, int length);
+
+    /**
+     * UTF-8 without going through String.getBytes(); ASCII takes the first branch.
+     */
+    final void putUtf8(CharSequence value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                put((byte) c);
+            } else if (c < 0x800) {
+                put((byte) (0xC0 | c >> 6));
+                put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                put((byte) (0xF0 | codePoint >> 18));
+                put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                put((byte) (0xE0 | c >> 12));
+                put((byte) (0x80 | c >> 6 & 0x3F));
+                put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Number of bytes putUtf8 would write.
+     */
+    static int utf8Length(CharSequence value) {
+        int length = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Decimal text, without Long.toString().
+     */
+    final void putDecimal(long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                putUtf8("-9223372036854775808");
+                return;
+            }
+            put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * ISO date (yyyy-MM-dd) for years 0..9999.
+     */
+    final void putIsoDate(LocalDate date) {
+        putDigits(date.getYear(), 4);
+        put((byte) '-');
+        putDigits(date.getMonthValue(), 2);
+        put((byte) '-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    private void putDigits(int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Unsigned LEB128: 1 byte up to 127, 2 bytes up to 16383...
+     */
+    final void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        put((byte) value);
+    }
+
+    /**
+     * Signed values (deltas) zig-zag encoded so small negatives stay small.
+     */
+    final void putZigZag(long value) {
+        putVarLong(zigZag(value));
+    }
+
+    static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    final void putInt(int value) {
+        put((byte) (value >>> 24));
+        put((byte) (value >>> 16));
+        put((byte) (value >>> 8));
+        put((byte) value);
+    }
+
+    final void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+}
@@ -0,0 +1,46 @@
+package al420445.dao.export;
+
+import java.util.Arrays;
+
+/**
+ * One column of the current row group. Reused from one row group to the next,
+ * so its array only grows to the size of the largest group.
+ */
+final class ColumnBuffer extends ByteSink {
+
+    private byte[] bytes = new byte[4096];
+    private int size;
+
+    @Override
+    void put(byte b) {
+        if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, size * 2);
+        }
+        bytes[size++] = b;
+    }
+
+    @Override
+    void put(byte[] src, int offset, int length) {
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(size * 2, size + length));
+        }
+        System.arraycopy(src, offset, bytes, size, length);
+        size += length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeTo(ByteSink sink) {
+        sink.put(bytes, 0, size);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,133 @@
+package al420445.dao.export;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Reads back a file written in ManifestFormat.COLUMNAR (format described in ColumnarManifestWriter).
+ * One row group is in memory at a time.
+ */
+public final class ColumnarManifestReader {
+
+    /**
+     * Airport of the manifest, read from the file header.
+     */
+    public record Header(long airportId, String airportName) {
+    }
+
+    private ColumnarManifestReader() {
+    }
+
+    /**
+     * Calls {@code action} for each row (the same ManifestRow instance is reused) and returns the row count.
+     *
+     * @throws IOException if the file is not a columnar manifest or is truncated
+     */
+    public static long read(Path file, Consumer<Header> header, Consumer<ManifestRow> action) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            byte[] magic = in.readNBytes(4);
+            if (!Arrays.equals(magic, ColumnarManifestWriter.MAGIC) || in.readInt() != ColumnarManifestWriter.VERSION) {
+                throw new IOException(file + " is not a columnar manifest (version " + ColumnarManifestWriter.VERSION + ")");
+            }
+            long airportId = in.readLong();
+            String airportName = readString(in);
+            header.accept(new Header(airportId, airportName));
+
+            ManifestRow row = new ManifestRow();
+            Column[] columns = new Column[ColumnarManifestWriter.COLUMNS];
+            long rows = 0;
+            int groupRows;
+            while ((groupRows = in.readInt()) > 0) {
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = new Column(in.readNBytes(in.readInt()));
+                }
+                long passengerId = 0;
+                for (int r = 0; r < groupRows; r++) {
+                    passengerId += unZigZag(columns[0].varLong());
+                    row.passengerId = passengerId;
+                    row.name = columns[1].string(row.name);
+                    row.street = columns[2].string(row.street);
+                    row.city = columns[3].string(row.city);
+                    row.province = columns[4].string(row.province);
+                    row.postalCode = columns[5].string(row.postalCode);
+                    row.ticketType = switch (columns[6].bytes[columns[6].position++]) {
+                        case 0 -> null;
+                        case 1 -> "OneWay";
+                        case 2 -> "Return";
+                        default -> throw new IOException("Invalid ticket type in " + file);
+                    };
+                    row.ticketNumber = columns[7].string(row.ticketNumber);
+                    long date = columns[8].varLong();
+                    row.ticketDate = date == ColumnarManifestWriter.NULL ? null : LocalDate.ofEpochDay(unZigZag(date - 1));
+                    action.accept(row);
+                }
+                rows += groupRows;
+            }
+            long expected = in.readLong();
+            if (expected != rows) {
+                throw new IOException(file + ": footer says " + expected + " rows but " + rows + " were read");
+            }
+            return rows;
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        long length = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            length |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return length == ColumnarManifestWriter.NULL
+                ? null
+                : new String(in.readNBytes((int) length - 2), StandardCharsets.UTF_8);
+    }
+
+    private static long unZigZag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static final class Column {
+        private final byte[] bytes;
+        private int position;
+
+        Column(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long varLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        String string(String previous) {
+            long code = varLong();
+            if (code == ColumnarManifestWriter.NULL) {
+                return null;
+            }
+            if (code == ColumnarManifestWriter.SAME_AS_PREVIOUS) {
+                return previous;
+            }
+            int length = (int) code - 2;
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package al420445.dao.export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Compact binary columnar manifest. Rows are buffered in row groups of ROW_GROUP_SIZE;
+ * each group is written column after column, so memory is bounded by one group.
+ *
+ * <pre>
+ * header    : "AMNF" | version (int) | airport id (long) | airport name (string)
+ * row group : row count (int &gt; 0) | 9 x [column size in bytes (int) | column bytes]
+ * footer    : 0 (int) | total rows (long)
+ * </pre>
+ * Columns, in order (varint = unsigned LEB128, int/long = big-endian):
+ * <ol>
+ *   <li>passenger id: zig-zag varint delta from the previous row of the group (0 for the other tickets of a passenger)</li>
+ *   <li>name, street, city, province, postal code, ticket number: string</li>
+ *   <li>ticket type: 1 byte, 0 = no ticket, 1 = OneWay, 2 = Return</li>
+ *   <li>ticket date: varint, 0 = null, otherwise zig-zag(epoch day) + 1</li>
+ * </ol>
+ * A string is a varint: 0 = null, 1 = same value as the previous row of the group,
+ * n + 2 = n bytes of UTF-8 follow. Repeated passenger columns and cities cost one byte.
+ */
+final class ColumnarManifestWriter implements ManifestWriter {
+
+    static final byte[] MAGIC = "AMNF".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int ROW_GROUP_SIZE = 65_536;
+    static final int COLUMNS = 9;
+
+    static final int NULL = 0;
+    static final int SAME_AS_PREVIOUS = 1;
+
+    private final MappedFileSink sink;
+    private final ColumnBuffer[] columns = new ColumnBuffer[COLUMNS];
+    private final String[] previous = new String[COLUMNS];
+    private long previousPassengerId;
+    private int groupRows;
+    private long totalRows;
+
+    ColumnarManifestWriter(Path file, long airportId, String airportName) throws IOException {
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = new ColumnBuffer();
+        }
+        sink = new MappedFileSink(file);
+        sink.put(MAGIC, 0, MAGIC.length);
+        sink.putInt(VERSION);
+        sink.putLong(airportId);
+        putString(sink, airportName);
+    }
+
+    @Override
+    public void write(ManifestRow row) {
+        columns[0].putZigZag(row.passengerId - previousPassengerId);
+        previousPassengerId = row.passengerId;
+        putString(1, row.name);
+        putString(2, row.street);
+        putString(3, row.city);
+        putString(4, row.province);
+        putString(5, row.postalCode);
+        columns[6].put(ticketTypeCode(row.ticketType));
+        putString(7, row.ticketNumber);
+        columns[8].putVarLong(row.ticketDate == null ? NULL : ByteSink.zigZag(row.ticketDate.toEpochDay()) + 1);
+
+        if (++groupRows == ROW_GROUP_SIZE) {
+            flushGroup();
+        }
+    }
+
+    private void putString(int column, String value) {
+        if (value != null && groupRows > 0 && value.equals(previous[column])) {
+            columns[column].putVarLong(SAME_AS_PREVIOUS);
+        } else {
+            putString(columns[column], value);
+        }
+        previous[column] = value;
+    }
+
+    private static void putString(ByteSink out, String value) {
+        if (value == null) {
+            out.putVarLong(NULL);
+        } else {
+            out.putVarLong(ByteSink.utf8Length(value) + 2L);
+            out.putUtf8(value);
+        }
+    }
+
+    static byte ticketTypeCode(String ticketType) {
+        if (ticketType == null) return 0;
+        return switch (ticketType) {
+            case "OneWay" -> 1;
+            case "Return" -> 2;
+            default -> throw new IllegalArgumentException("Unknown ticket type " + ticketType);
+        };
+    }
+
+    private void flushGroup() {
+        if (groupRows == 0) {
+            return;
+        }
+        sink.putInt(groupRows);
+        for (ColumnBuffer column : columns) {
+            sink.putInt(column.size());
+            column.writeTo(sink);
+            column.clear();
+        }
+        totalRows += groupRows;
+        groupRows = 0;
+        previousPassengerId = 0;
+    }
+
+    @Override
+    public long bytes() {
+        return sink.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (sink) {
+            flushGroup();
+            sink.putInt(0);
+            sink.putLong(totalRows);
+        }
+    }
+}
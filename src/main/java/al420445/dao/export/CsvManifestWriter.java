@@ -0,0 +1,95 @@
+package al420445.dao.export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * airport_id,airport_name,passenger_id,name,street,city,province,postal_code,ticket_type,ticket_number,ticket_date
+ *
+ * Fields containing a comma, a quote or a line break are double-quoted; null is an empty field.
+ */
+final class CsvManifestWriter implements ManifestWriter {
+
+    private static final byte[] HEADER = ("airport_id,airport_name,passenger_id,name,street,city,province,"
+            + "postal_code,ticket_type,ticket_number,ticket_date\n").getBytes(StandardCharsets.US_ASCII);
+
+    private final MappedFileSink sink;
+    // The airport columns are the same on every row: encoded once
+    private final byte[] airportPrefix;
+
+    CsvManifestWriter(Path file, long airportId, String airportName) throws IOException {
+        sink = new MappedFileSink(file);
+        sink.put(HEADER, 0, HEADER.length);
+        ColumnBuffer prefix = new ColumnBuffer();
+        prefix.putDecimal(airportId);
+        prefix.put((byte) ',');
+        putField(prefix, airportName);
+        prefix.put((byte) ',');
+        airportPrefix = prefix.toByteArray();
+    }
+
+    @Override
+    public void write(ManifestRow row) {
+        sink.put(airportPrefix, 0, airportPrefix.length);
+        sink.putDecimal(row.passengerId);
+        sink.put((byte) ',');
+        putField(sink, row.name);
+        sink.put((byte) ',');
+        putField(sink, row.street);
+        sink.put((byte) ',');
+        putField(sink, row.city);
+        sink.put((byte) ',');
+        putField(sink, row.province);
+        sink.put((byte) ',');
+        putField(sink, row.postalCode);
+        sink.put((byte) ',');
+        putField(sink, row.ticketType);
+        sink.put((byte) ',');
+        putField(sink, row.ticketNumber);
+        sink.put((byte) ',');
+        if (row.ticketDate != null) {
+            sink.putIsoDate(row.ticketDate);
+        }
+        sink.put((byte) '\n');
+    }
+
+    private static void putField(ByteSink out, String value) {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.putUtf8(value);
+            return;
+        }
+        out.put((byte) '"');
+        int from = 0;
+        for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', from)) {
+            out.putUtf8(value.subSequence(from, i + 1));
+            out.put((byte) '"');
+            from = i + 1;
+        }
+        out.putUtf8(value.subSequence(from, value.length()));
+        out.put((byte) '"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long bytes() {
+        return sink.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sink.close();
+    }
+}
@@ -0,0 +1,49 @@
+package al420445.dao.export;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Result of ManifestExporter.exportAll().
+ *
+ * @param airports one entry per exported file, in airport id order
+ * @param elapsed  wall-clock time of the whole export (airports run in parallel)
+ */
+public record ExportReport(List<AirportExport> airports, Duration elapsed) {
+
+    public long rows() {
+        return airports.stream().mapToLong(AirportExport::rows).sum();
+    }
+
+    public long bytes() {
+        return airports.stream().mapToLong(AirportExport::bytes).sum();
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return String.format("%d airports, %,d rows, %,.1f MB in %.2f s -> %,.0f rows/s",
+                airports.size(), rows(), bytes() / (1024.0 * 1024), seconds, seconds == 0 ? 0 : rows() / seconds);
+    }
+
+    /**
+     * @param rows    manifest rows (one per ticket, one per passenger without ticket)
+     * @param bytes   size of the file
+     * @param elapsed time to export this airport
+     */
+    public record AirportExport(long airportId, Path file, long rows, long bytes, Duration elapsed) {
+
+        public double rowsPerSecond() {
+            double seconds = elapsed.toNanos() / 1_000_000_000.0;
+            return seconds == 0 ? 0 : rows / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("airport %-4d %,12d rows %,10.1f MB in %6.2f s -> %,10.0f rows/s  %s",
+                    airportId, rows, bytes / (1024.0 * 1024), elapsed.toNanos() / 1_000_000_000.0,
+                    rowsPerSecond(), file.getFileName());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package al420445.dao.export;
+
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.ReturnTicket;
+import al420445.dao.base.JpaUtil;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exports passenger manifests (passenger, address, ticket number and date), one file per airport.
+ *
+ * Unlike walking Airport.getPassengers() then Passenger.getTickets() (see Ex08), each airport is
+ * read with a single joined query, scrolled forward-only from a StatelessSession: nothing is kept
+ * in a persistence context and no lazy loading fires. Rows are encoded straight to bytes in a
+ * memory-mapped file (see MappedFileSink), so the heap used does not depend on the number of tickets.
+ * Airports are exported in parallel, each on its own connection.
+ */
+public class ManifestExporter {
+
+    // Left join: passengers without ticket get one row with null ticket columns.
+    // Single-table inheritance: the treat() are just two columns of the TICKET table.
+    private static final String MANIFEST_QUERY = """
+            select p.id, p.name, p.address.street, p.address.city, p.address.province, p.address.postalCode,
+                   type(t), t.number,
+                   coalesce(treat(t as OneWayTicket).latestDepartureDate, treat(t as ReturnTicket).latestReturnDate)
+            from Passenger p left join p.tickets t
+            where p.airport.id = :airportId
+            order by p.id, t.id
+            """;
+
+    private final int parallelism;
+
+    /**
+     * @param parallelism airports exported at the same time (each holds a pooled connection)
+     */
+    public ManifestExporter(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public ManifestExporter() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Exports every airport to {@code directory}/airport-&lt;id&gt;.&lt;extension&gt;.
+     */
+    public ExportReport exportAll(Path directory, ManifestFormat format) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        List<Long> airportIds;
+        try (StatelessSession session = sessionFactory().openStatelessSession()) {
+            airportIds = session.createSelectionQuery("select a.id from Airport a order by a.id", Long.class)
+                    .getResultList();
+        }
+
+        List<Future<ExportReport.AirportExport>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("manifest-export-", 0).factory())) {
+            for (long airportId : airportIds) {
+                Path file = directory.resolve("airport-" + airportId + "." + format.extension());
+                futures.add(executor.submit(() -> export(airportId, file, format)));
+            }
+            List<ExportReport.AirportExport> exports = new ArrayList<>();
+            for (Future<ExportReport.AirportExport> future : futures) {
+                exports.add(future.get());
+            }
+            return new ExportReport(exports, Duration.ofNanos(System.nanoTime() - start));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            if (ex.getCause() instanceof IOException io) throw io;
+            if (ex.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Exports the manifest of one airport.
+     *
+     * @throws IllegalArgumentException if the airport does not exist
+     */
+    public ExportReport.AirportExport export(long airportId, Path file, ManifestFormat format) throws IOException {
+        long start = System.nanoTime();
+        long rows = 0;
+        try (StatelessSession session = sessionFactory().openStatelessSession()) {
+            // Inside a transaction so PostgreSQL streams with the fetch size instead of buffering the result
+            Transaction tx = session.beginTransaction();
+            try {
+                Airport airport = session.get(Airport.class, airportId);
+                if (airport == null) {
+                    throw new IllegalArgumentException("Unknown airport " + airportId);
+                }
+                ManifestWriter writer = format.open(file, airportId, airport.getName());
+                try (writer;
+                     ScrollableResults<Object[]> results = session.createSelectionQuery(MANIFEST_QUERY, Object[].class)
+                             .setParameter("airportId", airportId)
+                             .setFetchSize(JpaUtil.FETCH_SIZE)
+                             .scroll(ScrollMode.FORWARD_ONLY)) {
+                    ManifestRow row = new ManifestRow();
+                    while (results.next()) {
+                        fill(row, results.get());
+                        writer.write(row);
+                        rows++;
+                    }
+                }
+                tx.commit();
+                return new ExportReport.AirportExport(airportId, file, rows, writer.bytes(),
+                        Duration.ofNanos(System.nanoTime() - start));
+            } catch (RuntimeException | IOException ex) {
+                if (tx.isActive()) tx.rollback();
+                throw ex;
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static void fill(ManifestRow row, Object[] tuple) {
+        row.passengerId = (Long) tuple[0];
+        row.name = (String) tuple[1];
+        row.street = (String) tuple[2];
+        row.city = (String) tuple[3];
+        row.province = (String) tuple[4];
+        row.postalCode = (String) tuple[5];
+        row.ticketType = ticketType((Class<?>) tuple[6]);
+        row.ticketNumber = (String) tuple[7];
+        row.ticketDate = (LocalDate) tuple[8];
+    }
+
+    private static String ticketType(Class<?> type) {
+        if (type == null) return null;
+        if (type == OneWayTicket.class) return "OneWay";
+        if (type == ReturnTicket.class) return "Return";
+        throw new IllegalArgumentException("Unknown ticket type " + type.getName());
+    }
+
+    private static SessionFactory sessionFactory() {
+        return JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class);
+    }
+}
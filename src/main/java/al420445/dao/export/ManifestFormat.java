@@ -0,0 +1,43 @@
+package al420445.dao.export;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Output formats of ManifestExporter.
+ */
+public enum ManifestFormat {
+
+    /**
+     * One line per ticket, readable by any spreadsheet. See CsvManifestWriter.
+     */
+    CSV("csv") {
+        @Override
+        ManifestWriter open(Path file, long airportId, String airportName) throws IOException {
+            return new CsvManifestWriter(file, airportId, airportName);
+        }
+    },
+
+    /**
+     * Binary row groups stored column by column, several times smaller than the CSV.
+     * Read it back with ColumnarManifestReader.
+     */
+    COLUMNAR("amc") {
+        @Override
+        ManifestWriter open(Path file, long airportId, String airportName) throws IOException {
+            return new ColumnarManifestWriter(file, airportId, airportName);
+        }
+    };
+
+    private final String extension;
+
+    ManifestFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    abstract ManifestWriter open(Path file, long airportId, String airportName) throws IOException;
+}
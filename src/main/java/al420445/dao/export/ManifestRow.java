@@ -0,0 +1,77 @@
+package al420445.dao.export;
+
+import java.time.LocalDate;
+
+/**
+ * One line of a manifest: a passenger and one of their tickets.
+ * Passengers without tickets have a single row with the ticket columns null.
+ *
+ * The exporter and ColumnarManifestReader reuse one instance for every row:
+ * copy the values out if they must outlive the callback.
+ */
+public final class ManifestRow {
+
+    long passengerId;
+    String name;
+    String street;
+    String city;
+    String province;
+    String postalCode;
+    String ticketType;
+    String ticketNumber;
+    LocalDate ticketDate;
+
+    public long getPassengerId() {
+        return passengerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getStreet() {
+        return street;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getProvince() {
+        return province;
+    }
+
+    public String getPostalCode() {
+        return postalCode;
+    }
+
+    /**
+     * "OneWay", "Return", or null when the passenger has no ticket.
+     */
+    public String getTicketType() {
+        return ticketType;
+    }
+
+    public String getTicketNumber() {
+        return ticketNumber;
+    }
+
+    /**
+     * Latest departure date (OneWay) or latest return date (Return).
+     */
+    public LocalDate getTicketDate() {
+        return ticketDate;
+    }
+
+    @Override
+    public String toString() {
+        return "ManifestRow{" +
+                "passengerId=" + passengerId +
+                ", name='" + name + '\'' +
+                ", city='" + city + '\'' +
+                ", ticketType='" + ticketType + '\'' +
+                ", ticketNumber='" + ticketNumber + '\'' +
+                ", ticketDate=" + ticketDate +
+                '}';
+    }
+}
@@ -0,0 +1,19 @@
+package al420445.dao.export;
+
+import java.io.IOException;
+
+/**
+ * Encoder of one manifest file, created by ManifestFormat.open().
+ */
+interface ManifestWriter extends AutoCloseable {
+
+    void write(ManifestRow row);
+
+    /**
+     * Size of the file once closed.
+     */
+    long bytes();
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,83 @@
+package al420445.dao.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a file through a sliding memory-mapped window of the FileChannel.
+ *
+ * Each window is mapped in its own Arena and unmapped as soon as it is full,
+ * instead of waiting for the GC like FileChannel.map(mode, position, size) does:
+ * exporting a multi-GB file keeps a single window mapped.
+ * The file is truncated to the bytes actually written on close().
+ */
+final class MappedFileSink extends ByteSink implements AutoCloseable {
+
+    static final long WINDOW_SIZE = 32L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private Arena arena;
+    private ByteBuffer window;
+    private long windowStart;
+
+    MappedFileSink(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(0);
+    }
+
+    private void map(long position) {
+        if (arena != null) {
+            arena.close();
+        }
+        try {
+            arena = Arena.ofConfined();
+            window = channel.map(FileChannel.MapMode.READ_WRITE, position, WINDOW_SIZE, arena).asByteBuffer();
+            windowStart = position;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    void put(byte b) {
+        if (!window.hasRemaining()) {
+            map(windowStart + WINDOW_SIZE);
+        }
+        window.put(b);
+    }
+
+    @Override
+    void put(byte[] src, int offset, int length) {
+        while (length > 0) {
+            if (!window.hasRemaining()) {
+                map(windowStart + WINDOW_SIZE);
+            }
+            int n = Math.min(length, window.remaining());
+            window.put(src, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Bytes written so far.
+     */
+    long position() {
+        return windowStart + window.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        long size = position();
+        try (channel) {
+            arena.close();
+            channel.truncate(size);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package al420445.dao.importer;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Checkpoint of one import: number of lines of the file whose rows are committed.
+ * Written by PassengerImporter in the transaction that inserts those rows, so it never
+ * runs ahead of or behind the data.
+ */
+@Entity
+@Table(name = "IMPORT_CHECKPOINTS")
+public class ImportCheckpoint {
+
+    @Id
+    @Column(name = "NAME", length = 255)
+    private String name;
+
+    @Column(name = "LINES_DONE", nullable = false)
+    private long linesDone;
+
+    public ImportCheckpoint(String name, long linesDone) {
+        this.name = name;
+        this.linesDone = linesDone;
+    }
+
+    protected ImportCheckpoint() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getLinesDone() {
+        return linesDone;
+    }
+}
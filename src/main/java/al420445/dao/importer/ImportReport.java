@@ -0,0 +1,31 @@
+package al420445.dao.importer;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Result of PassengerImporter.importFile().
+ *
+ * @param resumedFromLine number of lines skipped because a previous run had already committed them
+ * @param stages          throughput of each pipeline stage (read, parse, write)
+ */
+public record ImportReport(long resumedFromLine, List<StageReport> stages) {
+
+    /**
+     * @param rows    lines read, records parsed, or rows inserted (passengers + tickets)
+     * @param elapsed time from the start of the import until the stage finished
+     */
+    public record StageReport(String stage, long rows, Duration elapsed) {
+
+        public double rowsPerSecond() {
+            double seconds = elapsed.toNanos() / 1_000_000_000.0;
+            return seconds == 0 ? 0 : rows / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-6s %,12d rows in %6.2f s -> %,10.0f rows/s",
+                    stage, rows, elapsed.toNanos() / 1_000_000_000.0, rowsPerSecond());
+        }
+    }
+}
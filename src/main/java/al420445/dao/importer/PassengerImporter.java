@@ -0,0 +1,308 @@
+package al420445.dao.importer;
+
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.ReturnTicket;
+import al420445.airport.Ticket;
+import al420445.dao.base.JpaUtil;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Imports passengers and their tickets from a CSV or NDJSON file (see RecordFormat).
+ *
+ * Pipeline:
+ * <pre>
+ * reader thread --[bounded queue]--> N parser threads --[bounded queue]--> writer (calling thread)
+ * </pre>
+ * - Lines travel in chunks; the bounded queues keep memory flat whatever the file size. Parsers
+ *   finish out of order and the writer holds early chunks until the next one in sequence arrives:
+ *   at most 2 * queueCapacity + parserThreads chunks are in flight, the reader waits beyond that.
+ * - The writer inserts through a StatelessSession (no persistence context) with JDBC batching.
+ * - Every commitEvery records the writer saves the number of lines done in an ImportCheckpoint row
+ *   and commits: the checkpoint and the rows it covers are committed together. A new run with the
+ *   same checkpoint name resumes after the last commit, without inserting a line twice.
+ */
+public class PassengerImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(PassengerImporter.class);
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final int parserThreads;
+    private final int queueCapacity;
+    private final int commitEvery;
+
+    /**
+     * @param parserThreads number of parser threads
+     * @param queueCapacity chunks (of 500 lines) buffered between two stages
+     * @param commitEvery   records per transaction / checkpoint
+     */
+    public PassengerImporter(int parserThreads, int queueCapacity, int commitEvery) {
+        this.parserThreads = parserThreads;
+        this.queueCapacity = queueCapacity;
+        this.commitEvery = commitEvery;
+    }
+
+    public PassengerImporter() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 16, 10_000);
+    }
+
+    private record Chunk<T>(long sequence, long endLine, List<T> items) {
+    }
+
+    // Marks the end of a queue
+    private static final Chunk<?> END = new Chunk<>(-1, -1, List.of());
+
+    /**
+     * @param checkpoint name of the ImportCheckpoint row, e.g. the file name: a new run with the
+     *                   same name resumes after the last committed line
+     */
+    public ImportReport importFile(Path file, String checkpoint) throws IOException {
+        RecordFormat format = RecordFormat.of(file);
+        long resumeFrom = readCheckpoint(checkpoint);
+        long start = System.nanoTime();
+
+        BlockingQueue<Chunk<String>> lines = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Chunk<PassengerRecord>> records = new ArrayBlockingQueue<>(queueCapacity);
+        // Chunks read but not yet written: both queues, the parsers, and the writer's reorder buffer
+        Semaphore inFlight = new Semaphore(2 * queueCapacity + parserThreads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicLong linesRead = new AtomicLong();
+        AtomicLong recordsParsed = new AtomicLong();
+        AtomicLong readNanos = new AtomicLong();
+        AtomicLong parseNanos = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+
+        threads.add(Thread.ofPlatform().name("import-reader").start(() -> {
+            try {
+                read(file, format, resumeFrom, lines, inFlight, linesRead);
+            } catch (Throwable ex) {
+                failure.compareAndSet(null, ex);
+            } finally {
+                readNanos.set(System.nanoTime() - start);
+            }
+        }));
+
+        AtomicInteger runningParsers = new AtomicInteger(parserThreads);
+        for (int i = 0; i < parserThreads; i++) {
+            threads.add(Thread.ofPlatform().name("import-parser-" + i).start(() -> {
+                try {
+                    parse(format, lines, records, recordsParsed);
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    if (runningParsers.decrementAndGet() == 0) {
+                        parseNanos.set(System.nanoTime() - start);
+                        putQuietly(records, end());
+                    }
+                }
+            }));
+        }
+
+        long rowsWritten;
+        try {
+            rowsWritten = write(records, inFlight, checkpoint, failure);
+        } catch (RuntimeException ex) {
+            failure.compareAndSet(null, ex);
+            rowsWritten = 0;
+        } finally {
+            threads.forEach(Thread::interrupt);
+        }
+        long writeNanos = System.nanoTime() - start;
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("Import of " + file + " failed; rerun to resume from the last checkpoint",
+                    failure.get());
+        }
+        return new ImportReport(resumeFrom, List.of(
+                new ImportReport.StageReport("read", linesRead.get(), Duration.ofNanos(readNanos.get())),
+                new ImportReport.StageReport("parse", recordsParsed.get(), Duration.ofNanos(parseNanos.get())),
+                new ImportReport.StageReport("write", rowsWritten, Duration.ofNanos(writeNanos))));
+    }
+
+    // ---- Stage 1: read lines --------------------------------------------------
+
+    private void read(Path file, RecordFormat format, long resumeFrom, BlockingQueue<Chunk<String>> lines,
+                      Semaphore inFlight, AtomicLong linesRead) throws IOException, InterruptedException {
+        long sequence = 0;
+        long lineNumber = 0;
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= resumeFrom || (lineNumber == 1 && format.hasHeader()) || line.isBlank()) {
+                    continue;
+                }
+                chunk.add(line);
+                linesRead.incrementAndGet();
+                if (chunk.size() == CHUNK_SIZE) {
+                    inFlight.acquire();
+                    lines.put(new Chunk<>(sequence++, lineNumber, chunk));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+        }
+        // The last chunk may be empty: it still carries the final line number for the checkpoint
+        inFlight.acquire();
+        lines.put(new Chunk<>(sequence, lineNumber, chunk));
+        lines.put(end());
+    }
+
+    // ---- Stage 2: parse (parallel) ---------------------------------------------
+
+    private void parse(RecordFormat format, BlockingQueue<Chunk<String>> lines,
+                       BlockingQueue<Chunk<PassengerRecord>> records, AtomicLong recordsParsed) throws InterruptedException {
+        while (true) {
+            Chunk<String> chunk = lines.take();
+            if (chunk == END) {
+                lines.put(chunk); // let the other parsers see it too
+                return;
+            }
+            List<PassengerRecord> parsed = new ArrayList<>(chunk.items().size());
+            for (String line : chunk.items()) {
+                try {
+                    parsed.add(format.parse(line));
+                } catch (RuntimeException ex) {
+                    throw new IllegalArgumentException("Cannot parse line before " + chunk.endLine() + ": " + ex.getMessage(), ex);
+                }
+            }
+            recordsParsed.addAndGet(parsed.size());
+            records.put(new Chunk<>(chunk.sequence(), chunk.endLine(), parsed));
+        }
+    }
+
+    // ---- Stage 3: write (StatelessSession) -------------------------------------
+
+    private long write(BlockingQueue<Chunk<PassengerRecord>> records, Semaphore inFlight, String checkpoint,
+                       AtomicReference<Throwable> failure) {
+        // Parsers finish out of order: chunks are written in sequence so the checkpoint stays exact
+        Map<Long, Chunk<PassengerRecord>> pending = new HashMap<>();
+        long nextSequence = 0;
+        long rows = 0;
+        long uncommitted = 0;
+        long linesDone = -1;
+        Map<Long, Airport> airports = new HashMap<>();
+
+        SessionFactory sessionFactory = JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(JpaUtil.BATCH_SIZE);
+            Transaction tx = session.beginTransaction();
+            try {
+                while (true) {
+                    Chunk<PassengerRecord> chunk = records.poll(100, TimeUnit.MILLISECONDS);
+                    if (failure.get() != null) {
+                        tx.rollback();
+                        return rows;
+                    }
+                    if (chunk == null) continue;
+                    if (chunk == END) break;
+
+                    pending.put(chunk.sequence(), chunk);
+                    while ((chunk = pending.remove(nextSequence)) != null) {
+                        nextSequence++;
+                        inFlight.release();
+                        rows += insert(session, chunk.items(), airports);
+                        uncommitted += chunk.items().size();
+                        linesDone = chunk.endLine();
+                        if (uncommitted >= commitEvery) {
+                            session.upsert(new ImportCheckpoint(checkpoint, linesDone));
+                            tx.commit();
+                            log.info("Checkpoint: {} lines done, {} rows written", linesDone, rows);
+                            uncommitted = 0;
+                            tx = session.beginTransaction();
+                        }
+                    }
+                }
+                if (linesDone >= 0) session.upsert(new ImportCheckpoint(checkpoint, linesDone));
+                tx.commit();
+                return rows;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                tx.rollback();
+                throw new IllegalStateException(ex);
+            } catch (RuntimeException ex) {
+                if (tx.isActive()) tx.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Passengers first, then tickets: consecutive identical INSERTs go in the same JDBC batch.
+     */
+    private static long insert(StatelessSession session, List<PassengerRecord> records, Map<Long, Airport> airports) {
+        List<Ticket> tickets = new ArrayList<>();
+        for (PassengerRecord record : records) {
+            Airport airport = airports.computeIfAbsent(record.airportId(), id -> session.get(Airport.class, id));
+            if (airport == null) {
+                throw new IllegalArgumentException("Unknown airport " + record.airportId() + " for " + record.name());
+            }
+            Passenger passenger = new Passenger(record.name());
+            passenger.setAirport(airport);
+            passenger.setAddress(record.address());
+            session.insert(passenger);
+
+            for (PassengerRecord.TicketRecord ticketRecord : record.tickets()) {
+                Ticket ticket = switch (ticketRecord.type()) {
+                    case "OneWay" -> new OneWayTicket(LocalDate.parse(ticketRecord.date()));
+                    case "Return" -> new ReturnTicket(LocalDate.parse(ticketRecord.date()));
+                    default -> throw new IllegalArgumentException("Unknown ticket type " + ticketRecord.type());
+                };
+                ticket.setNumber(ticketRecord.number());
+                ticket.setPassenger(passenger);
+                tickets.add(ticket);
+            }
+        }
+        tickets.forEach(session::insert);
+        return records.size() + tickets.size();
+    }
+
+    // ---- Checkpoint -------------------------------------------------------------
+
+    private static long readCheckpoint(String checkpoint) {
+        SessionFactory sessionFactory = JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            ImportCheckpoint row = session.get(ImportCheckpoint.class, checkpoint);
+            return row == null ? 0 : row.getLinesDone();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Chunk<T> end() {
+        return (Chunk<T>) END;
+    }
+
+    private static <T> void putQuietly(BlockingQueue<Chunk<T>> queue, Chunk<T> chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package al420445.dao.importer;
+
+import al420445.airport.Address;
+
+import java.util.List;
+
+/**
+ * One passenger of the import feed, with its tickets.
+ *
+ * @param airportId id of an existing Airport
+ * @param address   may be null
+ */
+public record PassengerRecord(String name, long airportId, Address address, List<TicketRecord> tickets) {
+
+    /**
+     * @param type   "OneWay" or "Return" (the Ticket discriminator values)
+     * @param number ticket number
+     * @param date   ISO date: latest departure (OneWay) or latest return (Return)
+     */
+    public record TicketRecord(String type, String number, String date) {
+    }
+}
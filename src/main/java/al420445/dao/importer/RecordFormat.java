@@ -0,0 +1,126 @@
+package al420445.dao.importer;
+
+import al420445.airport.Address;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line formats accepted by PassengerImporter. One passenger per line in both formats.
+ *
+ * CSV (first line is a header):
+ * <pre>
+ * name,airportId,street,city,province,postalCode,tickets
+ * Moukaila Smith,1,street,city,province,H1A 1A1,OneWay:AA1234:2025-06-01|Return:BB5678:2025-06-15
+ * </pre>
+ * Fields may be double-quoted ("a, b"); tickets are type:number:date separated by '|'.
+ *
+ * NDJSON:
+ * <pre>
+ * {"name":"Moukaila Smith","airportId":1,"address":{"city":"city"},"tickets":[{"type":"OneWay","number":"AA1234","date":"2025-06-01"}]}
+ * </pre>
+ */
+public enum RecordFormat {
+
+    CSV {
+        @Override
+        boolean hasHeader() {
+            return true;
+        }
+
+        @Override
+        PassengerRecord parse(String line) {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != 7) {
+                throw new IllegalArgumentException("Expected 7 CSV fields but got " + fields.size() + ": " + line);
+            }
+            Address address = null;
+            if (!(fields.get(2).isEmpty() && fields.get(3).isEmpty() && fields.get(4).isEmpty() && fields.get(5).isEmpty())) {
+                address = new Address(fields.get(2), fields.get(3), fields.get(4), fields.get(5));
+            }
+            List<PassengerRecord.TicketRecord> tickets = new ArrayList<>();
+            if (!fields.get(6).isEmpty()) {
+                for (String ticket : fields.get(6).split("\\|")) {
+                    String[] parts = ticket.split(":", 3);
+                    if (parts.length != 3) {
+                        throw new IllegalArgumentException("Expected type:number:date but got '" + ticket + "': " + line);
+                    }
+                    tickets.add(new PassengerRecord.TicketRecord(parts[0], parts[1], parts[2]));
+                }
+            }
+            return new PassengerRecord(fields.get(0), Long.parseLong(fields.get(1)), address, tickets);
+        }
+    },
+
+    NDJSON {
+        private final ObjectMapper mapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        @Override
+        boolean hasHeader() {
+            return false;
+        }
+
+        @Override
+        PassengerRecord parse(String line) {
+            try {
+                PassengerRecord record = mapper.readValue(line, PassengerRecord.class);
+                return record.tickets() == null
+                        ? new PassengerRecord(record.name(), record.airportId(), record.address(), List.of())
+                        : record;
+            } catch (JsonProcessingException ex) {
+                throw new IllegalArgumentException("Invalid JSON: " + line, ex);
+            }
+        }
+    };
+
+    abstract boolean hasHeader();
+
+    /**
+     * Thread-safe: called concurrently by the parser stage.
+     */
+    abstract PassengerRecord parse(String line);
+
+    /**
+     * .csv → CSV, .ndjson / .jsonl → NDJSON
+     */
+    public static RecordFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv")) return CSV;
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) return NDJSON;
+        throw new IllegalArgumentException("Unknown import format (expected .csv, .ndjson or .jsonl): " + file);
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
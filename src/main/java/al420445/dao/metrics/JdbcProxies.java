@@ -0,0 +1,113 @@
+package al420445.dao.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dynamic proxies around Connection / Statement / ResultSet that report to SqlMetrics.
+ */
+final class JdbcProxies {
+
+    private JdbcProxies() {
+    }
+
+    static Connection connection(Connection target, SqlMetrics metrics) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = call(target, method, args);
+            if (result instanceof Statement statement && method.getReturnType().isInstance(statement)) {
+                // prepareStatement(sql, ...) / prepareCall(sql, ...): the SQL is known now
+                String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return proxy(method.getReturnType(), new StatementHandler(statement, sql, metrics));
+            }
+            return result;
+        });
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final SqlMetrics metrics;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private int batched; // addBatch calls since the last executeBatch / clearBatch
+        private SqlMetrics.StatementStats lastStats;
+
+        StatementHandler(Statement target, String sql, SqlMetrics metrics) {
+            this.target = target;
+            this.sql = sql;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (target instanceof PreparedStatement && name.startsWith("set")
+                    && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batched++;
+            } else if (name.equals("clearBatch")) {
+                batched = 0;
+            }
+
+            if (name.startsWith("execute")) {
+                String executedSql = sql != null ? sql
+                        : args != null && args.length > 0 && args[0] instanceof String s ? s : "<batch>";
+                // executeBatch / executeLargeBatch: one round trip for every addBatch, whose parameters are gone
+                boolean batch = name.endsWith("Batch");
+                long start = System.nanoTime();
+                Object result;
+                try {
+                    result = call(target, method, args);
+                } finally {
+                    long nanos = System.nanoTime() - start;
+                    if (batch) {
+                        lastStats = metrics.executedBatch(executedSql, nanos, batched);
+                        batched = 0;
+                    } else {
+                        lastStats = metrics.executed(executedSql, nanos, parameters);
+                    }
+                }
+                return result instanceof ResultSet resultSet ? resultSet(resultSet, lastStats) : result;
+            }
+
+            Object result = call(target, method, args);
+            if (name.equals("getResultSet") && result instanceof ResultSet resultSet && lastStats != null) {
+                return resultSet(resultSet, lastStats);
+            }
+            return result;
+        }
+    }
+
+    private static ResultSet resultSet(ResultSet target, SqlMetrics.StatementStats stats) {
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            Object result = call(target, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                stats.rows.increment();
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JdbcProxies.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package al420445.dao.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of SQL and entity metrics, returned by JpaUtil.getMetrics().
+ *
+ * @param queries    one entry per SQL statement text, most expensive (total time) first
+ * @param entities   Hibernate load/fetch counts per entity
+ * @param retries    retrying transactions (TransactionExecutor.executeWithRetry, RetryingTransactionalDao)
+ * @param queryPlans Hibernate query plan cache (HQL already translated to SQL)
+ */
+public record JpaMetrics(List<QueryMetrics> queries,
+                         List<EntityMetrics> entities,
+                         RetryMetrics retries,
+                         QueryPlanMetrics queryPlans) {
+
+    /**
+     * @param sql         the SQL sent to the database
+     * @param executions  number of executions, each statement of a JDBC batch included
+     * @param rows        rows read from the result sets, or statements of the JDBC batches
+     *                    (0 for INSERT/UPDATE/DELETE run one by one)
+     * @param totalMicros cumulated execution time
+     */
+    public record QueryMetrics(String sql,
+                               long executions,
+                               long rows,
+                               long totalMicros,
+                               long p50Micros,
+                               long p99Micros,
+                               long maxMicros) {
+    }
+
+    /**
+     * @param loads   entities built from a result set (query, find, join fetch)
+     * @param fetches entities initialized by a separate select (lazy proxy, batch, eager secondary select)
+     */
+    public record EntityMetrics(String entity,
+                                long loads,
+                                long fetches,
+                                long inserts,
+                                long updates,
+                                long deletes) {
+    }
+
+    /**
+     * @param executions units of work run with retry
+     * @param retries    attempts that failed with a retryable exception and were run again
+     * @param recovered  units of work that succeeded after at least one retry
+     * @param exhausted  units of work that still failed after the last attempt
+     * @param byCause    retries per exception (simple class name of the retryable cause)
+     */
+    public record RetryMetrics(long executions,
+                               long retries,
+                               long recovered,
+                               long exhausted,
+                               Map<String, Long> byCause) {
+    }
+
+    /**
+     * @param hits   queries whose translation was found in the plan cache
+     * @param misses queries parsed or translated on the spot
+     */
+    public record QueryPlanMetrics(long hits, long misses) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    public String toJson() {
+        String queriesJson = queries.stream()
+                .map(q -> "{\"sql\":" + quote(q.sql())
+                        + ",\"executions\":" + q.executions()
+                        + ",\"rows\":" + q.rows()
+                        + ",\"totalMicros\":" + q.totalMicros()
+                        + ",\"p50Micros\":" + q.p50Micros()
+                        + ",\"p99Micros\":" + q.p99Micros()
+                        + ",\"maxMicros\":" + q.maxMicros() + "}")
+                .collect(Collectors.joining(",", "[", "]"));
+        String entitiesJson = entities.stream()
+                .map(e -> "{\"entity\":" + quote(e.entity())
+                        + ",\"loads\":" + e.loads()
+                        + ",\"fetches\":" + e.fetches()
+                        + ",\"inserts\":" + e.inserts()
+                        + ",\"updates\":" + e.updates()
+                        + ",\"deletes\":" + e.deletes() + "}")
+                .collect(Collectors.joining(",", "[", "]"));
+        String retriesJson = "{\"executions\":" + retries.executions()
+                + ",\"retries\":" + retries.retries()
+                + ",\"recovered\":" + retries.recovered()
+                + ",\"exhausted\":" + retries.exhausted()
+                + ",\"byCause\":" + retries.byCause().entrySet().stream()
+                        .map(e -> quote(e.getKey()) + ":" + e.getValue())
+                        .collect(Collectors.joining(",", "{", "}")) + "}";
+        String queryPlansJson = "{\"hits\":" + queryPlans.hits()
+                + ",\"misses\":" + queryPlans.misses()
+                + ",\"hitRate\":" + queryPlans.hitRate() + "}";
+        return "{\"queries\":" + queriesJson + ",\"entities\":" + entitiesJson
+                + ",\"retries\":" + retriesJson + ",\"queryPlans\":" + queryPlansJson + "}";
+    }
+
+    private static String quote(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+}
@@ -0,0 +1,65 @@
+package al420445.dao.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters updated by the retrying execution modes of TransactionExecutor and TransactionalDao.
+ * Read through JpaUtil.getMetrics().
+ */
+public final class RetryCounters {
+
+    private static final LongAdder executions = new LongAdder();
+    private static final LongAdder retries = new LongAdder();
+    private static final LongAdder recovered = new LongAdder();
+    private static final LongAdder exhausted = new LongAdder();
+    private static final Map<String, LongAdder> causes = new ConcurrentHashMap<>();
+
+    private RetryCounters() {
+    }
+
+    /**
+     * A unit of work started (counted once, whatever the number of attempts).
+     */
+    public static void recordExecution() {
+        executions.increment();
+    }
+
+    /**
+     * An attempt failed with a retryable exception and will be run again.
+     */
+    public static void recordRetry(Throwable cause) {
+        retries.increment();
+        causes.computeIfAbsent(cause.getClass().getSimpleName(), name -> new LongAdder()).increment();
+    }
+
+    /**
+     * The unit of work succeeded after at least one retry.
+     */
+    public static void recordRecovered() {
+        recovered.increment();
+    }
+
+    /**
+     * Still failing with a retryable exception after the last attempt.
+     */
+    public static void recordExhausted() {
+        exhausted.increment();
+    }
+
+    public static JpaMetrics.RetryMetrics snapshot() {
+        Map<String, Long> byCause = new TreeMap<>();
+        causes.forEach((name, count) -> byCause.put(name, count.sum()));
+        return new JpaMetrics.RetryMetrics(executions.sum(), retries.sum(), recovered.sum(), exhausted.sum(), byCause);
+    }
+
+    public static void reset() {
+        executions.reset();
+        retries.reset();
+        recovered.reset();
+        exhausted.reset();
+        causes.clear();
+    }
+}
@@ -0,0 +1,92 @@
+package al420445.dao.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-SQL statistics recorded at the JDBC level: execution count, latency histogram and rows read.
+ * Statements slower than the threshold are logged (logger al420445.dao.metrics.SqlMetrics)
+ * with their bound parameters.
+ *
+ * Connections are instrumented with wrap(); HikariConnectionProvider does it when
+ * al420445.metrics.enabled is true in persistence.xml.
+ */
+public class SqlMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlMetrics.class);
+
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final long slowQueryThresholdNanos;
+
+    public SqlMetrics(Duration slowQueryThreshold) {
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    public Connection wrap(Connection connection) {
+        return JdbcProxies.connection(connection, this);
+    }
+
+    StatementStats executed(String sql, long nanos, Map<Integer, Object> parameters) {
+        StatementStats stats = record(sql, nanos, 1);
+        if (nanos >= slowQueryThresholdNanos) {
+            log.warn("Slow query ({} ms): {} parameters={}", TimeUnit.NANOSECONDS.toMillis(nanos), sql, parameters);
+        }
+        return stats;
+    }
+
+    /**
+     * One executeBatch of {@code statements} addBatch calls: counted as that many executions and rows
+     * (the latency histogram gets the batch round trip once).
+     */
+    StatementStats executedBatch(String sql, long nanos, int statements) {
+        StatementStats stats = record(sql, nanos, statements);
+        stats.rows.add(statements);
+        if (nanos >= slowQueryThresholdNanos) {
+            log.warn("Slow query ({} ms): {} batch of {}", TimeUnit.NANOSECONDS.toMillis(nanos), sql, statements);
+        }
+        return stats;
+    }
+
+    private StatementStats record(String sql, long nanos, int executions) {
+        StatementStats stats = statements.computeIfAbsent(sql, s -> new StatementStats());
+        stats.latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        stats.executions.add(executions);
+        return stats;
+    }
+
+    public List<JpaMetrics.QueryMetrics> snapshot() {
+        return statements.entrySet().stream()
+                .map(entry -> {
+                    LatencyHistogram latency = entry.getValue().latency;
+                    return new JpaMetrics.QueryMetrics(
+                            entry.getKey(),
+                            entry.getValue().executions.sum(),
+                            entry.getValue().rows.sum(),
+                            latency.totalMicros(),
+                            latency.percentile(0.50),
+                            latency.percentile(0.99),
+                            latency.maxMicros());
+                })
+                .sorted(Comparator.comparingLong(JpaMetrics.QueryMetrics::totalMicros).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    static final class StatementStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder executions = new LongAdder();
+        final LongAdder rows = new LongAdder();
+    }
+}
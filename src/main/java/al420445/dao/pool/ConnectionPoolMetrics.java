@@ -0,0 +1,27 @@
+package al420445.dao.pool;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of the connection pool state, returned by JpaUtil.getConnectionPoolMetrics().
+ *
+ * @param active          connections currently borrowed by an EntityManager
+ * @param idle            connections waiting in the pool
+ * @param total           active + idle
+ * @param maximum         configured maximum pool size
+ * @param waitingThreads  threads blocked waiting for a connection
+ * @param acquisitions    number of successful getConnection() calls since startup
+ * @param timeouts        number of getConnection() calls that hit the acquisition timeout
+ * @param averageWait     average time spent waiting for a connection
+ * @param maxWait         longest time spent waiting for a connection
+ */
+public record ConnectionPoolMetrics(int active,
+                                    int idle,
+                                    int total,
+                                    int maximum,
+                                    int waitingThreads,
+                                    long acquisitions,
+                                    long timeouts,
+                                    Duration averageWait,
+                                    Duration maxWait) {
+}
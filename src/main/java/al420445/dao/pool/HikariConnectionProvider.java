@@ -0,0 +1,141 @@
+package al420445.dao.pool;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import al420445.dao.metrics.SqlMetrics;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Hibernate ConnectionProvider backed by a HikariCP pool.
+ * Replaces Hibernate's built-in pool, which is not meant for concurrent load.
+ *
+ * Enabled in persistence.xml with:
+ * <pre>
+ * &lt;property name="hibernate.connection.provider_class" value="al420445.dao.pool.HikariConnectionProvider"/&gt;
+ * </pre>
+ * Connection settings come from the jakarta.persistence.jdbc.* properties.
+ * Every hibernate.hikari.* property is passed to HikariConfig, e.g.
+ * hibernate.hikari.minimumIdle, maximumPoolSize, connectionTimeout (acquisition timeout, ms)
+ * and leakDetectionThreshold (ms).
+ *
+ * With al420445.metrics.enabled=true, connections are instrumented with SqlMetrics
+ * (per-SQL latency, rows, slow-query log above al420445.metrics.slow_query_ms).
+ */
+public class HikariConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    private static final String HIKARI_PREFIX = "hibernate.hikari.";
+    private static final String METRICS_ENABLED = "al420445.metrics.enabled";
+    private static final String SLOW_QUERY_MS = "al420445.metrics.slow_query_ms";
+
+    private final PoolMetricsTracker metricsTracker = new PoolMetricsTracker();
+    private HikariDataSource dataSource;
+    private SqlMetrics sqlMetrics;
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        Properties hikariProperties = new Properties();
+        settings.forEach((key, value) -> {
+            if (key.startsWith(HIKARI_PREFIX)) {
+                hikariProperties.setProperty(key.substring(HIKARI_PREFIX.length()), value.toString());
+            }
+        });
+
+        HikariConfig config = new HikariConfig(hikariProperties);
+        config.setJdbcUrl(setting(settings, "jakarta.persistence.jdbc.url", "hibernate.connection.url"));
+        config.setUsername(setting(settings, "jakarta.persistence.jdbc.user", "hibernate.connection.username"));
+        config.setPassword(setting(settings, "jakarta.persistence.jdbc.password", "hibernate.connection.password"));
+        String driver = setting(settings, "jakarta.persistence.jdbc.driver", "hibernate.connection.driver_class");
+        if (driver != null) {
+            config.setDriverClassName(driver);
+        }
+        config.setMetricsTrackerFactory(metricsTracker);
+
+        dataSource = new HikariDataSource(config);
+
+        if (Boolean.parseBoolean(String.valueOf(settings.get(METRICS_ENABLED)))) {
+            String slowQueryMs = String.valueOf(settings.getOrDefault(SLOW_QUERY_MS, "500"));
+            sqlMetrics = new SqlMetrics(Duration.ofMillis(Long.parseLong(slowQueryMs)));
+        }
+    }
+
+    private static String setting(Map<String, Object> settings, String name, String fallback) {
+        Object value = settings.getOrDefault(name, settings.get(fallback));
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        return sqlMetrics == null ? connection : sqlMetrics.wrap(connection);
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    /**
+     * Per-SQL metrics, if al420445.metrics.enabled is true.
+     */
+    public Optional<SqlMetrics> getSqlMetrics() {
+        return Optional.ofNullable(sqlMetrics);
+    }
+
+    public ConnectionPoolMetrics getMetrics() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        long acquisitions = metricsTracker.acquisitions();
+        long averageWaitNanos = acquisitions == 0 ? 0 : metricsTracker.totalWaitNanos() / acquisitions;
+        return new ConnectionPoolMetrics(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                dataSource.getMaximumPoolSize(),
+                pool.getThreadsAwaitingConnection(),
+                acquisitions,
+                metricsTracker.timeouts(),
+                Duration.ofNanos(averageWaitNanos),
+                Duration.ofNanos(metricsTracker.maxWaitNanos()));
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || unwrapType.isInstance(dataSource);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return (T) this;
+        }
+        if (unwrapType.isInstance(dataSource)) {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+}
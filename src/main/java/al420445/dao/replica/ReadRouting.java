@@ -0,0 +1,76 @@
+package al420445.dao.replica;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the units of work that may run on a replica (see ReplicaRoutingConnectionProvider).
+ *
+ * The DAOs run their queries in readOnly(...), as do TransactionExecutor.executeReadOnly and
+ * ReadOnlyTransactionalDao. Every other connection goes to the primary and counts as a write of
+ * the current session: its reads stay on the primary for al420445.replica.sticky_ms, so that
+ * it sees its own writes whatever the lag of the replicas.
+ *
+ * The session is the current thread, unless the caller names it with inSession(...)
+ * (e.g. the id of the HTTP session, whose requests are served by different threads).
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+    private static final ThreadLocal<Object> SESSION = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Runs {@code work}, whose connections may come from a replica.
+     */
+    public static <T> T readOnly(Supplier<T> work) {
+        return with(READ_ONLY, Boolean.TRUE, work);
+    }
+
+    /**
+     * Runs {@code work} on behalf of {@code session} for the read-your-writes window.
+     */
+    public static <T> T inSession(Object session, Supplier<T> work) {
+        return with(SESSION, session, work);
+    }
+
+    /**
+     * Cache mode of a cacheable query run in readOnly(...) on {@code emf}: IGNORE when its connection
+     * would come from a replica, so that a result read before the replica caught up is never stored
+     * in the second-level cache, where the writer's sticky reads would find it; NORMAL otherwise.
+     * (GET is not enough: on a miss Hibernate 6.6 still stores the result of a cacheable query.)
+     */
+    public static CacheMode cacheMode(EntityManagerFactory emf) {
+        ConnectionProvider provider = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(ConnectionProvider.class);
+        return provider instanceof ReplicaRoutingConnectionProvider routing && routing.routesToReplica()
+                ? CacheMode.IGNORE
+                : CacheMode.NORMAL;
+    }
+
+    static boolean isReadOnly() {
+        return READ_ONLY.get() != null;
+    }
+
+    static Object session() {
+        Object session = SESSION.get();
+        return session != null ? session : Thread.currentThread().threadId();
+    }
+
+    private static <V, T> T with(ThreadLocal<V> variable, V value, Supplier<T> work) {
+        V previous = variable.get();
+        variable.set(value);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) variable.remove(); else variable.set(previous);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package al420445.dao.replica;
+
+import al420445.dao.pool.HikariConnectionProvider;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * ConnectionProvider that sends the read-only units of work (ReadRouting.readOnly) to replicas
+ * and everything else to the primary, each through its own HikariConnectionProvider.
+ *
+ * Enabled in persistence.xml; without al420445.replica.urls every connection comes from the primary:
+ * <ul>
+ *   <li>al420445.replica.urls: comma-separated JDBC URLs of the replicas (same user and password)</li>
+ *   <li>al420445.replica.selection: round_robin (default) or least_outstanding (the replica with
+ *       the fewest connections in use, for replicas of uneven speed)</li>
+ *   <li>al420445.replica.sticky_ms: after a write, the reads of the same session go to the primary
+ *       for this long (default 1000): set it above the replication lag</li>
+ * </ul>
+ * Replica pools are read-only, named replica-1, replica-2... A result read on a lagging replica must
+ * not reach the second-level cache, or the writer's sticky reads would find it there instead of
+ * going to the primary: cacheable queries run with ReadRouting.cacheMode(...), which bypasses the
+ * cache when the connection comes from a replica.
+ *
+ * JpaUtil.getConnectionPoolMetrics() and getMetrics() report the primary pool.
+ */
+public class ReplicaRoutingConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    public static final String URLS = "al420445.replica.urls";
+    public static final String SELECTION = "al420445.replica.selection";
+    public static final String STICKY_MS = "al420445.replica.sticky_ms";
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_OUTSTANDING
+    }
+
+    /**
+     * @param outstanding connections currently in use
+     */
+    public record DataSourceStats(String name, long acquisitions, int outstanding) {
+    }
+
+    private static final int MAX_SESSIONS = 10_000;
+
+    private Target primary;
+    private final List<Target> replicas = new ArrayList<>();
+    private Selection selection;
+    private long stickyNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder stickyReads = new LongAdder();
+
+    // Connection -> where it came from, for closeConnection (connections compare by identity)
+    private final Map<Connection, Lease> leases = Collections.synchronizedMap(new IdentityHashMap<>());
+    // Session -> System.nanoTime() of its last write
+    private final Map<Object, Long> lastWrites = new ConcurrentHashMap<>();
+
+    private record Target(String name, HikariConnectionProvider pool, LongAdder acquisitions, AtomicInteger outstanding) {
+        Target(String name, HikariConnectionProvider pool) {
+            this(name, pool, new LongAdder(), new AtomicInteger());
+        }
+    }
+
+    /**
+     * @param writer the session to keep on the primary after this connection, null for a read
+     */
+    private record Lease(Target target, Object writer) {
+    }
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        primary = new Target("primary", pool(settings));
+        String urls = String.valueOf(settings.getOrDefault(URLS, "")).trim();
+        if (!urls.isEmpty()) {
+            String[] replicaUrls = urls.split("\\s*,\\s*");
+            for (int i = 0; i < replicaUrls.length; i++) {
+                Map<String, Object> replica = new HashMap<>(settings);
+                replica.put("jakarta.persistence.jdbc.url", replicaUrls[i]);
+                replica.remove("hibernate.connection.url");
+                replica.put("hibernate.hikari.poolName", "replica-" + (i + 1));
+                replica.put("hibernate.hikari.readOnly", "true");
+                replicas.add(new Target("replica-" + (i + 1), pool(replica)));
+            }
+        }
+        selection = Selection.valueOf(String.valueOf(settings.getOrDefault(SELECTION, "round_robin")).toUpperCase(Locale.ROOT));
+        stickyNanos = Duration.ofMillis(Long.parseLong(String.valueOf(settings.getOrDefault(STICKY_MS, "1000")))).toNanos();
+    }
+
+    private static HikariConnectionProvider pool(Map<String, Object> settings) {
+        HikariConnectionProvider pool = new HikariConnectionProvider();
+        pool.configure(settings);
+        return pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty()) {
+            return primary.pool().getConnection();
+        }
+        Object session = ReadRouting.session();
+        Target target;
+        if (!ReadRouting.isReadOnly()) {
+            target = primary;
+        } else if (isSticky(session)) {
+            target = primary;
+            stickyReads.increment();
+        } else {
+            target = selectReplica();
+        }
+        Connection connection = target.pool().getConnection();
+        target.acquisitions().increment();
+        target.outstanding().incrementAndGet();
+        leases.put(connection, new Lease(target, target == primary && !ReadRouting.isReadOnly() ? session : null));
+        return connection;
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        Lease lease = leases.remove(connection);
+        if (lease == null) {
+            primary.pool().closeConnection(connection);
+            return;
+        }
+        lease.target().outstanding().decrementAndGet();
+        if (lease.writer() != null) {
+            // Released after the commit: the window starts when the write is visible on the primary
+            recordWrite(lease.writer());
+        }
+        lease.target().pool().closeConnection(connection);
+    }
+
+    /**
+     * True when a connection requested now by the current thread would come from a replica.
+     */
+    public boolean routesToReplica() {
+        return !replicas.isEmpty() && ReadRouting.isReadOnly() && !isSticky(ReadRouting.session());
+    }
+
+    private boolean isSticky(Object session) {
+        Long lastWrite = lastWrites.get(session);
+        return lastWrite != null && System.nanoTime() - lastWrite < stickyNanos;
+    }
+
+    private void recordWrite(Object session) {
+        long now = System.nanoTime();
+        lastWrites.put(session, now);
+        if (lastWrites.size() > MAX_SESSIONS) {
+            lastWrites.values().removeIf(lastWrite -> now - lastWrite >= stickyNanos);
+        }
+    }
+
+    private Target selectReplica() {
+        return switch (selection) {
+            case ROUND_ROBIN -> replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            case LEAST_OUTSTANDING -> {
+                // Ties go round-robin, or the first replica would take every read of an idle system
+                int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+                Target best = null;
+                for (int i = 0; i < replicas.size(); i++) {
+                    Target replica = replicas.get((start + i) % replicas.size());
+                    if (best == null || replica.outstanding().get() < best.outstanding().get()) best = replica;
+                }
+                yield best;
+            }
+        };
+    }
+
+    public Selection getSelection() {
+        return selection;
+    }
+
+    /**
+     * Primary first, then the replicas.
+     */
+    public List<DataSourceStats> getStats() {
+        return Stream.concat(Stream.of(primary), replicas.stream())
+                .map(target -> new DataSourceStats(target.name(), target.acquisitions().sum(), target.outstanding().get()))
+                .toList();
+    }
+
+    /**
+     * Read-only connections sent to the primary because their session had just written.
+     */
+    public long getStickyReads() {
+        return stickyReads.sum();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    /**
+     * Unwraps to this provider, or to the primary pool (HikariConnectionProvider, HikariDataSource).
+     */
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || primary.pool().isUnwrappableAs(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        return unwrapType.isInstance(this) ? (T) this : primary.pool().unwrap(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        replicas.forEach(replica -> replica.pool().stop());
+        if (primary != null) {
+            primary.pool().stop();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package al420445.dao.report;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.Table;
+
+/**
+ * Summary row: number of passengers of one airport.
+ * Maintained by ReportListener, rebuilt from PASSENGERS by ReportRebuild.
+ */
+@Entity
+@NamedQuery(name = AirportPassengerTotal.FIND_ALL, query = """
+        select new al420445.dao.report.AirportPassengersDTO(a.id, a.name, coalesce(r.passengers, 0))
+        from Airport a left join AirportPassengerTotal r on r.airportId = a.id
+        order by a.id""")
+@NamedQuery(name = AirportPassengerTotal.DELETE_ALL, query = "delete from AirportPassengerTotal")
+@NamedQuery(name = AirportPassengerTotal.REBUILD, query = """
+        insert into AirportPassengerTotal (airportId, passengers)
+        select p.airport.id, count(p) from Passenger p where p.airport is not null group by p.airport.id""")
+@Table(name = AirportPassengerTotal.TABLE)
+public class AirportPassengerTotal {
+
+    public static final String FIND_ALL = "AirportPassengerTotal.findAll";
+    public static final String DELETE_ALL = "AirportPassengerTotal.deleteAll";
+    public static final String REBUILD = "AirportPassengerTotal.rebuild";
+
+    static final String TABLE = "REPORT_AIRPORT_PASSENGERS";
+
+    @Id
+    @Column(name = "AIRPORT_ID")
+    private Long airportId;
+
+    @Column(name = "PASSENGERS", nullable = false)
+    private long passengers;
+
+    public Long getAirportId() {
+        return airportId;
+    }
+
+    public long getPassengers() {
+        return passengers;
+    }
+}
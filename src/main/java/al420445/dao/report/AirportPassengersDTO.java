@@ -0,0 +1,4 @@
+package al420445.dao.report;
+
+public record AirportPassengersDTO(long airportId, String airportName, long passengers) {
+}
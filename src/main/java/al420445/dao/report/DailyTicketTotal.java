@@ -0,0 +1,94 @@
+package al420445.dao.report;
+
+import al420445.airport.OneWayTicket;
+import al420445.airport.ReturnTicket;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Summary row: number of tickets of one type for one date (departure date of a one-way ticket,
+ * return date of a return ticket). Tickets without a date are not counted.
+ * Maintained by ReportListener, rebuilt from TICKET by ReportRebuild.
+ */
+@Entity
+@IdClass(DailyTicketTotal.Key.class)
+@NamedQuery(name = DailyTicketTotal.FIND_BETWEEN, query = """
+        select new al420445.dao.report.DailyTicketsDTO(r.ticketDate, r.ticketType, r.tickets)
+        from DailyTicketTotal r
+        where r.ticketDate between :from and :to and r.tickets > 0
+        order by r.ticketDate, r.ticketType""")
+@NamedQuery(name = DailyTicketTotal.DELETE_ALL, query = "delete from DailyTicketTotal")
+@NamedQuery(name = DailyTicketTotal.REBUILD_ONE_WAY, query =
+        "insert into DailyTicketTotal (ticketDate, ticketType, tickets) "
+        + "select t.latestDepartureDate, '" + OneWayTicket.TYPE + "', count(t) from OneWayTicket t "
+        + "where t.latestDepartureDate is not null group by t.latestDepartureDate")
+@NamedQuery(name = DailyTicketTotal.REBUILD_RETURN, query =
+        "insert into DailyTicketTotal (ticketDate, ticketType, tickets) "
+        + "select t.latestReturnDate, '" + ReturnTicket.TYPE + "', count(t) from ReturnTicket t "
+        + "where t.latestReturnDate is not null group by t.latestReturnDate")
+@Table(name = DailyTicketTotal.TABLE)
+public class DailyTicketTotal {
+
+    public static final String FIND_BETWEEN = "DailyTicketTotal.findBetween";
+    public static final String DELETE_ALL = "DailyTicketTotal.deleteAll";
+    public static final String REBUILD_ONE_WAY = "DailyTicketTotal.rebuildOneWay";
+    public static final String REBUILD_RETURN = "DailyTicketTotal.rebuildReturn";
+
+    static final String TABLE = "REPORT_DAILY_TICKETS";
+
+    // Date first: the primary key index serves the date range of FIND_BETWEEN
+    @Id
+    @Column(name = "TICKET_DATE")
+    private LocalDate ticketDate;
+
+    @Id
+    @Column(name = "TICKET_TYPE", length = 16)
+    private String ticketType;
+
+    @Column(name = "TICKETS", nullable = false)
+    private long tickets;
+
+    public LocalDate getTicketDate() {
+        return ticketDate;
+    }
+
+    public String getTicketType() {
+        return ticketType;
+    }
+
+    public long getTickets() {
+        return tickets;
+    }
+
+    public static class Key implements Serializable {
+        private LocalDate ticketDate;
+        private String ticketType;
+
+        public Key() {
+        }
+
+        public Key(LocalDate ticketDate, String ticketType) {
+            this.ticketDate = ticketDate;
+            this.ticketType = ticketType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(ticketDate, key.ticketDate) && Objects.equals(ticketType, key.ticketType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ticketDate, ticketType);
+        }
+    }
+}
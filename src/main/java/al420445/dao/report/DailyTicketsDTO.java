@@ -0,0 +1,6 @@
+package al420445.dao.report;
+
+import java.time.LocalDate;
+
+public record DailyTicketsDTO(LocalDate ticketDate, String ticketType, long tickets) {
+}
@@ -0,0 +1,57 @@
+package al420445.dao.report;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.Table;
+
+/**
+ * Summary row: number of tickets of one passenger.
+ * Maintained by ReportListener, rebuilt from PASSENGERS and TICKET by ReportRebuild: like the
+ * listener, one row per passenger, 0 for those without tickets.
+ */
+@Entity
+@NamedQuery(name = PassengerTicketTotal.FIND_AFTER_ID, query = """
+        select new al420445.dao.report.PassengerTicketsDTO(r.passengerId, p.name, r.tickets)
+        from PassengerTicketTotal r join Passenger p on p.id = r.passengerId
+        where r.passengerId > :afterId
+        order by r.passengerId""")
+@NamedQuery(name = PassengerTicketTotal.FIND_TOP, query = """
+        select new al420445.dao.report.PassengerTicketsDTO(r.passengerId, p.name, r.tickets)
+        from PassengerTicketTotal r join Passenger p on p.id = r.passengerId
+        order by r.tickets desc, r.passengerId""")
+@NamedQuery(name = PassengerTicketTotal.COUNT_FOR_PASSENGER,
+        query = "select r.tickets from PassengerTicketTotal r where r.passengerId = :passengerId")
+@NamedQuery(name = PassengerTicketTotal.DELETE_ALL, query = "delete from PassengerTicketTotal")
+@NamedQuery(name = PassengerTicketTotal.REBUILD, query = """
+        insert into PassengerTicketTotal (passengerId, tickets)
+        select p.id, count(t) from Passenger p left join p.tickets t group by p.id""")
+@Table(name = PassengerTicketTotal.TABLE,
+        indexes = @Index(name = "IDX_REPORT_PASSENGER_TICKETS_TICKETS", columnList = "TICKETS"))
+public class PassengerTicketTotal {
+
+    public static final String FIND_AFTER_ID = "PassengerTicketTotal.findAfterId";
+    public static final String FIND_TOP = "PassengerTicketTotal.findTop";
+    public static final String COUNT_FOR_PASSENGER = "PassengerTicketTotal.countForPassenger";
+    public static final String DELETE_ALL = "PassengerTicketTotal.deleteAll";
+    public static final String REBUILD = "PassengerTicketTotal.rebuild";
+
+    static final String TABLE = "REPORT_PASSENGER_TICKETS";
+
+    @Id
+    @Column(name = "PASSENGER_ID")
+    private Long passengerId;
+
+    @Column(name = "TICKETS", nullable = false)
+    private long tickets;
+
+    public Long getPassengerId() {
+        return passengerId;
+    }
+
+    public long getTickets() {
+        return tickets;
+    }
+}
@@ -0,0 +1,4 @@
+package al420445.dao.report;
+
+public record PassengerTicketsDTO(long passengerId, String passengerName, long tickets) {
+}
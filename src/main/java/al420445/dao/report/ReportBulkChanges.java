@@ -0,0 +1,48 @@
+package al420445.dao.report;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Summary-table changes of bulk HQL statements, which ReportListener does not see: the caller
+ * records what its statement changed, in the same transaction, and the deltas are written with
+ * those of the listener just before the commit. Ignored when al420445.report.enabled is false.
+ */
+public final class ReportBulkChanges {
+
+    private ReportBulkChanges() {
+    }
+
+    /**
+     * @param passengersByOldAirport moved passengers per airport they left (passengers without airport not included)
+     * @param moved                  all the moved passengers, those without airport included
+     */
+    public static void passengersMoved(EntityManager em, Map<Long, Long> passengersByOldAirport, long moved, long newAirportId) {
+        if (!enabled(em)) return;
+        ReportDeltas.record(em.unwrap(SharedSessionContractImplementor.class), deltas -> {
+            passengersByOldAirport.forEach((airportId, count) -> deltas.airportPassengers(airportId, -count));
+            deltas.airportPassengers(newAirportId, moved);
+        });
+    }
+
+    /**
+     * @param ticketsByPassenger deleted tickets per passenger (tickets without passenger not included)
+     * @param ticketsByDate      deleted tickets per date of their type (latestDepartureDate, latestReturnDate)
+     * @param ticketType         discriminator value of the deleted tickets, e.g. OneWayTicket.TYPE
+     */
+    public static void ticketsDeleted(EntityManager em, String ticketType, Map<Long, Long> ticketsByPassenger,
+                                      Map<LocalDate, Long> ticketsByDate) {
+        if (!enabled(em)) return;
+        ReportDeltas.record(em.unwrap(SharedSessionContractImplementor.class), deltas -> {
+            ticketsByPassenger.forEach((passengerId, count) -> deltas.passengerTickets(passengerId, -count));
+            ticketsByDate.forEach((date, count) -> deltas.dayTickets(date, ticketType, -count));
+        });
+    }
+
+    private static boolean enabled(EntityManager em) {
+        return Boolean.parseBoolean(String.valueOf(em.getEntityManagerFactory().getProperties().getOrDefault(ReportIntegrator.ENABLED, "true")));
+    }
+}
@@ -0,0 +1,65 @@
+package al420445.dao.report;
+
+import al420445.dao.tx.TransactionExecutor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Dashboard queries on the summary tables: each reads the rows it returns (plus a primary key
+ * lookup for the names), whatever the number of tickets. Results are scalar DTOs, no entity
+ * is loaded.
+ *
+ * The tables are maintained by ReportListener; ReportRebuild recomputes them from scratch.
+ */
+public class ReportDao {
+
+    /**
+     * Keyset pagination over the passengers, ordered by id, including those without tickets:
+     * a tickets > 0 filter would make the database pick the TICKETS index and sort every row.
+     * Replaces Ticket.COUNT_BY_PASSENGER, which groups the whole TICKET table and loads every passenger.
+     */
+    public List<PassengerTicketsDTO> ticketsPerPassenger(long afterPassengerId, int limit) {
+        return TransactionExecutor.executeReadOnly(em ->
+                em.createNamedQuery(PassengerTicketTotal.FIND_AFTER_ID, PassengerTicketsDTO.class)
+                        .setParameter("afterId", afterPassengerId)
+                        .setMaxResults(limit)
+                        .getResultList());
+    }
+
+    public List<PassengerTicketsDTO> topPassengers(int limit) {
+        return TransactionExecutor.executeReadOnly(em ->
+                em.createNamedQuery(PassengerTicketTotal.FIND_TOP, PassengerTicketsDTO.class)
+                        .setMaxResults(limit)
+                        .getResultList());
+    }
+
+    public long ticketCount(long passengerId) {
+        return TransactionExecutor.executeReadOnly(em ->
+                em.createNamedQuery(PassengerTicketTotal.COUNT_FOR_PASSENGER, Long.class)
+                        .setParameter("passengerId", passengerId)
+                        .getResultStream()
+                        .findFirst()
+                        .orElse(0L));
+    }
+
+    /**
+     * Every airport, with 0 for those without passengers.
+     */
+    public List<AirportPassengersDTO> passengersPerAirport() {
+        return TransactionExecutor.executeReadOnly(em ->
+                em.createNamedQuery(AirportPassengerTotal.FIND_ALL, AirportPassengersDTO.class)
+                        .getResultList());
+    }
+
+    /**
+     * Tickets per day and type, from and to included.
+     */
+    public List<DailyTicketsDTO> ticketsPerDay(LocalDate from, LocalDate to) {
+        return TransactionExecutor.executeReadOnly(em ->
+                em.createNamedQuery(DailyTicketTotal.FIND_BETWEEN, DailyTicketsDTO.class)
+                        .setParameter("from", from)
+                        .setParameter("to", to)
+                        .getResultList());
+    }
+}
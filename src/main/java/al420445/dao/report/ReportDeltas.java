@@ -0,0 +1,179 @@
+package al420445.dao.report;
+
+import jakarta.transaction.Synchronization;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Changes to the summary tables made by one transaction, written just before it commits.
+ *
+ * Deltas are summed per key in memory, so a transaction adding 1000 tickets to one passenger
+ * updates its row once. Writing at the end of the transaction keeps the summary rows locked only
+ * for the commit, and in key order, so two transactions touching the same airports cannot deadlock.
+ */
+final class ReportDeltas implements Synchronization {
+
+    private static final Map<SharedSessionContractImplementor, ReportDeltas> PENDING = new ConcurrentHashMap<>();
+
+    record DayKey(LocalDate date, String type) {
+        static final Comparator<DayKey> ORDER = Comparator.comparing(DayKey::date).thenComparing(DayKey::type);
+    }
+
+    private final SharedSessionContractImplementor session;
+    private final Map<Long, Long> ticketsByPassenger = new TreeMap<>();
+    private final Map<Long, Long> passengersByAirport = new TreeMap<>();
+    private final Map<DayKey, Long> ticketsByDay = new TreeMap<>(DayKey.ORDER);
+    private final Set<Long> removedPassengers = new TreeSet<>();
+    private final Set<Long> removedAirports = new TreeSet<>();
+
+    private ReportDeltas(SharedSessionContractImplementor session) {
+        this.session = session;
+    }
+
+    /**
+     * Records changes for the current transaction of the session (applied immediately without one).
+     * Events of a StatelessSession have no session (Hibernate 6.6): they are ignored.
+     */
+    static void record(SharedSessionContractImplementor session, Consumer<ReportDeltas> changes) {
+        if (session == null) {
+            return;
+        }
+        if (!session.isTransactionInProgress()) {
+            ReportDeltas deltas = new ReportDeltas(session);
+            changes.accept(deltas);
+            deltas.apply();
+            return;
+        }
+        changes.accept(PENDING.computeIfAbsent(session, owner -> {
+            ReportDeltas deltas = new ReportDeltas(owner);
+            owner.getTransactionCoordinator().getLocalSynchronizations().registerSynchronization(deltas);
+            return deltas;
+        }));
+    }
+
+    void passengerTickets(long passengerId, long delta) {
+        ticketsByPassenger.merge(passengerId, delta, Long::sum);
+    }
+
+    void airportPassengers(long airportId, long delta) {
+        passengersByAirport.merge(airportId, delta, Long::sum);
+    }
+
+    void dayTickets(LocalDate date, String type, long delta) {
+        ticketsByDay.merge(new DayKey(date, type), delta, Long::sum);
+    }
+
+    void passengerRemoved(long passengerId) {
+        removedPassengers.add(passengerId);
+    }
+
+    void airportRemoved(long airportId) {
+        removedAirports.add(airportId);
+    }
+
+    @Override
+    public void beforeCompletion() {
+        apply();
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        PENDING.remove(session);
+    }
+
+    private void apply() {
+        session.doWork(connection -> {
+            boolean postgres = session.getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+            upsert(connection, upsert(postgres, PassengerTicketTotal.TABLE, "TICKETS", "PASSENGER_ID bigint"),
+                    ticketsByPassenger, (statement, passengerId) -> statement.setLong(1, passengerId));
+            upsert(connection, upsert(postgres, AirportPassengerTotal.TABLE, "PASSENGERS", "AIRPORT_ID bigint"),
+                    passengersByAirport, (statement, airportId) -> statement.setLong(1, airportId));
+            upsert(connection, upsert(postgres, DailyTicketTotal.TABLE, "TICKETS", "TICKET_DATE date", "TICKET_TYPE varchar(16)"),
+                    ticketsByDay, (statement, day) -> {
+                        statement.setDate(1, Date.valueOf(day.date()));
+                        statement.setString(2, day.type());
+                    });
+            delete(connection, PassengerTicketTotal.TABLE, "PASSENGER_ID", removedPassengers);
+            delete(connection, AirportPassengerTotal.TABLE, "AIRPORT_ID", removedAirports);
+        });
+    }
+
+    @FunctionalInterface
+    private interface KeyBinder<K> {
+        void bind(PreparedStatement statement, K key) throws SQLException;
+    }
+
+    /**
+     * @param binder sets the key columns, parameters 1..n; the delta is parameter n + 1
+     */
+    private static <K> void upsert(Connection connection, String sql, Map<K, Long> deltas, KeyBinder<K> binder) throws SQLException {
+        if (deltas.isEmpty()) return;
+        int delta = (int) sql.chars().filter(c -> c == '?').count();
+        try (PreparedStatement upsert = connection.prepareStatement(sql)) {
+            for (Map.Entry<K, Long> entry : deltas.entrySet()) {
+                binder.bind(upsert, entry.getKey());
+                upsert.setLong(delta, entry.getValue());
+                upsert.addBatch();
+            }
+            upsert.executeBatch();
+        }
+    }
+
+    /**
+     * Adds the delta (last parameter) to the counter of the key, creating the row if needed.
+     * PostgreSQL: INSERT ... ON CONFLICT, which is atomic when two transactions create the same key
+     * (MERGE is not). Others (H2): standard MERGE.
+     *
+     * @param keys "COLUMN sqltype" of each key column, in parameter order
+     */
+    static String upsert(boolean postgres, String table, String counter, String... keys) {
+        String[] columns = new String[keys.length];
+        String[] parameters = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            String[] columnAndType = keys[i].split(" ", 2);
+            columns[i] = columnAndType[0];
+            parameters[i] = "cast(? as " + columnAndType[1] + ")";
+        }
+        String keyColumns = String.join(", ", columns);
+        if (postgres) {
+            return "insert into " + table + " (" + keyColumns + ", " + counter + ") values ("
+                    + String.join(", ", parameters) + ", cast(? as bigint)) "
+                    + "on conflict (" + keyColumns + ") do update set " + counter + " = "
+                    + table + "." + counter + " + excluded." + counter;
+        }
+        StringBuilder on = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (String column : columns) {
+            on.append(on.isEmpty() ? "" : " and ").append("r.").append(column).append(" = d.").append(column);
+            values.append("d.").append(column).append(", ");
+        }
+        return "merge into " + table + " r using (values (" + String.join(", ", parameters) + ", cast(? as bigint))) "
+                + "d(" + keyColumns + ", DELTA) on " + on
+                + " when matched then update set " + counter + " = r." + counter + " + d.DELTA"
+                + " when not matched then insert (" + keyColumns + ", " + counter + ") values (" + values + "d.DELTA)";
+    }
+
+    private static void delete(Connection connection, String table, String column, Set<Long> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        try (PreparedStatement delete = connection.prepareStatement("delete from " + table + " where " + column + " = ?")) {
+            for (long id : ids) {
+                delete.setLong(1, id);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package al420445.dao.report;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Registers ReportListener on every EntityManagerFactory, unless al420445.report.enabled is false.
+ * Discovered by Hibernate through META-INF/services/org.hibernate.integrator.spi.Integrator.
+ */
+public class ReportIntegrator implements Integrator {
+
+    public static final String ENABLED = "al420445.report.enabled";
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        if (!Boolean.parseBoolean(String.valueOf(sessionFactory.getProperties().getOrDefault(ENABLED, "true")))) {
+            return;
+        }
+        ReportListener listener = new ReportListener();
+        EventListenerRegistry listeners = sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_INSERT, listener);
+        listeners.appendListeners(EventType.POST_UPDATE, listener);
+        listeners.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,136 @@
+package al420445.dao.report;
+
+import al420445.airport.Airport;
+import al420445.airport.OneWayTicket;
+import al420445.airport.Passenger;
+import al420445.airport.ReturnTicket;
+import al420445.airport.Ticket;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the summary tables in step with inserts, updates and deletes of tickets, passengers
+ * and airports made through an EntityManager/Session.
+ *
+ * Not seen: bulk HQL/SQL statements (delete from Ticket ...) and StatelessSession writes
+ * (PassengerImporter), whose events carry no session. Run ReportRebuild after them, or record
+ * their changes with ReportBulkChanges (BulkPassengerTransfer, TicketRetentionJob).
+ */
+final class ReportListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // The only date of each ticket type
+    private static final Map<String, String> TICKET_DATE = Map.of(
+            OneWayTicket.TYPE, "latestDepartureDate",
+            ReturnTicket.TYPE, "latestReturnDate");
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        EntityPersister persister = event.getPersister();
+        Object[] state = event.getState();
+        if (entity instanceof Ticket) {
+            ReportDeltas.record(event.getSession(), deltas -> ticket(deltas, persister, state, 1));
+        } else if (entity instanceof Passenger passenger) {
+            ReportDeltas.record(event.getSession(), deltas -> {
+                passenger(deltas, persister, state, 1);
+                // Row created with the passenger: its first tickets only update it
+                deltas.passengerTickets(passenger.getId(), 0);
+            });
+        } else if (entity instanceof Airport airport) {
+            ReportDeltas.record(event.getSession(), deltas -> deltas.airportPassengers(airport.getId(), 0));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        EntityPersister persister = event.getPersister();
+        Object[] oldState = event.getOldState();
+        Object[] state = event.getState();
+        if (oldState == null) return;
+        if (entity instanceof Ticket) {
+            if (!changed(persister, oldState, state, "passenger") && !changed(persister, oldState, state, dateAttribute(persister))) {
+                return;
+            }
+            ReportDeltas.record(event.getSession(), deltas -> {
+                ticket(deltas, persister, oldState, -1);
+                ticket(deltas, persister, state, 1);
+            });
+        } else if (entity instanceof Passenger && changed(persister, oldState, state, "airport")) {
+            ReportDeltas.record(event.getSession(), deltas -> {
+                passenger(deltas, persister, oldState, -1);
+                passenger(deltas, persister, state, 1);
+            });
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        EntityPersister persister = event.getPersister();
+        Object[] state = event.getDeletedState();
+        if (entity instanceof Ticket) {
+            ReportDeltas.record(event.getSession(), deltas -> ticket(deltas, persister, state, -1));
+        } else if (entity instanceof Passenger) {
+            long passengerId = (Long) event.getId();
+            ReportDeltas.record(event.getSession(), deltas -> {
+                passenger(deltas, persister, state, -1);
+                deltas.passengerRemoved(passengerId);
+            });
+        } else if (entity instanceof Airport) {
+            long airportId = (Long) event.getId();
+            ReportDeltas.record(event.getSession(), deltas -> deltas.airportRemoved(airportId));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static void ticket(ReportDeltas deltas, EntityPersister persister, Object[] state, long delta) {
+        if (value(persister, state, "passenger") instanceof Passenger passenger) {
+            deltas.passengerTickets(passenger.getId(), delta);
+        }
+        if (value(persister, state, dateAttribute(persister)) instanceof LocalDate date) {
+            deltas.dayTickets(date, (String) persister.getDiscriminatorValue(), delta);
+        }
+    }
+
+    private static void passenger(ReportDeltas deltas, EntityPersister persister, Object[] state, long delta) {
+        if (value(persister, state, "airport") instanceof Airport airport) {
+            deltas.airportPassengers(airport.getId(), delta);
+        }
+    }
+
+    private static String dateAttribute(EntityPersister persister) {
+        return TICKET_DATE.get((String) persister.getDiscriminatorValue());
+    }
+
+    private static boolean changed(EntityPersister persister, Object[] oldState, Object[] state, String attribute) {
+        return !Objects.equals(id(value(persister, oldState, attribute)), id(value(persister, state, attribute)));
+    }
+
+    private static Object value(EntityPersister persister, Object[] state, String attribute) {
+        return attribute == null || state == null ? null : state[persister.getPropertyIndex(attribute)];
+    }
+
+    // Associations are compared by id: the old state may hold another instance (or a proxy) of the same row
+    private static Object id(Object value) {
+        return switch (value) {
+            case Passenger passenger -> passenger.getId();
+            case Airport airport -> airport.getId();
+            case null, default -> value;
+        };
+    }
+}
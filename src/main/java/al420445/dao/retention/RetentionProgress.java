@@ -0,0 +1,39 @@
+package al420445.dao.retention;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Snapshot of a TicketRetentionJob, from TicketRetentionJob.getProgress().
+ *
+ * @param state          RUNNING while a pass deletes chunks, PAUSED between pause() and resume()
+ * @param cutoff         tickets whose date is before it are expired (cutoff of the current or last pass)
+ * @param passes         completed passes: all the expired tickets found were deleted
+ * @param deleted        tickets deleted since the job was created
+ * @param chunks         committed chunks (transactions)
+ * @param failures       failed chunks, rolled back
+ * @param chunkSize      size of the next chunk
+ * @param lastLatency    time of the last chunk, from its select to its commit
+ * @param p99Latency     99th percentile of the last 256 chunks
+ * @param throttled      time spent waiting for the rate limit
+ * @param active         time spent in passes, waits included
+ */
+public record RetentionProgress(State state, LocalDate cutoff, long passes, long deleted, long chunks, long failures,
+                                int chunkSize, Duration lastLatency, Duration p99Latency, Duration throttled,
+                                Duration active) {
+
+    public enum State {IDLE, RUNNING, PAUSED, CLOSED}
+
+    /**
+     * Deleted tickets per second of pass, waits for the rate limit included.
+     */
+    public double rowsPerSecond() {
+        return active.isZero() ? 0 : deleted / (active.toNanos() / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, %,d deleted in %,d chunks (%,d failed), next chunk %,d, last %,.1f ms, p99 %,.1f ms, %,.0f rows/s",
+                state, deleted, chunks, failures, chunkSize, lastLatency.toNanos() / 1e6, p99Latency.toNanos() / 1e6, rowsPerSecond());
+    }
+}
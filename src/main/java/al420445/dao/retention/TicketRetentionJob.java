@@ -0,0 +1,312 @@
+package al420445.dao.retention;
+
+import al420445.airport.OneWayTicket;
+import al420445.airport.ReturnTicket;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.cdc.CdcBulkChanges;
+import al420445.dao.report.ReportBulkChanges;
+import al420445.dao.tx.TransactionExecutor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deletes expired tickets in the background, a small chunk at a time, instead of one
+ * "delete from OneWayTicket t where t.latestDepartureDate &lt; :cutoff" that locks every expired
+ * row until its commit:
+ * <pre>
+ * try (TicketRetentionJob retention = new TicketRetentionJob().start()) {
+ *     ...
+ *     retention.pause();   // e.g. during a traffic peak: stops after the current chunk
+ *     retention.resume();  // continues where it stopped
+ * }
+ * </pre>
+ * A ticket is expired when its date (OneWayTicket.latestDepartureDate, ReturnTicket.latestReturnDate)
+ * is before today minus {@code retention}. Every {@code interval}, a pass walks each ticket type in id
+ * order (keyset: "t.id &gt; :lastDeletedId", no offset), so the whole pass reads the table once. Each
+ * chunk is one transaction:
+ * - the ids, passengers and dates of the next expired tickets are selected, rows locked (for update)
+ * - one "delete ... where t.id in :ids" (padded to a power of two of parameters, see persistence.xml)
+ * - the summary tables and the change log record the deletes (ReportBulkChanges, CdcBulkChanges),
+ *   which their listeners do not see
+ *
+ * Chunk size: starts at 100 and adapts to the time of each full chunk, from its select to its commit
+ * (how long its locks are held). Above {@code targetLatency} it shrinks to the size that would have
+ * met it; under half of it, it grows by a quarter. Bounded by MIN_CHUNK_SIZE and MAX_CHUNK_SIZE.
+ * Rate: after each chunk, the job waits until at most {@code maxRowsPerSecond} rows per second were
+ * deleted, which leaves the connections and the CPU to the production traffic.
+ *
+ * A failed chunk (e.g. a lock timeout) is rolled back, halves the chunk size and ends the pass: the
+ * next one starts again from the first expired ticket. Caches: the bulk delete invalidates the query
+ * cache results on TICKET; loaded Passenger.tickets lists are not refreshed.
+ */
+public class TicketRetentionJob implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketRetentionJob.class);
+
+    public static final Period DEFAULT_RETENTION = Period.ofDays(30);
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(10);
+    public static final Duration DEFAULT_TARGET_LATENCY = Duration.ofMillis(20);
+    public static final int DEFAULT_MAX_ROWS_PER_SECOND = 2_000;
+
+    public static final int MIN_CHUNK_SIZE = 10;
+    public static final int MAX_CHUNK_SIZE = 5_000;
+    private static final int INITIAL_CHUNK_SIZE = 100;
+    private static final int LATENCY_WINDOW = 256;
+
+    // Each ticket type and its only date
+    private record Expiry(String entityName, String type, String dateAttribute) {
+    }
+
+    private static final List<Expiry> EXPIRIES = List.of(
+            new Expiry("OneWayTicket", OneWayTicket.TYPE, "latestDepartureDate"),
+            new Expiry("ReturnTicket", ReturnTicket.TYPE, "latestReturnDate"));
+
+    private record Chunk(int rows, long lastId) {
+        static final Chunk EMPTY = new Chunk(0, 0);
+    }
+
+    private final EntityManagerFactory emf;
+    private final Period retention;
+    private final Duration interval;
+    private final long targetLatencyNanos;
+    private final int maxRowsPerSecond;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ticket-retention").daemon().factory());
+    private ScheduledFuture<?> schedule;
+    private volatile boolean paused;
+    private volatile boolean closed;
+    private volatile Thread worker;
+    private volatile long passStart;
+
+    // Position of the current pass, kept across pause(): written by the job thread only
+    private volatile LocalDate cutoff;
+    private int expiryIndex;
+    private long lastDeletedId;
+    private volatile int chunkSize = INITIAL_CHUNK_SIZE;
+
+    private final LongAdder passes = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder throttledNanos = new LongAdder();
+    private final LongAdder activeNanos = new LongAdder();
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long latencyCount;
+
+    public TicketRetentionJob(EntityManagerFactory emf, Period retention, Duration interval,
+                              Duration targetLatency, int maxRowsPerSecond) {
+        if (retention.isNegative() || !interval.isPositive() || !targetLatency.isPositive() || maxRowsPerSecond < 1) {
+            throw new IllegalArgumentException("Invalid retention settings: " + retention + ", " + interval + ", "
+                    + targetLatency + ", " + maxRowsPerSecond + " rows/s");
+        }
+        this.emf = emf;
+        this.retention = retention;
+        this.interval = interval;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    /**
+     * Shared factory, default retention, interval, target latency and rate
+     */
+    public TicketRetentionJob() {
+        this(JpaUtil.getEntityManagerFactory(), DEFAULT_RETENTION, DEFAULT_INTERVAL, DEFAULT_TARGET_LATENCY, DEFAULT_MAX_ROWS_PER_SECOND);
+    }
+
+    /**
+     * Schedules a pass now, then {@code interval} after the end of each pass.
+     */
+    public synchronized TicketRetentionJob start() {
+        if (closed) throw new IllegalStateException("TicketRetentionJob is closed");
+        if (schedule != null) throw new IllegalStateException("TicketRetentionJob already started");
+        schedule = executor.scheduleWithFixedDelay(this::runPass, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+        return this;
+    }
+
+    /**
+     * One pass now, after the current one if any; completes with the progress when it stops
+     * (done, paused or failed). Does nothing while paused.
+     */
+    public CompletableFuture<RetentionProgress> runOnce() {
+        return CompletableFuture.supplyAsync(() -> {
+            runPass();
+            return getProgress();
+        }, executor);
+    }
+
+    /**
+     * Stops after the current chunk; the pass continues from there on resume().
+     */
+    public void pause() {
+        paused = true;
+        LockSupport.unpark(worker);
+    }
+
+    public void resume() {
+        if (!paused) return;
+        paused = false;
+        if (!closed) executor.execute(this::runPass);
+    }
+
+    public RetentionProgress getProgress() {
+        RetentionProgress.State state = closed ? RetentionProgress.State.CLOSED
+                : paused ? RetentionProgress.State.PAUSED
+                : worker != null ? RetentionProgress.State.RUNNING
+                : RetentionProgress.State.IDLE;
+        long[] window;
+        long last;
+        synchronized (latencies) {
+            int size = (int) Math.min(latencyCount, LATENCY_WINDOW);
+            window = Arrays.copyOf(latencies, size);
+            last = latencyCount == 0 ? 0 : latencies[(int) ((latencyCount - 1) % LATENCY_WINDOW)];
+        }
+        long started = passStart;
+        long active = activeNanos.sum() + (started == 0 ? 0 : System.nanoTime() - started);
+        Arrays.sort(window);
+        long p99 = window.length == 0 ? 0 : window[(int) Math.ceil(0.99 * window.length) - 1];
+        return new RetentionProgress(state, cutoff, passes.sum(), deleted.sum(), chunks.sum(), failures.sum(), chunkSize,
+                Duration.ofNanos(last), Duration.ofNanos(p99), Duration.ofNanos(throttledNanos.sum()), Duration.ofNanos(active));
+    }
+
+    private void runPass() {
+        if (paused || closed) return;
+        worker = Thread.currentThread();
+        long start = System.nanoTime();
+        passStart = start;
+        try {
+            if (cutoff == null) {
+                cutoff = LocalDate.now().minus(retention);
+            }
+            while (expiryIndex < EXPIRIES.size()) {
+                if (paused || closed) return;
+                Expiry expiry = EXPIRIES.get(expiryIndex);
+                LocalDate before = cutoff;
+                long after = lastDeletedId;
+                int size = chunkSize;
+                long chunkStart = System.nanoTime();
+                Chunk chunk = TransactionExecutor.executeInTransaction(emf, em -> deleteChunk(em, expiry, before, after, size));
+                long latency = System.nanoTime() - chunkStart;
+                if (chunk.rows() > 0) {
+                    chunks.increment();
+                    deleted.add(chunk.rows());
+                    recordLatency(latency);
+                    lastDeletedId = chunk.lastId();
+                }
+                if (chunk.rows() < size) {
+                    expiryIndex++;
+                    lastDeletedId = 0;
+                } else {
+                    chunkSize = adapt(size, latency, targetLatencyNanos);
+                }
+                throttle(chunk.rows(), chunkStart);
+            }
+            passes.increment();
+            endPass();
+        } catch (RuntimeException ex) {
+            failures.increment();
+            chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize / 2);
+            endPass();
+            log.warn("Ticket retention chunk failed, expired tickets left for the next pass", ex);
+        } finally {
+            passStart = 0;
+            activeNanos.add(System.nanoTime() - start);
+            worker = null;
+        }
+    }
+
+    private void endPass() {
+        cutoff = null;
+        expiryIndex = 0;
+        lastDeletedId = 0;
+    }
+
+    private static Chunk deleteChunk(EntityManager em, Expiry expiry, LocalDate cutoff, long afterId, int size) {
+        List<Object[]> rows = em.createQuery("""
+                        select t.id, t.passenger.id, t.%s from %s t
+                        where t.%s < :cutoff and t.id > :afterId
+                        order by t.id""".formatted(expiry.dateAttribute(), expiry.entityName(), expiry.dateAttribute()), Object[].class)
+                .setParameter("cutoff", cutoff)
+                .setParameter("afterId", afterId)
+                .setMaxResults(size)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (rows.isEmpty()) return Chunk.EMPTY;
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        Map<Long, Long> byPassenger = new TreeMap<>();
+        Map<LocalDate, Long> byDate = new TreeMap<>();
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+            if (row[1] instanceof Long passengerId) byPassenger.merge(passengerId, 1L, Long::sum);
+            byDate.merge((LocalDate) row[2], 1L, Long::sum);
+        }
+        em.createQuery("delete from %s t where t.id in :ids".formatted(expiry.entityName()))
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        ReportBulkChanges.ticketsDeleted(em, expiry.type(), byPassenger, byDate);
+        CdcBulkChanges.ticketsDeleted(em, ids);
+        return new Chunk(ids.size(), ids.getLast());
+    }
+
+    static int adapt(int size, long latencyNanos, long targetNanos) {
+        if (latencyNanos > targetNanos) {
+            return (int) Math.max(MIN_CHUNK_SIZE, size * targetNanos / latencyNanos);
+        }
+        if (latencyNanos < targetNanos / 2) {
+            return Math.min(MAX_CHUNK_SIZE, size + Math.max(size / 4, 1));
+        }
+        return size;
+    }
+
+    /**
+     * Waits until {@code rows} took at least rows / maxRowsPerSecond seconds since the chunk started.
+     */
+    private void throttle(int rows, long chunkStart) {
+        long deadline = chunkStart + rows * 1_000_000_000L / maxRowsPerSecond;
+        long waitStart = System.nanoTime();
+        long remaining;
+        while (!paused && !closed && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        throttledNanos.add(Math.max(0, System.nanoTime() - waitStart));
+    }
+
+    private void recordLatency(long nanos) {
+        synchronized (latencies) {
+            latencies[(int) (latencyCount++ % LATENCY_WINDOW)] = nanos;
+        }
+    }
+
+    /**
+     * Stops after the current chunk and waits for it.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(worker);
+        executor.close();
+    }
+}
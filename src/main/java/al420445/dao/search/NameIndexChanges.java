@@ -0,0 +1,59 @@
+package al420445.dao.search;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Name changes made by one transaction, given to the index once it has committed:
+ * a rolled-back insert or rename never shows up in the suggestions.
+ */
+final class NameIndexChanges implements Synchronization {
+
+    private static final Map<SharedSessionContractImplementor, NameIndexChanges> PENDING = new ConcurrentHashMap<>();
+
+    private final SharedSessionContractImplementor session;
+    private final PassengerNameIndex index;
+    private final List<PassengerNameIndex.Change> changes = new ArrayList<>();
+
+    private NameIndexChanges(SharedSessionContractImplementor session, PassengerNameIndex index) {
+        this.session = session;
+        this.index = index;
+    }
+
+    /**
+     * Records a change for the current transaction of the session (applied immediately without one).
+     * Events of a StatelessSession have no session (Hibernate 6.6): they are ignored.
+     */
+    static void record(SharedSessionContractImplementor session, PassengerNameIndex index, PassengerNameIndex.Change change) {
+        if (session == null) {
+            return;
+        }
+        if (!session.isTransactionInProgress()) {
+            index.apply(List.of(change));
+            return;
+        }
+        PENDING.computeIfAbsent(session, owner -> {
+            NameIndexChanges pending = new NameIndexChanges(owner, index);
+            owner.getTransactionCoordinator().getLocalSynchronizations().registerSynchronization(pending);
+            return pending;
+        }).changes.add(change);
+    }
+
+    @Override
+    public void beforeCompletion() {
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        PENDING.remove(session);
+        if (status == Status.STATUS_COMMITTED) {
+            index.apply(changes);
+        }
+    }
+}
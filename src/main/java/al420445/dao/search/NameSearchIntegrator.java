@@ -0,0 +1,116 @@
+package al420445.dao.search;
+
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Completes the PASSENGERS.NAME_SEARCH column (Passenger.nameSearch) when Hibernate manages the
+ * schema (hibernate.hbm2ddl.auto update or create), once the factory is open:
+ * <ul>
+ *   <li>fills NAME_SEARCH where it is null, with Passenger.normalizeName: rows written before the column
+ *   existed (hbm2ddl update adds it empty) or by plain SQL. The name searches only read NAME_SEARCH and
+ *   would miss them.</li>
+ *   <li>on PostgreSQL, creates IDX_PASSENGERS_NAME_SEARCH_PATTERN with varchar_pattern_ops: with a
+ *   non-C collation, LIKE 'abc%' cannot use the plain index, which only serves equality and ORDER BY.</li>
+ * </ul>
+ * Both are no-ops once done. With hibernate.hbm2ddl.auto none (fast boot), run them with the
+ * schema migrations. Discovered by Hibernate through META-INF/services/org.hibernate.integrator.spi.Integrator.
+ */
+public class NameSearchIntegrator implements Integrator {
+
+    private static final Set<String> SCHEMA_MANAGED = Set.of("update", "create", "create-drop", "create-only");
+
+    private static final Logger log = LoggerFactory.getLogger(NameSearchIntegrator.class);
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        if (!SCHEMA_MANAGED.contains(String.valueOf(sessionFactory.getProperties().getOrDefault("hibernate.hbm2ddl.auto", "none")))) {
+            return;
+        }
+        sessionFactory.addObserver(new SessionFactoryObserver() {
+            @Override
+            public void sessionFactoryCreated(SessionFactory factory) {
+                try (StatelessSession session = factory.openStatelessSession()) {
+                    Transaction tx = session.beginTransaction();
+                    try {
+                        long filled = fill(session);
+                        if (sessionFactory.getJdbcServices().getDialect() instanceof PostgreSQLDialect) {
+                            session.createNativeMutationQuery("""
+                                    create index if not exists IDX_PASSENGERS_NAME_SEARCH_PATTERN
+                                    on PASSENGERS (NAME_SEARCH varchar_pattern_ops)""").executeUpdate();
+                        }
+                        tx.commit();
+                        if (filled > 0) {
+                            log.info("NAME_SEARCH filled for {} passengers", filled);
+                        }
+                    } catch (RuntimeException ex) {
+                        if (tx.isActive()) tx.rollback();
+                        throw ex;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes Passenger.normalizeName(name) where NAME_SEARCH is null, in JDBC batches. Not lower() in SQL:
+     * its result depends on the database (a PostgreSQL with a C ctype leaves 'É' unchanged), and a prefix
+     * normalized in Java would not match.
+     */
+    private static long fill(StatelessSession session) {
+        long filled = 0;
+        List<Object[]> batch = new ArrayList<>(JpaUtil.BATCH_SIZE);
+        try (ScrollableResults<Object[]> rows = session.createSelectionQuery(
+                        "select p.id, p.name from Passenger p where p.nameSearch is null and p.name is not null", Object[].class)
+                .setFetchSize(JpaUtil.FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                batch.add(rows.get());
+                if (batch.size() == JpaUtil.BATCH_SIZE) {
+                    filled += write(session, batch);
+                    batch.clear();
+                }
+            }
+        }
+        return filled + write(session, batch);
+    }
+
+    private static int write(StatelessSession session, List<Object[]> rows) {
+        if (rows.isEmpty()) return 0;
+        session.doWork(connection -> {
+            try (PreparedStatement update = connection.prepareStatement("update PASSENGERS set NAME_SEARCH = ? where ID = ?")) {
+                for (Object[] row : rows) {
+                    update.setString(1, Passenger.normalizeName((String) row[1]));
+                    update.setLong(2, (Long) row[0]);
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+        });
+        return rows.size();
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
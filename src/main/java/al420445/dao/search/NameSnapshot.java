@@ -0,0 +1,238 @@
+package al420445.dao.search;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Immutable sorted array of (search key, passenger id, name) entries, stored off-heap.
+ *
+ * Four segments, no object per entry: ids (long), entry offsets into data (int, one more than
+ * the number of entries), key lengths (short) and data, where each entry is its UTF-8 key
+ * (Passenger.normalizeName) followed by its UTF-8 name. Entries are ordered by key bytes
+ * (unsigned, i.e. code point order), then id; a prefix search is a binary search followed
+ * by a forward scan.
+ *
+ * The segments belong to an automatic arena: the memory is released by the garbage collector
+ * once no reader holds the snapshot anymore, so a new snapshot can replace this one without
+ * waiting for the readers.
+ */
+final class NameSnapshot {
+
+    private static final ValueLayout.OfLong ID = ValueLayout.JAVA_LONG;
+    private static final ValueLayout.OfInt OFFSET = ValueLayout.JAVA_INT;
+    private static final ValueLayout.OfShort KEY_LENGTH = ValueLayout.JAVA_SHORT;
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+    private final int size;
+    private final MemorySegment ids;
+    private final MemorySegment offsets;
+    private final MemorySegment keyLengths;
+    private final MemorySegment data;
+
+    private NameSnapshot(int size, MemorySegment ids, MemorySegment offsets, MemorySegment keyLengths, MemorySegment data) {
+        this.size = size;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.keyLengths = keyLengths;
+        this.data = data;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long byteSize() {
+        return ids.byteSize() + offsets.byteSize() + keyLengths.byteSize() + data.byteSize();
+    }
+
+    long id(int index) {
+        return ids.getAtIndex(ID, index);
+    }
+
+    String name(int index) {
+        long from = offset(index) + keyLength(index);
+        byte[] bytes = data.asSlice(from, offset(index + 1) - from).toArray(BYTE);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the first entry whose key is greater than or equal to {@code key}, or size()
+     */
+    int lowerBound(byte[] key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareKey(middle, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    boolean keyStartsWith(int index, byte[] prefix) {
+        if (keyLength(index) < prefix.length) {
+            return false;
+        }
+        return MemorySegment.mismatch(data, offset(index), offset(index) + prefix.length,
+                MemorySegment.ofArray(prefix), 0, prefix.length) == -1;
+    }
+
+    /**
+     * Order of entry {@code index} relative to (key, id).
+     */
+    int compare(int index, byte[] key, long id) {
+        int byKey = compareKey(index, key);
+        return byKey != 0 ? byKey : Long.compare(id(index), id);
+    }
+
+    private int compareKey(int index, byte[] key) {
+        return compare(data, offset(index), keyLength(index), key);
+    }
+
+    private int offset(int index) {
+        return offsets.getAtIndex(OFFSET, index);
+    }
+
+    private int keyLength(int index) {
+        return Short.toUnsignedInt(keyLengths.getAtIndex(KEY_LENGTH, index));
+    }
+
+    /**
+     * Unsigned lexicographic order of {@code length} bytes of {@code segment} and {@code key}.
+     */
+    private static int compare(MemorySegment segment, long offset, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int byByte = Byte.compareUnsigned(segment.get(BYTE, offset + i), key[i]);
+            if (byByte != 0) {
+                return byByte;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    static int compare(byte[] key, long id, byte[] otherKey, long otherId) {
+        int byKey = Arrays.compareUnsigned(key, otherKey);
+        return byKey != 0 ? byKey : Long.compare(id, otherId);
+    }
+
+    /**
+     * Appends entries to growing off-heap segments. Entries should come in order (the scan query
+     * sorts them); if the database collation disagrees with the byte order, build() sorts them.
+     */
+    static final class Builder {
+
+        private final Arena arena = Arena.ofAuto();
+        private int size;
+        private MemorySegment ids;
+        private MemorySegment offsets;
+        private MemorySegment keyLengths;
+        private MemorySegment data;
+        private long dataSize;
+        private boolean sorted = true;
+        private byte[] lastKey = new byte[0];
+        private long lastId = Long.MIN_VALUE;
+
+        Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            ids = arena.allocate(ID.byteSize() * capacity, ID.byteAlignment());
+            offsets = arena.allocate(OFFSET.byteSize() * (capacity + 1L), OFFSET.byteAlignment());
+            keyLengths = arena.allocate(KEY_LENGTH.byteSize() * capacity, KEY_LENGTH.byteAlignment());
+            data = arena.allocate(32L * capacity, 1);
+        }
+
+
+        void add(long id, byte[] key, byte[] name) {
+            if (key.length > 0xFFFF) {
+                throw new IllegalArgumentException("Name of passenger " + id + " is too long to be indexed");
+            }
+            if (dataSize + key.length + name.length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("More than 2 GB of names");
+            }
+            ensureCapacity(key.length + name.length);
+            if (sorted && compare(key, id, lastKey, lastId) < 0) {
+                sorted = false;
+            }
+            lastKey = key;
+            lastId = id;
+
+            ids.setAtIndex(ID, size, id);
+            offsets.setAtIndex(OFFSET, size, (int) dataSize);
+            keyLengths.setAtIndex(KEY_LENGTH, size, (short) key.length);
+            MemorySegment.copy(key, 0, data, BYTE, dataSize, key.length);
+            MemorySegment.copy(name, 0, data, BYTE, dataSize + key.length, name.length);
+            dataSize += key.length + name.length;
+            size++;
+        }
+
+        /**
+         * Copies entry {@code index} of {@code snapshot} without decoding it.
+         */
+        void add(NameSnapshot snapshot, int index) {
+            int from = snapshot.offset(index);
+            int length = snapshot.offset(index + 1) - from;
+            byte[] key = snapshot.data.asSlice(from, snapshot.keyLength(index)).toArray(BYTE);
+            byte[] name = snapshot.data.asSlice(from + key.length, length - key.length).toArray(BYTE);
+            add(snapshot.id(index), key, name);
+        }
+
+        /**
+         * @return a snapshot with segments of the exact size, sorted
+         */
+        NameSnapshot build() {
+            if (!sorted) {
+                return sortedCopy();
+            }
+            offsets.setAtIndex(OFFSET, size, (int) dataSize);
+            Arena snapshotArena = Arena.ofAuto();
+            return new NameSnapshot(size,
+                    copy(snapshotArena, ids, ID.byteSize() * size, ID.byteAlignment()),
+                    copy(snapshotArena, offsets, OFFSET.byteSize() * (size + 1L), OFFSET.byteAlignment()),
+                    copy(snapshotArena, keyLengths, KEY_LENGTH.byteSize() * size, KEY_LENGTH.byteAlignment()),
+                    copy(snapshotArena, data, dataSize, 1));
+        }
+
+        private NameSnapshot sortedCopy() {
+            offsets.setAtIndex(OFFSET, size, (int) dataSize);
+            NameSnapshot unsorted = new NameSnapshot(size, ids, offsets, keyLengths, data);
+            Integer[] order = new Integer[size];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (left, right) -> {
+                byte[] key = data.asSlice(unsorted.offset(right), unsorted.keyLength(right)).toArray(BYTE);
+                return unsorted.compare(left, key, unsorted.id(right));
+            });
+            Builder builder = new Builder(size);
+            for (int index : order) {
+                builder.add(unsorted, index);
+            }
+            return builder.build();
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (size == ids.byteSize() / ID.byteSize()) {
+                long capacity = 2L * size;
+                ids = copy(arena, ids, ID.byteSize() * capacity, ID.byteAlignment());
+                offsets = copy(arena, offsets, OFFSET.byteSize() * (capacity + 1), OFFSET.byteAlignment());
+                keyLengths = copy(arena, keyLengths, KEY_LENGTH.byteSize() * capacity, KEY_LENGTH.byteAlignment());
+            }
+            if (dataSize + bytes > data.byteSize()) {
+                data = copy(arena, data, Math.max(2 * data.byteSize(), dataSize + bytes), 1);
+            }
+        }
+
+        /**
+         * A new segment of {@code byteSize} bytes starting with the content of {@code source}.
+         */
+        private static MemorySegment copy(Arena arena, MemorySegment source, long byteSize, long alignment) {
+            MemorySegment target = arena.allocate(Math.max(byteSize, 1), alignment);
+            MemorySegment.copy(source, 0, target, 0, Math.min(byteSize, source.byteSize()));
+            return target;
+        }
+    }
+}
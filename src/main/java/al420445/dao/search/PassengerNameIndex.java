@@ -0,0 +1,317 @@
+package al420445.dao.search;
+
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-process prefix index over Passenger.name, for type-ahead: a lookup is a binary search in
+ * memory, without a database round-trip nor entity hydration.
+ *
+ * - The passengers are in an off-heap NameSnapshot, built by a streaming scan of PASSENGERS
+ *   (in the background when the EntityManagerFactory starts, or by rebuild()).
+ * - Committed inserts, renames and deletes (PassengerNameListener) go to a small on-heap delta:
+ *   a sorted set of new entries and the ids whose snapshot entry is stale. When the delta grows
+ *   past 1/16 of the snapshot, a background thread merges both into a new snapshot; the changes
+ *   committed meanwhile go to the delta of the current state and are applied again on top of it.
+ * - Readers take no lock: they read the current state (snapshot + delta) once and merge the two.
+ *   Writers are serialized. During a rename a reader may briefly miss the passenger.
+ *
+ * Not seen, as for the reporting tables: StatelessSession writes (PassengerImporter) and bulk
+ * HQL/SQL. Call rebuild() after them.
+ *
+ * One index per EntityManagerFactory, created by PassengerNameIndexIntegrator unless
+ * al420445.name_index.enabled is false.
+ */
+public final class PassengerNameIndex {
+
+    private static final Map<SessionFactory, PassengerNameIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private static final String SCAN_QUERY = "select p.id, p.name from Passenger p where p.name is not null order by p.nameSearch, p.id";
+    private static final int MIN_DELTA = 4096;
+
+    /**
+     * Footprint and freshness of the index.
+     *
+     * @param entries        passengers in the snapshot, stale ones included
+     * @param deltaEntries   passengers added or renamed since the snapshot
+     * @param offHeapBytes   size of the snapshot segments
+     * @param compactions    merges of the delta into a new snapshot
+     * @param lastRebuild    duration of the last full scan, null before the first one
+     */
+    public record Stats(boolean ready, int entries, int deltaEntries, long offHeapBytes, long compactions, Duration lastRebuild) {
+    }
+
+    /**
+     * A committed change: the passenger's new name, or null when it was removed.
+     */
+    record Change(long passengerId, String name) {
+    }
+
+    private record Entry(byte[] key, long passengerId, String name) {
+        static final Comparator<Entry> ORDER = (left, right) ->
+                NameSnapshot.compare(left.key, left.passengerId, right.key, right.passengerId);
+    }
+
+    /**
+     * Snapshot + delta, replaced as a whole by a compaction or a rebuild.
+     */
+    private static final class State {
+        final NameSnapshot snapshot;
+        final NavigableSet<Entry> added = new ConcurrentSkipListSet<>(Entry.ORDER);
+        final Map<Long, Entry> addedById = new ConcurrentHashMap<>();
+        final Set<Long> stale = ConcurrentHashMap.newKeySet();
+
+        State(NameSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        void apply(Change change) {
+            stale.add(change.passengerId());
+            Entry previous = addedById.remove(change.passengerId());
+            if (previous != null) {
+                added.remove(previous);
+            }
+            if (change.name() != null) {
+                Entry entry = new Entry(key(change.name()), change.passengerId(), change.name());
+                added.add(entry);
+                addedById.put(change.passengerId(), entry);
+            }
+        }
+
+        boolean needsCompaction() {
+            return stale.size() > Math.max(MIN_DELTA, snapshot.size() / 16);
+        }
+
+        State compact() {
+            NameSnapshot.Builder builder = new NameSnapshot.Builder(snapshot.size() + added.size());
+            Iterator<Entry> entries = added.iterator();
+            Entry next = entries.hasNext() ? entries.next() : null;
+            for (int i = 0; i < snapshot.size(); i++) {
+                if (stale.contains(snapshot.id(i))) {
+                    continue;
+                }
+                while (next != null && snapshot.compare(i, next.key(), next.passengerId()) > 0) {
+                    builder.add(next.passengerId(), next.key(), utf8(next.name()));
+                    next = entries.hasNext() ? entries.next() : null;
+                }
+                builder.add(snapshot, i);
+            }
+            for (; next != null; next = entries.hasNext() ? entries.next() : null) {
+                builder.add(next.passengerId(), next.key(), utf8(next.name()));
+            }
+            return new State(builder.build());
+        }
+    }
+
+    private final SessionFactory sessionFactory;
+    private final Object rebuildLock = new Object();
+    private volatile State state; // null until the first scan completes
+    private List<Change> changesDuringScan; // guarded by this, non-null while a scan runs
+    private List<Change> changesDuringCompaction; // guarded by this, non-null while a compaction runs
+    private long compactions; // guarded by this
+    private volatile Duration lastRebuild;
+
+    private PassengerNameIndex(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * The index of {@code emf}, empty if al420445.name_index.enabled is false.
+     */
+    public static Optional<PassengerNameIndex> of(EntityManagerFactory emf) {
+        return Optional.ofNullable(INDEXES.get(emf.unwrap(SessionFactory.class)));
+    }
+
+    static PassengerNameIndex register(SessionFactory sessionFactory) {
+        return INDEXES.computeIfAbsent(sessionFactory, PassengerNameIndex::new);
+    }
+
+    static void unregister(SessionFactory sessionFactory) {
+        INDEXES.remove(sessionFactory);
+    }
+
+    /**
+     * False until the first scan has completed: search() cannot be called yet.
+     */
+    public boolean isReady() {
+        return state != null;
+    }
+
+    /**
+     * Passengers whose name starts with {@code prefix} (case-insensitive, as Passenger.normalizeName),
+     * ordered by name then id.
+     *
+     * @throws IllegalStateException if the index is not built yet
+     */
+    public List<PassengerNameMatch> search(String prefix, int limit) {
+        State current = state;
+        if (current == null) {
+            throw new IllegalStateException("Passenger name index not built yet");
+        }
+        byte[] key = key(prefix);
+        NameSnapshot snapshot = current.snapshot;
+        int i = snapshot.lowerBound(key);
+        Iterator<Entry> added = current.added.tailSet(new Entry(key, Long.MIN_VALUE, null)).iterator();
+        Entry next = nextMatch(added, key);
+
+        List<PassengerNameMatch> matches = new ArrayList<>(Math.min(limit, 64));
+        while (matches.size() < limit) {
+            while (i < snapshot.size() && snapshot.keyStartsWith(i, key) && current.stale.contains(snapshot.id(i))) {
+                i++;
+            }
+            boolean inSnapshot = i < snapshot.size() && snapshot.keyStartsWith(i, key);
+            if (inSnapshot && (next == null || snapshot.compare(i, next.key(), next.passengerId()) < 0)) {
+                matches.add(new PassengerNameMatch(snapshot.id(i), snapshot.name(i)));
+                i++;
+            } else if (next != null) {
+                matches.add(new PassengerNameMatch(next.passengerId(), next.name()));
+                next = nextMatch(added, key);
+            } else {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    private static Entry nextMatch(Iterator<Entry> entries, byte[] prefix) {
+        if (!entries.hasNext()) {
+            return null;
+        }
+        Entry entry = entries.next();
+        return entry.key().length >= prefix.length
+                && Arrays.equals(entry.key(), 0, prefix.length, prefix, 0, prefix.length) ? entry : null;
+    }
+
+    /**
+     * Replaces the snapshot with a new scan of PASSENGERS. Changes committed during the scan
+     * are applied on top of it, so none is lost whether the scan saw it or not.
+     */
+    public Stats rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changesDuringScan = new ArrayList<>();
+            }
+            long start = System.nanoTime();
+            NameSnapshot snapshot;
+            try {
+                snapshot = scan();
+            } catch (RuntimeException ex) {
+                synchronized (this) {
+                    changesDuringScan = null;
+                }
+                throw ex;
+            }
+            synchronized (this) {
+                State rebuilt = new State(snapshot);
+                changesDuringScan.forEach(rebuilt::apply);
+                changesDuringScan = null;
+                state = rebuilt;
+            }
+            lastRebuild = Duration.ofNanos(System.nanoTime() - start);
+            return stats();
+        }
+    }
+
+    private NameSnapshot scan() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            // Inside a transaction so PostgreSQL streams with the fetch size instead of buffering the result
+            Transaction tx = session.beginTransaction();
+            try (ScrollableResults<Object[]> rows = session.createSelectionQuery(SCAN_QUERY, Object[].class)
+                    .setFetchSize(JpaUtil.FETCH_SIZE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                NameSnapshot.Builder builder = new NameSnapshot.Builder(1024);
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    String name = (String) row[1];
+                    builder.add((Long) row[0], key(name), utf8(name));
+                }
+                tx.commit();
+                return builder.build();
+            } catch (RuntimeException ex) {
+                if (tx.isActive()) tx.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Called after the commit of the transaction that made the changes: only updates the delta,
+     * the compaction it may trigger runs in the background.
+     */
+    synchronized void apply(List<Change> changes) {
+        if (changesDuringScan != null) {
+            changesDuringScan.addAll(changes);
+        }
+        if (changesDuringCompaction != null) {
+            changesDuringCompaction.addAll(changes);
+        }
+        State current = state;
+        if (current == null) {
+            return;
+        }
+        changes.forEach(current::apply);
+        if (changesDuringCompaction == null && current.needsCompaction()) {
+            changesDuringCompaction = new ArrayList<>();
+            Thread.ofPlatform().daemon().name("passenger-name-compaction").start(() -> compact(current));
+        }
+    }
+
+    /**
+     * Merges the delta of {@code current} into a new snapshot while it keeps changing: the compact()
+     * iteration may or may not see a change made meanwhile, applying it again on the new state gives
+     * the same result either way. Dropped if a rebuild replaced {@code current} in the meantime.
+     */
+    private void compact(State current) {
+        State compacted = null;
+        try {
+            compacted = current.compact();
+        } finally {
+            synchronized (this) {
+                if (compacted != null && state == current) {
+                    changesDuringCompaction.forEach(compacted::apply);
+                    state = compacted;
+                    compactions++;
+                }
+                changesDuringCompaction = null;
+            }
+        }
+    }
+
+    public synchronized Stats stats() {
+        State current = state;
+        if (current == null) {
+            return new Stats(false, 0, 0, 0, compactions, lastRebuild);
+        }
+        return new Stats(true, current.snapshot.size(), current.added.size(), current.snapshot.byteSize(),
+                compactions, lastRebuild);
+    }
+
+    private static byte[] key(String name) {
+        return utf8(Passenger.normalizeName(name));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
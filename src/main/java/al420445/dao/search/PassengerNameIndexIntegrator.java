@@ -0,0 +1,61 @@
+package al420445.dao.search;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the PassengerNameIndex of every EntityManagerFactory, unless al420445.name_index.enabled
+ * is false, registers its listener and starts its first scan in a background thread once the factory
+ * is open. Until the scan completes, AirportService.suggestPassengers queries the database.
+ * Discovered by Hibernate through META-INF/services/org.hibernate.integrator.spi.Integrator.
+ */
+public class PassengerNameIndexIntegrator implements Integrator {
+
+    public static final String ENABLED = "al420445.name_index.enabled";
+
+    private static final Logger log = LoggerFactory.getLogger(PassengerNameIndexIntegrator.class);
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        if (!Boolean.parseBoolean(String.valueOf(sessionFactory.getProperties().getOrDefault(ENABLED, "true")))) {
+            return;
+        }
+        PassengerNameIndex index = PassengerNameIndex.register(sessionFactory);
+        PassengerNameListener listener = new PassengerNameListener(index);
+        EventListenerRegistry listeners = sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_INSERT, listener);
+        listeners.appendListeners(EventType.POST_UPDATE, listener);
+        listeners.appendListeners(EventType.POST_DELETE, listener);
+
+        sessionFactory.addObserver(new SessionFactoryObserver() {
+            @Override
+            public void sessionFactoryCreated(SessionFactory factory) {
+                Thread.ofPlatform().daemon().name("passenger-name-index").start(() -> {
+                    try {
+                        PassengerNameIndex.Stats stats = index.rebuild();
+                        log.info("Passenger name index built: {} names, {} bytes off-heap, in {} ms",
+                                stats.entries(), stats.offHeapBytes(), stats.lastRebuild().toMillis());
+                    } catch (RuntimeException ex) {
+                        if (factory.isOpen()) {
+                            log.warn("Passenger name index not built, suggestions will query the database", ex);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        PassengerNameIndex.unregister(sessionFactory);
+    }
+}
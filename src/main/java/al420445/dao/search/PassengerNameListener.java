@@ -0,0 +1,56 @@
+package al420445.dao.search;
+
+import al420445.airport.Passenger;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Objects;
+
+/**
+ * Sends the passengers inserted, renamed or deleted through an EntityManager/Session
+ * to the PassengerNameIndex, once their transaction has committed (NameIndexChanges).
+ */
+final class PassengerNameListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final PassengerNameIndex index;
+
+    PassengerNameListener(PassengerNameIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Passenger passenger && passenger.getName() != null) {
+            NameIndexChanges.record(event.getSession(), index, new PassengerNameIndex.Change(passenger.getId(), passenger.getName()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Passenger passenger) || event.getOldState() == null) {
+            return;
+        }
+        int name = event.getPersister().getPropertyIndex("name");
+        if (!Objects.equals(event.getOldState()[name], event.getState()[name])) {
+            NameIndexChanges.record(event.getSession(), index, new PassengerNameIndex.Change(passenger.getId(), passenger.getName()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Passenger) {
+            NameIndexChanges.record(event.getSession(), index, new PassengerNameIndex.Change((Long) event.getId(), null));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
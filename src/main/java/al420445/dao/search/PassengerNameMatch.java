@@ -0,0 +1,7 @@
+package al420445.dao.search;
+
+/**
+ * One suggestion of the passenger-name autocomplete.
+ */
+public record PassengerNameMatch(long passengerId, String name) {
+}
@@ -0,0 +1,132 @@
+package al420445.dao.shard;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.AirportDao;
+import al420445.dao.base.AirportDaoFunctional;
+import al420445.dao.base.FetchPlan;
+import al420445.dao.search.PassengerNameMatch;
+import al420445.dao.tx.TransactionExecutor;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * AirportDao over ShardedPersistence (AirportDaoFactory.Strategy.SHARDED): writes go to the shard
+ * that owns the airport, reads are sent to every shard in parallel and merged by id.
+ *
+ * Each shard is accessed through an AirportDaoFunctional on its factory, so the queries and
+ * transactions are those of the single-database DAOs. Not covered across shards: PASSENGERS.NAME
+ * is only unique within a shard, and a transaction never spans two shards.
+ */
+public class ShardedAirportDao implements AirportDao {
+
+    private static final Comparator<Airport> AIRPORT_ID = Comparator.comparing(Airport::getId);
+    private static final Comparator<Passenger> PASSENGER_ID = Comparator.comparing(Passenger::getId);
+    private static final Comparator<PassengerNameMatch> NAME = Comparator
+            .comparing((PassengerNameMatch match) -> Passenger.normalizeName(match.name()))
+            .thenComparingLong(PassengerNameMatch::passengerId);
+
+    private final ShardedPersistence shards;
+    private final List<AirportDao> daos;
+
+    public ShardedAirportDao(ShardedPersistence shards) {
+        this.shards = shards;
+        this.daos = IntStream.range(0, shards.count())
+                .mapToObj(shard -> (AirportDao) new AirportDaoFunctional(shards.shard(shard)))
+                .toList();
+    }
+
+    /**
+     * The DAO of the shard that owns {@code airportId}, null if no shard owns it.
+     */
+    public AirportDao shardFor(long airportId) {
+        int shard = shards.shardOf(airportId);
+        return shard < 0 ? null : daos.get(shard);
+    }
+
+    /**
+     * Creates an airport in the shard chosen by the hash of its name.
+     */
+    public Airport createAirport(String name) {
+        int shard = Math.floorMod(name.hashCode(), shards.count());
+        return TransactionExecutor.executeInTransaction(shards.shard(shard), em -> {
+            Airport airport = new Airport(name);
+            em.persist(airport);
+            return airport;
+        });
+    }
+
+    @Override
+    public List<Airport> getAirports() {
+        return gather(AirportDao::getAirports, AIRPORT_ID);
+    }
+
+    @Override
+    public List<Airport> getAirports(FetchPlan<Airport> fetchPlan) {
+        return gather(dao -> dao.getAirports(fetchPlan), AIRPORT_ID);
+    }
+
+    @Override
+    public void addPassenger(String name, int airportId) {
+        AirportDao dao = shardFor(airportId);
+        if (dao != null) dao.addPassenger(name, airportId);
+    }
+
+    @Override
+    public int addPassengers(int airportId, Iterator<String> names) {
+        AirportDao dao = shardFor(airportId);
+        return dao == null ? 0 : dao.addPassengers(airportId, names);
+    }
+
+    @Override
+    public List<Passenger> findPassengersByName(String name) {
+        return gather(dao -> dao.findPassengersByName(name), PASSENGER_ID);
+    }
+
+    @Override
+    public List<Passenger> findPassengersByName(String name, FetchPlan<Passenger> fetchPlan) {
+        return gather(dao -> dao.findPassengersByName(name, fetchPlan), PASSENGER_ID);
+    }
+
+    /**
+     * Each shard returns its first {@code limit} passengers after {@code afterId}: the page is
+     * the first {@code limit} of their union.
+     */
+    @Override
+    public List<Passenger> findPassengersByName(String name, long afterId, int limit) {
+        return gather(dao -> dao.findPassengersByName(name, afterId, limit), PASSENGER_ID).stream()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Each shard returns its first {@code limit} names: the result is the first {@code limit} of their union.
+     */
+    @Override
+    public List<PassengerNameMatch> findPassengerNames(String prefix, int limit) {
+        return gather(dao -> dao.findPassengerNames(prefix, limit), NAME).stream()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * One shard after the other (a single open EntityManager at a time). Closing the stream
+     * closes the shard being read.
+     */
+    @Override
+    public Stream<Passenger> streamPassengersByName(String name) {
+        return daos.stream().flatMap(dao -> dao.streamPassengersByName(name));
+    }
+
+    private <T> List<T> gather(Function<AirportDao, List<T>> query, Comparator<T> order) {
+        return shards.scatter(shard -> query.apply(daos.get(shard))).stream()
+                .flatMap(List::stream)
+                .sorted(order)
+                .toList();
+    }
+}
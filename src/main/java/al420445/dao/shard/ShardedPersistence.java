@@ -0,0 +1,177 @@
+package al420445.dao.shard;
+
+import al420445.dao.base.JpaUtil;
+import al420445.dao.base.NamedQueryWarmUp;
+import al420445.dao.cdc.CdcIntegrator;
+import al420445.dao.search.PassengerNameIndexIntegrator;
+import al420445.dao.tx.TransactionExecutor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * The hibernate2.ex1 unit on N databases (shards), each airport and its passengers and tickets
+ * in one of them. Used by ShardedAirportDao.
+ *
+ * The owner of an airport is encoded in its id: each shard generates ids in its own range,
+ * reserved when the shard is opened (airports: shard * 2^24 + 1..., passengers and tickets:
+ * shard * 2^40 + 1...). Ids are unique across shards, shardOf(airportId) needs no lookup,
+ * and results merged by id come out in a stable order. A shard that has used all its airport
+ * ids refuses new airports (check constraint on AIRPORTS.ID).
+ *
+ * The shards run without second-level cache, autocomplete index and change log: the JCache
+ * regions are shared by every factory of the JVM (and closed with any of them), and the index
+ * and the log belong to the shared factory of JpaUtil.
+ *
+ * Configuration (system properties): al420445.shard.count (default 2) and al420445.shard.url,
+ * a JDBC URL where {shard} is replaced by the shard number (default: in-memory H2 databases).
+ */
+public final class ShardedPersistence implements AutoCloseable {
+
+    public static final String COUNT = "al420445.shard.count";
+    public static final String URL = "al420445.shard.url";
+    public static final String DEFAULT_URL = "jdbc:h2:mem:airport_shard{shard};DB_CLOSE_DELAY=-1";
+
+    /** int airport ids (AirportDao.addPassenger): 2^24 airports per shard, 127 shards at most */
+    public static final int MAX_SHARDS = 127;
+    private static final int AIRPORT_ID_BITS = 24;
+    private static final int ROW_ID_BITS = 40;
+
+    private final List<EntityManagerFactory> shards;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private ShardedPersistence(List<EntityManagerFactory> shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * Opens (and creates the schema of) {@code count} shards; the caller closes them.
+     */
+    public static ShardedPersistence open(int count, String urlTemplate) {
+        if (count < 1 || count > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS + ": " + count);
+        }
+        List<EntityManagerFactory> shards = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < count; shard++) {
+                EntityManagerFactory emf = JpaUtil.createEntityManagerFactory(Map.of(
+                        "jakarta.persistence.jdbc.url", urlTemplate.replace("{shard}", Integer.toString(shard)),
+                        "hibernate.cache.use_second_level_cache", "false",
+                        "hibernate.cache.use_query_cache", "false",
+                        PassengerNameIndexIntegrator.ENABLED, "false",
+                        CdcIntegrator.ENABLED, "false"));
+                shards.add(emf);
+                reserveIdRanges(emf, shard);
+                if (Boolean.parseBoolean(String.valueOf(emf.getProperties().getOrDefault(NamedQueryWarmUp.ENABLED, "true")))) {
+                    NamedQueryWarmUp.run(emf);
+                }
+            }
+        } catch (RuntimeException ex) {
+            shards.forEach(EntityManagerFactory::close);
+            throw ex;
+        }
+        return new ShardedPersistence(List.copyOf(shards));
+    }
+
+    /**
+     * The shards configured by the system properties, opened on first use and closed by the caller.
+     */
+    public static ShardedPersistence shared() {
+        return Holder.SHARDS;
+    }
+
+    private static final class Holder {
+        static final ShardedPersistence SHARDS = open(
+                Integer.getInteger(COUNT, 2), System.getProperty(URL, DEFAULT_URL));
+    }
+
+    public int count() {
+        return shards.size();
+    }
+
+    public EntityManagerFactory shard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * @return the shard that owns {@code airportId}, or -1 if no shard can own it
+     */
+    public int shardOf(long airportId) {
+        long shard = airportId >>> AIRPORT_ID_BITS;
+        return airportId > 0 && shard < shards.size() ? (int) shard : -1;
+    }
+
+    /**
+     * Runs {@code query} on every shard at the same time (one virtual thread per shard).
+     *
+     * @param query called with the number of each shard
+     * @return the result of each shard, in shard order
+     */
+    public <T> List<T> scatter(IntFunction<T> query) {
+        if (shards.size() == 1) {
+            return List.of(query.apply(0));
+        }
+        List<CompletableFuture<T>> results = IntStream.range(0, shards.size())
+                .mapToObj(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), executor))
+                .toList();
+        try {
+            return results.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException ex) {
+            // Same exception as a DAO on a single database
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+        shards.forEach(emf -> {
+            if (emf.isOpen()) emf.close();
+        });
+    }
+
+    /**
+     * Restarts the id generators of a new shard at the beginning of its ranges
+     * (table and sequence names of the Airport, Passenger and Ticket mappings), and bounds its
+     * airport ids with a check constraint: once its 2^24 ids are used, creating an airport fails
+     * instead of taking an id that shardOf() routes to the next shard.
+     */
+    private static void reserveIdRanges(EntityManagerFactory emf, int shard) {
+        long airportStart = ((long) shard << AIRPORT_ID_BITS) + 1;
+        long airportEnd = (long) (shard + 1) << AIRPORT_ID_BITS;
+        long rowStart = (long) shard << ROW_ID_BITS;
+        TransactionExecutor.executeInTransaction(emf, em -> {
+            em.createNativeQuery("alter table AIRPORTS drop constraint if exists CK_AIRPORTS_SHARD_RANGE").executeUpdate();
+            em.createNativeQuery("alter table AIRPORTS add constraint CK_AIRPORTS_SHARD_RANGE check (ID between "
+                    + airportStart + " and " + (airportEnd - 1) + ")").executeUpdate();
+            if (shard == 0) {
+                return null;
+            }
+            if (maxId(em, "AIRPORTS") < airportStart) {
+                em.createNativeQuery("alter table AIRPORTS alter column ID restart with " + airportStart).executeUpdate();
+            }
+            // Pooled optimizer (allocationSize 50): the first value is the top of the first block
+            if (maxId(em, "PASSENGERS") < rowStart) {
+                em.createNativeQuery("alter sequence PASSENGERS_SEQ restart with " + (rowStart + 50)).executeUpdate();
+            }
+            if (maxId(em, "TICKET") < rowStart) {
+                em.createNativeQuery("alter sequence TICKET_SEQ restart with " + (rowStart + 50)).executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    private static long maxId(EntityManager em, String table) {
+        return ((Number) em.createNativeQuery("select coalesce(max(ID), 0) from " + table).getSingleResult()).longValue();
+    }
+}
@@ -0,0 +1,28 @@
+package al420445.dao.tx;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+/**
+ * Settings shared by the read-only execution modes of TransactionExecutor and ReadOnlyTransactionalDao.
+ */
+final class ReadOnlyMode {
+
+    private ReadOnlyMode() {
+    }
+
+    /**
+     * Must be called right after tx.begin(), before any query.
+     * - Entities are loaded read-only: Hibernate keeps no snapshot for dirty checking.
+     * - FlushMode.MANUAL: no automatic flush before queries or at commit.
+     * - The JDBC connection is read-only, so the database can skip write bookkeeping.
+     *   (HikariCP restores the flag when the connection goes back to the pool.)
+     */
+    static void apply(EntityManager em) {
+        Session session = em.unwrap(Session.class);
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        session.doWork(connection -> connection.setReadOnly(true));
+    }
+}
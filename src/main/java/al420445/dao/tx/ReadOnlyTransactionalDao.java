@@ -0,0 +1,24 @@
+package al420445.dao.tx;
+
+/**
+ * Read-only variant of TransactionalDao, for units of work that only run queries.
+ *
+ * Loaded entities are read-only (no dirty-checking snapshot), the session never flushes
+ * and the JDBC connection is marked read-only. Changes made to entities are ignored.
+ *
+ * Usage is the same as TransactionalDao:
+ * <pre>
+ * Long count = new ReadOnlyTransactionalDao&lt;Long&gt;() {
+ *     protected Long executeInTransaction(EntityManager em) {
+ *         return em.createQuery("select count(p) from Passenger p", Long.class).getSingleResult();
+ *     }
+ * }.executeInTransaction();
+ * </pre>
+ */
+public abstract class ReadOnlyTransactionalDao<T> extends TransactionalDao<T> {
+
+    @Override
+    protected final boolean isReadOnly() {
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package al420445.dao.tx;
+
+import al420445.dao.metrics.RetryCounters;
+
+import java.util.function.Supplier;
+
+/**
+ * Retry loop shared by TransactionExecutor.executeWithRetry and RetryingTransactionalDao.
+ */
+final class Retry {
+
+    private Retry() {
+    }
+
+    /**
+     * @param attempt runs the unit of work in its own transaction and EntityManager
+     */
+    static <T> T run(RetryPolicy policy, Supplier<T> attempt) {
+        RetryCounters.recordExecution();
+        for (int attempts = 1; ; attempts++) {
+            try {
+                T result = attempt.get();
+                if (attempts > 1) RetryCounters.recordRecovered();
+                return result;
+            } catch (RuntimeException ex) {
+                if (!RetryPolicy.isRetryable(ex)) {
+                    throw ex;
+                }
+                if (attempts >= policy.maxAttempts()) {
+                    RetryCounters.recordExhausted();
+                    throw ex;
+                }
+                RetryCounters.recordRetry(rootCause(ex));
+                try {
+                    Thread.sleep(policy.backoff(attempts));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    ex.addSuppressed(interrupted);
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    // The innermost retryable exception, e.g. the StaleObjectStateException behind RollbackException/OptimisticLockException
+    private static Throwable rootCause(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause.getCause() == null || !RetryPolicy.isRetryable(cause.getCause())) {
+                return cause;
+            }
+        }
+        return failure;
+    }
+}
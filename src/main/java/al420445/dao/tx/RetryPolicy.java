@@ -0,0 +1,79 @@
+package al420445.dao.tx;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How many times a unit of work is re-run when it loses a concurrency conflict, and how long to wait in between.
+ *
+ * Retryable failures (anywhere in the cause chain):
+ * - optimistic lock failures (@Version mismatch): OptimisticLockException, StaleStateException
+ * - lock timeouts and pessimistic lock failures
+ * - deadlocks / serialization failures: SQLState class 40 (40001, PostgreSQL 40P01),
+ *   PostgreSQL lock_not_available (55P03), H2 lock timeout (HYT00)
+ *
+ * Only the whole unit of work is re-run, in a new EntityManager, so it must be safe to repeat:
+ * read the current state inside the transaction, and no side effect (e-mail, HTTP call...) before commit.
+ *
+ * @param maxAttempts    attempts in total, including the first one
+ * @param initialBackoff base delay before the first retry, doubled for each following retry
+ * @param maxBackoff     upper bound of the base delay
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, Duration.ofMillis(10), Duration.ofMillis(500));
+
+    private static final Set<String> RETRYABLE_SQL_STATES = Set.of("55P03", "HYT00");
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1: " + maxAttempts);
+        }
+    }
+
+    /**
+     * Delay before retry number {@code retry} (1 for the first retry): a random value between
+     * half and all of the exponential base delay, so threads that collided do not retry in lockstep.
+     */
+    public Duration backoff(int retry) {
+        int shift = Math.min(retry - 1, 30);
+        long max = maxBackoff.toNanos();
+        // Clamped before shifting: initialBackoff << shift overflows from about 8.6 s on
+        long base = initialBackoff.toNanos() > max >> shift ? max : initialBackoff.toNanos() << shift;
+        if (base <= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1));
+    }
+
+    public static boolean isRetryable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException
+                    || cause instanceof LockTimeoutException
+                    || cause instanceof PessimisticLockException
+                    || cause instanceof org.hibernate.PessimisticLockException
+                    || cause instanceof LockAcquisitionException
+                    || cause instanceof SQLTransactionRollbackException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("40") || RETRYABLE_SQL_STATES.contains(sql.getSQLState()))) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+package al420445.dao.tx;
+
+/**
+ * Variant of TransactionalDao that re-runs the unit of work, in a new EntityManager and
+ * transaction, when it fails on a concurrency conflict (@Version mismatch, lock timeout, deadlock).
+ *
+ * executeInTransaction(EntityManager) may therefore be called several times: load the entities
+ * to modify inside it, and do nothing there that cannot be repeated.
+ *
+ * <pre>
+ * new RetryingTransactionalDao&lt;Void&gt;() {
+ *     protected Void executeInTransaction(EntityManager em) {
+ *         em.find(Airport.class, airportId).setName(newName);
+ *         return null;
+ *     }
+ * }.executeInTransaction();
+ * </pre>
+ *
+ * Override retryPolicy() to change the number of attempts or the backoff.
+ */
+public abstract class RetryingTransactionalDao<T> extends TransactionalDao<T> {
+
+    @Override
+    protected RetryPolicy retryPolicy() {
+        return RetryPolicy.DEFAULT;
+    }
+}
@@ -1,8 +1,10 @@
 package al420445.dao.tx;
 
 import al420445.dao.base.JpaUtil;
+import al420445.dao.replica.ReadRouting;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityTransaction;
 
 import java.util.function.Function;
@@ -34,7 +36,19 @@ public class TransactionExecutor {
      * </pre>
      */
     public static <T> T executeInTransaction(Function<EntityManager, T> action) {
-        EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
+        return executeInTransaction(JpaUtil.getEntityManagerFactory(), action);
+    }
+
+    /**
+     * Same as executeInTransaction(action), on another factory than the shared one
+     * (e.g. a shard of ShardedPersistence).
+     */
+    public static <T> T executeInTransaction(EntityManagerFactory emf, Function<EntityManager, T> action) {
+        EntityManager joined = UnitOfWork.current(emf);
+        if (joined != null) {
+            return UnitOfWork.join(joined, action);
+        }
+        EntityManager em = emf.createEntityManager();
         EntityTransaction tx = em.getTransaction();
         try {
             tx.begin();
@@ -48,5 +62,71 @@ public class TransactionExecutor {
             em.close();
         }
     }
-}
 
+    /**
+     * Executes a query-only action in a read-only transaction.
+     *
+     * Loaded entities are read-only (no dirty-checking snapshot), the session uses
+     * FlushMode.MANUAL and the JDBC connection is marked read-only.
+     * Changes made to entities inside the action are NOT written to the database.
+     * Inside a UnitOfWork, runs in its transaction instead, without the read-only mode.
+     *
+     * Example usage:
+     * <pre>
+     * Long count = TransactionExecutor.executeReadOnly(em ->
+     *     em.createQuery("select count(p) from Passenger p", Long.class).getSingleResult());
+     * </pre>
+     */
+    public static <T> T executeReadOnly(Function<EntityManager, T> action) {
+        EntityManager joined = UnitOfWork.current(JpaUtil.getEntityManagerFactory());
+        if (joined != null) {
+            return UnitOfWork.join(joined, action);
+        }
+        // May run on a replica (see ReadRouting)
+        return ReadRouting.readOnly(() -> {
+            EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                ReadOnlyMode.apply(em);
+                T result = action.apply(em);
+                tx.commit();
+                return result;
+            } catch (RuntimeException ex) {
+                if (tx.isActive()) tx.rollback();
+                throw ex;
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Same as executeInTransaction, but re-runs the whole action (new EntityManager, new transaction)
+     * when it fails on a concurrency conflict: @Version mismatch, lock timeout or deadlock.
+     * Uses RetryPolicy.DEFAULT (5 attempts, jittered exponential backoff from 10 ms).
+     *
+     * The action may run several times: it must load what it modifies inside the transaction
+     * and have no side effect outside the database. Inside a UnitOfWork, joins it without retrying
+     * (see UnitOfWork.runWithRetry).
+     *
+     * Example usage:
+     * <pre>
+     * TransactionExecutor.executeWithRetry(em -> {
+     *     Passenger passenger = em.find(Passenger.class, passengerId);
+     *     em.find(Airport.class, airportId).addPassenger(passenger);
+     *     return null;
+     * });
+     * </pre>
+     */
+    public static <T> T executeWithRetry(Function<EntityManager, T> action) {
+        return executeWithRetry(RetryPolicy.DEFAULT, action);
+    }
+
+    public static <T> T executeWithRetry(RetryPolicy policy, Function<EntityManager, T> action) {
+        if (UnitOfWork.current(JpaUtil.getEntityManagerFactory()) != null) {
+            return executeInTransaction(action);
+        }
+        return Retry.run(policy, () -> executeInTransaction(action));
+    }
+}
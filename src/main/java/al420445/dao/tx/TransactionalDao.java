@@ -1,10 +1,13 @@
 package al420445.dao.tx;
 
 import al420445.dao.base.JpaUtil;
+import al420445.dao.replica.ReadRouting;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityTransaction;
 
+import java.util.function.Supplier;
+
 /**
  * Abstract base class implementing the Template Method pattern
  * for managing JPA transactions.
@@ -20,12 +23,25 @@ public abstract class TransactionalDao<T> {
      *
      * Subclasses call this method and implement executeInTransaction()
      * to define what should happen within the transaction.
+     * Inside a UnitOfWork, runs in its EntityManager and transaction (no read-only mode, no retry).
      */
     public final T executeInTransaction() {
+        EntityManager joined = UnitOfWork.current(JpaUtil.getEntityManagerFactory());
+        if (joined != null) {
+            return UnitOfWork.join(joined, this::executeInTransaction);
+        }
+        RetryPolicy retryPolicy = retryPolicy();
+        Supplier<T> work = retryPolicy == null ? this::executeOnce : () -> Retry.run(retryPolicy, this::executeOnce);
+        // Read-only units of work may run on a replica (see ReadRouting)
+        return isReadOnly() ? ReadRouting.readOnly(work) : work.get();
+    }
+
+    private T executeOnce() {
         EntityManager em = JpaUtil.getEntityManagerFactory().createEntityManager();
         EntityTransaction tx = em.getTransaction();
         try {
             tx.begin();
+            if (isReadOnly()) ReadOnlyMode.apply(em);
             T result = executeInTransaction(em);
             tx.commit();
             return result;
@@ -37,6 +53,22 @@ public abstract class TransactionalDao<T> {
         }
     }
 
+    /**
+     * Hook method: subclasses return true to run in read-only mode
+     * (see ReadOnlyTransactionalDao).
+     */
+    protected boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * Hook method: subclasses return a policy to re-run the unit of work on concurrency
+     * conflicts (see RetryingTransactionalDao). null, the default, means no retry.
+     */
+    protected RetryPolicy retryPolicy() {
+        return null;
+    }
+
     /**
      * Abstract method to be implemented by subclasses.
      * Contains the business logic to execute within a transaction.
@@ -0,0 +1,153 @@
+package al420445.dao.tx;
+
+import al420445.dao.base.JpaUtil;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.RollbackException;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Several DAO calls in one EntityManager and one transaction.
+ *
+ * Each DAO method otherwise opens its own EntityManager, transaction and connection: a service
+ * operation calling three of them pays three checkouts and three commits, and loads the same
+ * Airport three times.
+ * <pre>
+ * List&lt;Passenger&gt; passengers = UnitOfWork.run(() -&gt; {
+ *     Airport airport = examples.createAirport("YUL");
+ *     dao.addPassenger("Smith", airport.getId().intValue());
+ *     return dao.findPassengersByName("smith");
+ * });
+ * </pre>
+ * Inside run(...), on the current thread:
+ * - TransactionExecutor and TransactionalDao join the unit of work: same EntityManager (an entity
+ *   loaded by one call is in the persistence context of the next), same transaction, one commit.
+ *   A call that throws marks the transaction rollback-only, even if the caller catches the exception.
+ * - executeReadOnly and ReadOnlyTransactionalDao join it too, without the read-only mode.
+ * - executeWithRetry and RetryingTransactionalDao do not retry: a conflict shows at the commit of the
+ *   unit of work, which runWithRetry re-runs as a whole.
+ * - The queries of AirportDaoImpl and AirportDaoFunctional use its EntityManager, on the primary
+ *   (see ReadRouting). streamPassengersByName keeps its own: the stream outlives the call.
+ * A unit of work only covers the calls on its factory (a shard of ShardedPersistence is another one).
+ *
+ * Bound with a ThreadLocal rather than a ScopedValue: an EntityManager is not thread-safe, and threads
+ * forked by a StructuredTaskScope would inherit a ScopedValue. Each virtual thread has its own.
+ */
+public final class UnitOfWork {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+    private final UnitOfWork outer; // on another factory, current again when this one ends
+
+    private UnitOfWork(EntityManagerFactory emf, EntityManager em, UnitOfWork outer) {
+        this.emf = emf;
+        this.em = em;
+        this.outer = outer;
+    }
+
+    public static <T> T run(Supplier<T> work) {
+        return run(JpaUtil.getEntityManagerFactory(), work);
+    }
+
+    public static void run(Runnable work) {
+        run(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@code work} in a unit of work on {@code emf}, or in the current one if there is one.
+     */
+    public static <T> T run(EntityManagerFactory emf, Supplier<T> work) {
+        if (current(emf) != null) {
+            return work.get();
+        }
+        UnitOfWork outer = CURRENT.get();
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        CURRENT.set(new UnitOfWork(emf, em, outer));
+        try {
+            // Takes the connection now, outside any ReadRouting.readOnly scope: the primary
+            tx.begin();
+            T result = work.get();
+            if (tx.getRollbackOnly()) {
+                // Hibernate would roll back silently on commit
+                throw new RollbackException("A call of the unit of work failed, transaction marked rollback-only");
+            }
+            tx.commit();
+            return result;
+        } catch (RuntimeException ex) {
+            if (tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            if (outer == null) CURRENT.remove(); else CURRENT.set(outer);
+            em.close();
+        }
+    }
+
+    /**
+     * Same as run(work), re-run as a whole (new EntityManager, new transaction) when it fails on a
+     * concurrency conflict, see TransactionExecutor.executeWithRetry. Joins without retrying
+     * when called inside another unit of work.
+     */
+    public static <T> T runWithRetry(Supplier<T> work) {
+        if (current(JpaUtil.getEntityManagerFactory()) != null) {
+            return work.get();
+        }
+        return Retry.run(RetryPolicy.DEFAULT, () -> run(work));
+    }
+
+    /**
+     * True inside a unit of work on {@code emf}.
+     */
+    public static boolean isActive(EntityManagerFactory emf) {
+        return current(emf) != null;
+    }
+
+    /**
+     * The EntityManager of the current unit of work on {@code emf}, or a new one: close it with release(em).
+     */
+    public static EntityManager entityManager(EntityManagerFactory emf) {
+        EntityManager em = current(emf);
+        return em != null ? em : emf.createEntityManager();
+    }
+
+    /**
+     * Closes {@code em}, unless it belongs to the current unit of work.
+     */
+    public static void release(EntityManager em) {
+        for (UnitOfWork unit = CURRENT.get(); unit != null; unit = unit.outer) {
+            if (unit.em == em) return;
+        }
+        em.close();
+    }
+
+    /**
+     * The EntityManager of the current unit of work on {@code emf}, null outside one.
+     */
+    static EntityManager current(EntityManagerFactory emf) {
+        for (UnitOfWork unit = CURRENT.get(); unit != null; unit = unit.outer) {
+            if (unit.emf == emf) return unit.em;
+        }
+        return null;
+    }
+
+    /**
+     * Runs a nested call in the unit of work of {@code em}.
+     */
+    static <T> T join(EntityManager em, Function<EntityManager, T> action) {
+        try {
+            return action.apply(em);
+        } catch (RuntimeException ex) {
+            if (em.getTransaction().isActive()) em.getTransaction().setRollbackOnly();
+            throw ex;
+        }
+    }
+}
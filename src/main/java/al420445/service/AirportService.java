@@ -4,8 +4,14 @@ import al420445.airport.Airport;
 import al420445.airport.Passenger;
 import al420445.dao.base.AirportDao;
 import al420445.dao.base.AirportDaoFactory;
+import al420445.dao.base.FetchPlan;
+import al420445.dao.search.PassengerNameIndex;
+import al420445.dao.search.PassengerNameMatch;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class AirportService {
 
@@ -36,13 +42,54 @@ public class AirportService {
         return airportDao.getAirports();
     }
 
+    public List<Airport> getAirports(FetchPlan<Airport> fetchPlan) {
+        return airportDao.getAirports(fetchPlan);
+    }
+
     // Note: @Transactional only works with a container (Spring/CDI).
     // Here, the DAO manages its own transactions.
     public void addPassenger(String name, int airportId) {
         airportDao.addPassenger(name, airportId);
     }
 
+    public int addPassengers(int airportId, Collection<String> names) {
+        return airportDao.addPassengers(airportId, names);
+    }
+
+    public int addPassengers(int airportId, Iterator<String> names) {
+        return airportDao.addPassengers(airportId, names);
+    }
+
     public List<Passenger> findPassengersByName(String name) {
         return airportDao.findPassengersByName(name);
     }
+
+    public List<Passenger> findPassengersByName(String name, FetchPlan<Passenger> fetchPlan) {
+        return airportDao.findPassengersByName(name, fetchPlan);
+    }
+
+    public List<Passenger> findPassengersByName(String name, long afterId, int limit) {
+        return airportDao.findPassengersByName(name, afterId, limit);
+    }
+
+    public Stream<Passenger> streamPassengersByName(String name) {
+        return airportDao.streamPassengersByName(name);
+    }
+
+    public List<PassengerNameMatch> findPassengerNames(String prefix, int limit) {
+        return airportDao.findPassengerNames(prefix, limit);
+    }
+
+    /**
+     * Type-ahead: the first {@code limit} passengers whose name starts with {@code prefix}, ordered by name
+     * then id, whichever path serves them.
+     * Served from memory by PassengerNameIndex; queries the database while the index is not built
+     * (or when the DAO has no index: al420445.name_index.enabled false, ShardedAirportDao).
+     */
+    public List<PassengerNameMatch> suggestPassengers(String prefix, int limit) {
+        return airportDao.passengerNameIndex()
+                .filter(PassengerNameIndex::isReady)
+                .map(index -> index.search(prefix, limit))
+                .orElseGet(() -> airportDao.findPassengerNames(prefix, limit));
+    }
 }
@@ -0,0 +1,101 @@
+package al420445.service;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.AirportDao;
+import al420445.dao.base.AirportDaoFactory;
+import al420445.dao.base.JpaUtil;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous facade over an AirportDao.
+ *
+ * Each call runs on its own (virtual) thread and returns a CompletableFuture, so a request
+ * handler can fan out several DAO calls and wait for all of them at once:
+ * <pre>
+ * try (AsyncAirportService service = new AsyncAirportService()) {
+ *     var airports = service.getAirports();
+ *     var smiths = service.findPassengersByName("smith");
+ *     CompletableFuture.allOf(airports, smiths).join();
+ * }
+ * </pre>
+ * A semaphore sized to the connection pool bounds how many calls hit the database at once;
+ * the other threads wait on the semaphore (cheap for virtual threads) instead of in the pool.
+ */
+public class AsyncAirportService implements AutoCloseable {
+
+    private final AirportDao airportDao;
+    private final ExecutorService executor;
+    private final Semaphore databasePermits;
+
+    /**
+     * Constructor accepting a specific DAO, executor and concurrency limit
+     */
+    public AsyncAirportService(AirportDao airportDao, ExecutorService executor, int maxConcurrentCalls) {
+        this.airportDao = airportDao;
+        this.executor = executor;
+        this.databasePermits = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * Virtual thread per call, limited to the connection pool size
+     */
+    public AsyncAirportService(AirportDao airportDao) {
+        this(airportDao,
+                Executors.newVirtualThreadPerTaskExecutor(),
+                JpaUtil.getConnectionPoolMetrics().maximum());
+    }
+
+    /**
+     * Default constructor using the factory's default strategy
+     */
+    public AsyncAirportService() {
+        this(AirportDaoFactory.create());
+    }
+
+    public CompletableFuture<List<Airport>> getAirports() {
+        return submit(airportDao::getAirports);
+    }
+
+    public CompletableFuture<Void> addPassenger(String name, int airportId) {
+        return submit(() -> {
+            airportDao.addPassenger(name, airportId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Passenger>> findPassengersByName(String name) {
+        return submit(() -> airportDao.findPassengersByName(name));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                databasePermits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(ex);
+            }
+            try {
+                return call.get();
+            } finally {
+                databasePermits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Waits for the submitted calls to finish, then shuts the executor down.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,205 @@
+package al420445.service;
+
+import al420445.airport.Airport;
+import al420445.airport.Passenger;
+import al420445.dao.base.JpaUtil;
+import al420445.dao.tx.TransactionExecutor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind for AirportService.addPassenger: the passengers of many callers share one
+ * transaction (group commit) instead of paying for one commit each.
+ *
+ * Opt-in, for callers that can wait on a future:
+ * <pre>
+ * try (PassengerWriteBehind writes = new PassengerWriteBehind()) {
+ *     CompletableFuture&lt;Void&gt; stored = writes.addPassenger("Smith", airportId);
+ *     ...
+ *     stored.join(); // the passenger is committed
+ * }
+ * </pre>
+ * Callers enqueue into a lock-free queue bounded by {@code capacity} permits: when it is full,
+ * addPassenger waits for the writer. A single writer thread takes up to {@code maxBatch} passengers,
+ * waiting at most {@code linger} for the batch to fill, and writes them in one transaction.
+ * Each future completes after the commit of its batch, like a return from addPassenger.
+ *
+ * When a batch fails (e.g. a name already taken: PASSENGERS.NAME is unique), it is rolled back and
+ * written again in two halves, down to the passenger that fails: only its future completes
+ * exceptionally. A database outage thus costs one transaction per queued passenger before failing them.
+ *
+ * Futures complete on the writer thread: chain slow work with the *Async methods of CompletableFuture.
+ */
+public class PassengerWriteBehind implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_MAX_BATCH = 500;
+    public static final Duration DEFAULT_LINGER = Duration.ofMillis(2);
+
+    /**
+     * @param batches     committed transactions, including the halves of failed batches
+     * @param rollbacks   failed transactions (each one split, or one failed passenger)
+     * @param passengers  passengers committed
+     * @param failures    futures completed exceptionally
+     */
+    public record Stats(long batches, long rollbacks, long passengers, long failures) {
+        public double meanBatchSize() {
+            return batches == 0 ? 0 : (double) passengers / batches;
+        }
+    }
+
+    private record Pending(String name, long airportId, CompletableFuture<Void> stored) {
+    }
+
+    private final EntityManagerFactory emf;
+    private final int capacity;
+    private final int maxBatch;
+    private final long lingerNanos;
+
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore permits;
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile boolean stopped;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rollbacks = new LongAdder();
+    private final LongAdder passengers = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public PassengerWriteBehind(EntityManagerFactory emf, int capacity, int maxBatch, Duration linger) {
+        if (capacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive: " + capacity + ", " + maxBatch);
+        }
+        this.emf = emf;
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = linger.toNanos();
+        this.permits = new Semaphore(capacity);
+        this.writer = Thread.ofPlatform().name("passenger-write-behind").daemon().start(this::drain);
+    }
+
+    /**
+     * Shared factory, default capacity, batch size and linger
+     */
+    public PassengerWriteBehind() {
+        this(JpaUtil.getEntityManagerFactory(), DEFAULT_CAPACITY, DEFAULT_MAX_BATCH, DEFAULT_LINGER);
+    }
+
+    /**
+     * Queues the passenger; the future completes once it is committed. As with AirportDao.addPassenger,
+     * nothing is written when the airport does not exist.
+     */
+    public CompletableFuture<Void> addPassenger(String name, int airportId) {
+        permits.acquireUninterruptibly();
+        if (closed) {
+            permits.release();
+            return CompletableFuture.failedFuture(new IllegalStateException("PassengerWriteBehind is closed"));
+        }
+        CompletableFuture<Void> stored = new CompletableFuture<>();
+        queue.offer(new Pending(name, airportId, stored));
+        LockSupport.unpark(writer);
+        return stored;
+    }
+
+    public Stats getStats() {
+        return new Stats(batches.sum(), rollbacks.sum(), passengers.sum(), failures.sum());
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            Pending first = queue.poll();
+            if (first == null) {
+                if (stopped) return;
+                LockSupport.park(this);
+                continue;
+            }
+            batch.add(first);
+            long deadline = System.nanoTime() + lingerNanos;
+            while (batch.size() < maxBatch) {
+                Pending next = queue.poll();
+                if (next != null) {
+                    batch.add(next);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || closed) break;
+                LockSupport.parkNanos(this, remaining);
+            }
+            write(batch);
+            permits.release(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        int inserted;
+        try {
+            inserted = TransactionExecutor.executeInTransaction(emf, em -> insert(em, batch));
+        } catch (RuntimeException ex) {
+            rollbacks.increment();
+            if (batch.size() == 1) {
+                failures.increment();
+                batch.getFirst().stored().completeExceptionally(ex);
+                return;
+            }
+            // Bisect: the passengers of the good half are committed, the bad one is isolated in log2(batch) steps
+            int half = batch.size() / 2;
+            write(batch.subList(0, half));
+            write(batch.subList(half, batch.size()));
+            return;
+        }
+        batches.increment();
+        passengers.add(inserted);
+        batch.forEach(pending -> pending.stored().complete(null));
+    }
+
+    private int insert(EntityManager em, List<Pending> batch) {
+        Map<Long, Airport> airports = new HashMap<>();
+        int count = 0;
+        for (Pending pending : batch) {
+            Airport airport = airports.computeIfAbsent(pending.airportId(), id -> em.find(Airport.class, id));
+            if (airport == null) continue;
+
+            // Owning side only, as in addPassengers: airport.passengers stays unloaded
+            Passenger newPassenger = new Passenger(pending.name());
+            newPassenger.setAirport(airport);
+            em.persist(newPassenger);
+            count++;
+        }
+        em.flush(); // constraint violations surface here, before the commit
+        return count;
+    }
+
+    /**
+     * Stops accepting passengers, waits until the queued ones are written, then stops the writer.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        // Every permit back: nothing queued, no caller between acquire and offer
+        permits.acquireUninterruptibly(capacity);
+        stopped = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package al420445.dao.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JdbcProxiesTest {
+
+    private static final String INSERT = "insert into ROWS_TABLE (ID) values (?)";
+    private static final String SELECT = "select ID from ROWS_TABLE";
+
+    private final SqlMetrics metrics = new SqlMetrics(Duration.ofHours(1));
+    private Connection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = metrics.wrap(DriverManager.getConnection("jdbc:h2:mem:jdbc_proxies_test"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table ROWS_TABLE (ID int primary key)");
+        }
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table ROWS_TABLE");
+        }
+        connection.close();
+    }
+
+    @Test
+    void batchCountsEveryAddBatch() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (int id = 1; id <= 3; id++) {
+                insert.setInt(1, id);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+
+            insert.setInt(1, 4);
+            insert.addBatch();
+            insert.executeBatch();
+        }
+
+        JpaMetrics.QueryMetrics stats = stats(INSERT);
+        assertEquals(4, stats.executions());
+        assertEquals(4, stats.rows());
+    }
+
+    @Test
+    void clearBatchResetsTheCount() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            insert.setInt(1, 1);
+            insert.addBatch();
+            insert.clearBatch();
+
+            insert.setInt(1, 2);
+            insert.addBatch();
+            insert.executeBatch();
+        }
+
+        JpaMetrics.QueryMetrics stats = stats(INSERT);
+        assertEquals(1, stats.executions());
+        assertEquals(1, stats.rows());
+    }
+
+    @Test
+    void singleExecutionsStillCountOneEachAndTheRowsRead() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (int id = 1; id <= 2; id++) {
+                insert.setInt(1, id);
+                insert.executeUpdate();
+            }
+        }
+        try (PreparedStatement select = connection.prepareStatement(SELECT);
+             ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                // read every row
+            }
+        }
+
+        assertEquals(2, stats(INSERT).executions());
+        assertEquals(0, stats(INSERT).rows());
+        assertEquals(1, stats(SELECT).executions());
+        assertEquals(2, stats(SELECT).rows());
+    }
+
+    private JpaMetrics.QueryMetrics stats(String sql) {
+        return metrics.snapshot().stream()
+                .filter(query -> query.sql().equals(sql))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,36 @@
+package al420445.dao.tx;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    @Test
+    void backoffDoublesUpToTheMaximum() {
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(10), Duration.ofMillis(500));
+
+        assertBetween(Duration.ofMillis(5), Duration.ofMillis(10), policy.backoff(1));
+        assertBetween(Duration.ofMillis(20), Duration.ofMillis(40), policy.backoff(3));
+        assertBetween(Duration.ofMillis(250), Duration.ofMillis(500), policy.backoff(10));
+    }
+
+    @Test
+    void largeInitialBackoffDoesNotOverflow() {
+        // 10 s << 30 does not fit in a long of nanoseconds
+        RetryPolicy policy = new RetryPolicy(50, Duration.ofSeconds(10), Duration.ofMinutes(5));
+
+        assertBetween(Duration.ofSeconds(5), Duration.ofSeconds(10), policy.backoff(1));
+        assertBetween(Duration.ofSeconds(10), Duration.ofSeconds(20), policy.backoff(2));
+        for (int retry = 6; retry <= 50; retry++) {
+            assertBetween(Duration.ofSeconds(150), Duration.ofMinutes(5), policy.backoff(retry));
+        }
+    }
+
+    private static void assertBetween(Duration min, Duration max, Duration actual) {
+        assertTrue(actual.compareTo(min) >= 0 && actual.compareTo(max) <= 0,
+                () -> actual + " not in [" + min + ", " + max + "]");
+    }
+}